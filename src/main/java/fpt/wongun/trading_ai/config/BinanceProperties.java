@@ -0,0 +1,99 @@
+package fpt.wongun.trading_ai.config;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@ConfigurationProperties(prefix = "binance")
+@Data
+@Validated
+public class BinanceProperties {
+
+    @NotBlank
+    private String baseUrl = "https://api.binance.com";
+
+    @NotBlank
+    private String streamUrl = "wss://stream.binance.com:9443/ws";
+
+    // When enabled, klines are ingested from the WebSocket stream and REST polling is switched off
+    private boolean streamEnabled = true;
+
+    @NotNull
+    private Duration reconnectMinBackoff = Duration.ofSeconds(1);
+
+    @NotNull
+    private Duration reconnectMaxBackoff = Duration.ofSeconds(60);
+
+    // Max klines requested per REST call when backfilling a gap after reconnect
+    @Min(1)
+    private int backfillLimit = 1000;
+
+    // Local request-weight budget; Binance allows 6000/min per IP, keep headroom for other tools
+    @Min(1)
+    private int weightLimitPerMinute = 4800;
+
+    // Longest a request may queue for weight before it is shed instead of sent
+    @NotNull
+    private Duration rateLimitMaxWait = Duration.ofSeconds(10);
+
+    // Upper bound on concurrent kline fetches per REST sync cycle
+    @Min(1)
+    private int syncParallelism = 64;
+
+    // Period of the cheap last-price refresh of forming bars between bar closes; overrunning cycles
+    // skip the missed slots instead of queueing up
+    @NotNull
+    private Duration syncInterval = Duration.ofSeconds(5);
+
+    // Random delay added to each cycle start so instances do not hit the exchange in lockstep
+    @NotNull
+    private Duration syncJitter = Duration.ofMillis(500);
+
+    // Wait after a bar boundary before fetching the closed bar, so the exchange has finalized it
+    @NotNull
+    private Duration closeFetchDelay = Duration.ofSeconds(1);
+
+    // Deadline for one series' lookup and fetch within a cycle; the upsert that follows is not cut short
+    @NotNull
+    private Duration syncSeriesTimeout = Duration.ofSeconds(10);
+
+    // Concurrent chunk fetches per historical backfill job; each chunk is one 1000-bar page
+    @Min(1)
+    private int backfillParallelism = 4;
+
+    // Stream only M1 and derive the other timeframes locally
+    private boolean rollupEnabled = true;
+
+    // How far back the gap repair job scans each series
+    @NotNull
+    private Duration gapScanLookback = Duration.ofDays(7);
+
+    // Maintain a local L2 order book per tracked crypto symbol from the diff depth stream
+    private boolean depthEnabled = true;
+
+    // Levels per side in the resync snapshot; 1000 costs 50 weight, above that 250
+    @Min(1)
+    @Max(5000)
+    private int depthSnapshotLimit = 1000;
+
+    // Levels kept per side; the furthest are dropped beyond this
+    @Min(1)
+    private int depthMaxLevels = 5000;
+
+    // Distance from the mid price used for depth in the analysis context
+    @Min(1)
+    @Max(10000)
+    private int depthDistanceBps = 10;
+
+    // SYMBOL:CODE series built locally from the aggTrade stream, e.g. BTCUSDT:M2, BTCUSDT:T1000 (see BarSpec)
+    @NotNull
+    private List<String> tradeBars = new ArrayList<>();
+}
@@ -0,0 +1,125 @@
+package fpt.wongun.trading_ai.config;
+
+import io.netty.channel.ChannelOption;
+import io.netty.handler.timeout.ReadTimeoutHandler;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+import reactor.netty.resources.LoopResources;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Outbound HTTP clients. Every destination gets its own warm connection pool, while all of them
+ * share one event loop group, so request latency never includes a fresh TCP/TLS handshake.
+ */
+@Configuration
+@Slf4j
+@EnableConfigurationProperties(HttpClientProperties.class)
+public class HttpClientConfig {
+
+    private static final String READ_TIMEOUT_HANDLER = "readTimeout";
+
+    private final List<ConnectionProvider> connectionProviders = new CopyOnWriteArrayList<>();
+
+    @Bean(destroyMethod = "dispose")
+    public LoopResources httpClientLoopResources(HttpClientProperties properties) {
+        int threads = properties.getEventLoopThreads() > 0
+                ? properties.getEventLoopThreads()
+                : LoopResources.DEFAULT_IO_WORKER_COUNT;
+        return LoopResources.create("http-client", threads, true);
+    }
+
+    @Bean
+    public WebClient binanceWebClient(BinanceProperties binanceProperties, HttpClientProperties properties,
+                                      LoopResources httpClientLoopResources) {
+        return WebClient.builder()
+                .baseUrl(binanceProperties.getBaseUrl())
+                .clientConnector(connector("binance", binanceProperties.getBaseUrl(),
+                        properties.getBinance(), properties, httpClientLoopResources))
+                .build();
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "groq", name = "enabled", havingValue = "true")
+    public WebClient groqWebClient(GroqProperties groqProperties, HttpClientProperties properties,
+                                   LoopResources httpClientLoopResources) {
+        return WebClient.builder()
+                .baseUrl(groqProperties.getBaseUrl())
+                .defaultHeader("Authorization", "Bearer " + groqProperties.getApiKey())
+                .defaultHeader("Content-Type", "application/json")
+                .clientConnector(connector("groq", groqProperties.getBaseUrl(),
+                        properties.getGroq(), properties, httpClientLoopResources))
+                .build();
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "groq", name = "enabled", havingValue = "false", matchIfMissing = false)
+    public WebClient openAiWebClient(OpenAiProperties openAiProperties, HttpClientProperties properties,
+                                     LoopResources httpClientLoopResources) {
+        return WebClient.builder()
+                .baseUrl(openAiProperties.getBaseUrl())
+                .defaultHeader("Authorization", "Bearer " + openAiProperties.getApiKey())
+                .defaultHeader("Content-Type", "application/json")
+                .clientConnector(connector("openai", openAiProperties.getBaseUrl(),
+                        properties.getOpenai(), properties, httpClientLoopResources))
+                .build();
+    }
+
+    @PreDestroy
+    public void disposeConnectionPools() {
+        connectionProviders.forEach(ConnectionProvider::dispose);
+    }
+
+    private ReactorClientHttpConnector connector(String name, String baseUrl,
+                                                 HttpClientProperties.Destination destination,
+                                                 HttpClientProperties properties,
+                                                 LoopResources loopResources) {
+        ConnectionProvider provider = ConnectionProvider.builder(name)
+                .maxConnections(destination.getMaxConnections())
+                .pendingAcquireTimeout(destination.getPendingAcquireTimeout())
+                .maxIdleTime(destination.getMaxIdleTime())
+                .maxLifeTime(destination.getMaxLifeTime())
+                .evictInBackground(destination.getMaxIdleTime())
+                .metrics(properties.isMetricsEnabled())
+                .build();
+        connectionProviders.add(provider);
+
+        long readTimeoutMillis = destination.getReadTimeout().toMillis();
+        HttpClient httpClient = HttpClient.create(provider)
+                .runOn(loopResources)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) destination.getConnectTimeout().toMillis())
+                .option(ChannelOption.SO_KEEPALIVE, true)
+                .responseTimeout(destination.getResponseTimeout())
+                // The read timeout only runs while a request is in flight: on the connection itself it
+                // would fire on idle keep-alive connections in the pool and close them
+                .doOnRequest((request, connection) -> connection.addHandlerLast(READ_TIMEOUT_HANDLER,
+                        new ReadTimeoutHandler(readTimeoutMillis, TimeUnit.MILLISECONDS)))
+                .doAfterResponseSuccess((response, connection) -> connection.removeHandler(READ_TIMEOUT_HANDLER))
+                .compress(destination.isCompression())
+                .metrics(properties.isMetricsEnabled(), Function.identity());
+
+        // h2 is only offered over TLS here, so plain-http destinations (local stand-ins) stay on HTTP/1.1
+        if (destination.isHttp2() && baseUrl.startsWith("https")) {
+            httpClient = httpClient.protocol(HttpProtocol.H2, HttpProtocol.HTTP11).secure();
+        }
+
+        log.info("Outbound HTTP client '{}': {} connections, connect {}ms, response {}, http2={}",
+                name, destination.getMaxConnections(), destination.getConnectTimeout().toMillis(),
+                destination.getResponseTimeout(), destination.isHttp2());
+
+        return new ReactorClientHttpConnector(httpClient);
+    }
+}
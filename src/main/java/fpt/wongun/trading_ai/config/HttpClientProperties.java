@@ -0,0 +1,71 @@
+package fpt.wongun.trading_ai.config;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "http-client")
+@Data
+@Validated
+public class HttpClientProperties {
+
+    // Event loop threads shared by all outbound clients; 0 uses the Reactor Netty default (one per core)
+    @Min(0)
+    private int eventLoopThreads = 0;
+
+    private boolean metricsEnabled = true;
+
+    @Valid
+    private Destination binance = new Destination();
+
+    // AI completions can take a while to generate
+    @Valid
+    private Destination groq = Destination.slow();
+
+    @Valid
+    private Destination openai = Destination.slow();
+
+    @Data
+    public static class Destination {
+
+        @Min(1)
+        private int maxConnections = 50;
+
+        @NotNull
+        private Duration pendingAcquireTimeout = Duration.ofSeconds(5);
+
+        // Kept below common server keep-alive timeouts so we never reuse a connection the peer closed
+        @NotNull
+        private Duration maxIdleTime = Duration.ofSeconds(30);
+
+        @NotNull
+        private Duration maxLifeTime = Duration.ofMinutes(5);
+
+        @NotNull
+        private Duration connectTimeout = Duration.ofSeconds(5);
+
+        @NotNull
+        private Duration readTimeout = Duration.ofSeconds(10);
+
+        @NotNull
+        private Duration responseTimeout = Duration.ofSeconds(10);
+
+        // Negotiated via ALPN; falls back to HTTP/1.1 when the server does not offer h2
+        private boolean http2 = true;
+
+        private boolean compression = true;
+
+        static Destination slow() {
+            Destination destination = new Destination();
+            destination.setConnectTimeout(Duration.ofSeconds(10));
+            destination.setReadTimeout(Duration.ofSeconds(60));
+            destination.setResponseTimeout(Duration.ofSeconds(60));
+            return destination;
+        }
+    }
+}
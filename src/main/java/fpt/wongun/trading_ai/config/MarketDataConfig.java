@@ -0,0 +1,18 @@
+package fpt.wongun.trading_ai.config;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+@Configuration
+@EnableConfigurationProperties({BinanceProperties.class, MarketDataProperties.class})
+public class MarketDataConfig {
+
+    // Bounded pool for blocking JDBC work fed by reactive fetches, so network I/O never waits on the database
+    @Bean(destroyMethod = "dispose")
+    public Scheduler candlePersistScheduler(MarketDataProperties properties) {
+        return Schedulers.newBoundedElastic(properties.getPersistThreads(), 10_000, "candle-persist");
+    }
+}
@@ -0,0 +1,90 @@
+package fpt.wongun.trading_ai.config;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+@Data
+@Validated
+@ConfigurationProperties(prefix = "market-data")
+public class MarketDataProperties {
+
+    // binance, replay or synthetic
+    @NotBlank
+    private String source = "binance";
+
+    // CSV or NDJSON file read by the replay source
+    private String replayFile;
+
+    // Virtual clock multiple for replay and synthetic feeds; 60 plays one M1 bar per second
+    @Positive
+    private double speed = 1.0;
+
+    // Threads that run candle persistence for the non-blocking fetch path; keep below the JDBC pool size
+    @Min(1)
+    private int persistThreads = 4;
+
+    // Candle event bus: ordered lanes, each a bounded queue with its own thread
+    @Min(1)
+    private int eventLanes = 4;
+
+    @Min(1)
+    private int eventQueueCapacity = 4096;
+
+    // How long a closed-bar publish waits on a full lane between warnings; closed bars are never dropped
+    @NotNull
+    private Duration eventPublishTimeout = Duration.ofSeconds(1);
+
+    // Also keep forming bars in the unlogged forming_candles table so they survive a clean restart
+    private boolean formingTableEnabled = false;
+
+    // Largest close-to-close move within a fetched page (0.5 = 50%) before a bar is quarantined as an outlier
+    @Positive
+    private double maxBarJump = 0.5;
+
+    // Session VWAP and volume profile: session length (UTC-aligned) and price bucket width relative to the opening price
+    @NotNull
+    private Duration vwapSession = Duration.ofDays(1);
+
+    @Positive
+    private double vwapBucketBps = 5;
+
+    // Partition candles by timeframe and UTC month; off keeps a plain table
+    private boolean candlePartitioning = true;
+
+    // Months of empty partitions kept ready beyond the current one
+    @Min(0)
+    private int candlePartitionsAhead = 2;
+
+    // Per-timeframe retention (e.g. M1: 400d); older months are dropped whole once archived, unlisted timeframes are kept
+    @NotNull
+    private Map<String, Duration> candleRetention = new HashMap<>();
+
+    // Directory of the columnar candle archive; blank disables archiving and archive reads
+    private String candleArchiveDir;
+
+    // Months are archived once they ended this long ago; keep candle-retention longer than this
+    @NotNull
+    private Duration candleArchiveAfter = Duration.ofDays(7);
+
+    private long syntheticSeed = 42;
+
+    @Positive
+    private double syntheticStartPrice = 50000;
+
+    // Standard deviation of the log return of one M1 bar
+    @Positive
+    private double syntheticVolatility = 0.001;
+
+    // Bars generated before startup so analysis has history immediately
+    @Min(0)
+    private int syntheticHistoryBars = 1000;
+}
@@ -0,0 +1,63 @@
+package fpt.wongun.trading_ai.controller;
+
+import fpt.wongun.trading_ai.dto.ApiResponse;
+import fpt.wongun.trading_ai.dto.BackfillJobDto;
+import fpt.wongun.trading_ai.dto.BackfillRequestDto;
+import fpt.wongun.trading_ai.service.market.BackfillService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/admin/backfill-jobs")
+@RequiredArgsConstructor
+@Slf4j
+@Validated
+@Tag(name = "Admin - Backfill", description = "Historical candle backfill jobs (Admin only)")
+@PreAuthorize("hasRole('ADMIN')")
+public class BackfillController {
+
+    private final BackfillService backfillService;
+
+    @PostMapping
+    @Operation(summary = "Start backfill", description = "Fetch a historical date range in parallel 1000-bar chunks")
+    public ResponseEntity<ApiResponse<BackfillJobDto>> start(@Valid @RequestBody BackfillRequestDto request) {
+        log.info("Starting backfill for {}/{} from {} to {}",
+                request.getSymbolCode(), request.getTimeframe(), request.getFrom(), request.getTo());
+
+        return ResponseEntity
+                .status(HttpStatus.ACCEPTED)
+                .body(ApiResponse.success(backfillService.start(request)));
+    }
+
+    @GetMapping
+    public ResponseEntity<ApiResponse<List<BackfillJobDto>>> list() {
+        return ResponseEntity.ok(ApiResponse.success(backfillService.listJobs()));
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<ApiResponse<BackfillJobDto>> get(@PathVariable Long id) {
+        return ResponseEntity.ok(ApiResponse.success(backfillService.getJob(id)));
+    }
+
+    @PostMapping("/{id}/cancel")
+    public ResponseEntity<ApiResponse<BackfillJobDto>> cancel(@PathVariable Long id) {
+        log.info("Cancelling backfill job {}", id);
+        return ResponseEntity.ok(ApiResponse.success(backfillService.cancel(id)));
+    }
+
+    @PostMapping("/{id}/resume")
+    public ResponseEntity<ApiResponse<BackfillJobDto>> resume(@PathVariable Long id) {
+        log.info("Resuming backfill job {}", id);
+        return ResponseEntity.ok(ApiResponse.success(backfillService.resume(id)));
+    }
+}
@@ -3,26 +3,44 @@ package fpt.wongun.trading_ai.controller;
 import fpt.wongun.trading_ai.domain.entity.Candle;
 import fpt.wongun.trading_ai.domain.entity.Symbol;
 import fpt.wongun.trading_ai.domain.enums.SymbolType;
+import fpt.wongun.trading_ai.domain.enums.Timeframe;
 import fpt.wongun.trading_ai.dto.ApiResponse;
 import fpt.wongun.trading_ai.dto.CandleImportDto;
 import fpt.wongun.trading_ai.dto.CandleResponseDto;
 import fpt.wongun.trading_ai.exception.SymbolNotFoundException;
 import fpt.wongun.trading_ai.repository.CandleRepository;
 import fpt.wongun.trading_ai.repository.SymbolRepository;
-import fpt.wongun.trading_ai.service.market.BinanceClient;
+import fpt.wongun.trading_ai.service.market.BarSpec;
 import fpt.wongun.trading_ai.service.market.BinanceKline;
+import fpt.wongun.trading_ai.service.market.BinanceSymbolInfo;
+import fpt.wongun.trading_ai.service.market.CandleArchive;
+import fpt.wongun.trading_ai.service.market.CandleExportService;
+import fpt.wongun.trading_ai.service.market.CandleFileFormat;
+import fpt.wongun.trading_ai.service.market.CandleImportReport;
+import fpt.wongun.trading_ai.service.market.CandleImportService;
+import fpt.wongun.trading_ai.service.market.CandleIngestService;
+import fpt.wongun.trading_ai.service.market.FormingBarStore;
+import fpt.wongun.trading_ai.service.market.KlineBatch;
+import fpt.wongun.trading_ai.service.market.SymbolCatalogService;
+import fpt.wongun.trading_ai.service.market.source.MarketDataSource;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.time.Instant;
 import java.util.*;
 
@@ -37,7 +55,14 @@ public class CandleAdminController {
 
     private final CandleRepository candleRepository;
     private final SymbolRepository symbolRepository;
-    private final BinanceClient binanceClient;
+    private final MarketDataSource marketDataSource;
+    private final CandleIngestService candleIngestService;
+    private final Scheduler candlePersistScheduler;
+    private final SymbolCatalogService symbolCatalogService;
+    private final FormingBarStore formingBarStore;
+    private final CandleImportService candleImportService;
+    private final CandleExportService candleExportService;
+    private final CandleArchive candleArchive;
 
     @GetMapping
     public ResponseEntity<ApiResponse<List<CandleResponseDto>>> getCandles(
@@ -53,12 +78,22 @@ public class CandleAdminController {
         List<Candle> candles = candleRepository
                 .findTop200BySymbolAndTimeframeOrderByTimestampDesc(symbol, timeframe);
         
-        // Limit results
-        if (limit < candles.size()) {
-            candles = candles.subList(0, limit);
-        }
+        // Newest first: the forming bar (kept outside the candles table) leads the closed history
+        List<CandleResponseDto> response = new ArrayList<>();
+        formingBarStore.get(symbol.getId(), timeframe)
+                .filter(bar -> candles.isEmpty()
+                        || bar.getOpenTime() > candles.getFirst().getTimestamp().toEpochMilli())
+                .ifPresent(bar -> response.add(CandleResponseDto.builder()
+                        .time(Instant.ofEpochMilli(bar.getOpenTime()))
+                        .open(bar.getOpen())
+                        .high(bar.getHigh())
+                        .low(bar.getLow())
+                        .close(bar.getClose())
+                        .volume(bar.getVolume())
+                        .build()));
         
-        List<CandleResponseDto> response = candles.stream()
+        candles.stream()
+                .limit(limit - response.size())
                 .map(c -> CandleResponseDto.builder()
                         .time(c.getTimestamp())
                         .open(c.getOpen())
@@ -67,7 +102,7 @@ public class CandleAdminController {
                         .close(c.getClose())
                         .volume(c.getVolume())
                         .build())
-                .collect(java.util.stream.Collectors.toList());
+                .forEach(response::add);
         
         return ResponseEntity.ok(ApiResponse.success(response));
     }
@@ -79,47 +114,84 @@ public class CandleAdminController {
         
         log.info("Bulk importing {} candles", candleDtos.size());
         
+        // One validated bulk write per series instead of an entity insert per row
+        Map<String, List<CandleImportDto>> series = new LinkedHashMap<>();
+        for (CandleImportDto dto : candleDtos) {
+            series.computeIfAbsent(dto.getSymbolCode() + ":" + dto.getTimeframe(), key -> new ArrayList<>()).add(dto);
+        }
+
         Set<String> uniqueSymbols = new HashSet<>();
         Set<String> timeframes = new HashSet<>();
-        List<Candle> candles = new ArrayList<>();
         Map<String, Symbol> symbolCache = new HashMap<>();
-
-        for (CandleImportDto dto : candleDtos) {
-            Symbol symbol = symbolCache.computeIfAbsent(dto.getSymbolCode(), code -> {
-                return symbolRepository.findByCode(code)
-                        .orElseGet(() -> createSymbol(code));
-            });
-
-            uniqueSymbols.add(dto.getSymbolCode());
-            timeframes.add(dto.getTimeframe());
-
-            Candle candle = Candle.builder()
-                    .symbol(symbol)
-                    .timeframe(dto.getTimeframe())
-                    .timestamp(dto.getTimestamp())
-                    .open(dto.getOpen())
-                    .high(dto.getHigh())
-                    .low(dto.getLow())
-                    .close(dto.getClose())
-                    .volume(dto.getVolume())
-                    .build();
-
-            candles.add(candle);
+        int imported = 0;
+        long now = System.currentTimeMillis();
+
+        for (List<CandleImportDto> rows : series.values()) {
+            CandleImportDto first = rows.getFirst();
+            Symbol symbol = symbolCache.computeIfAbsent(first.getSymbolCode(), code ->
+                    symbolRepository.findByCode(code).orElseGet(() -> createSymbol(code)));
+            long step = Math.max(BarSpec.parse(first.getTimeframe()).stepMillis(), 1);
+
+            uniqueSymbols.add(first.getSymbolCode());
+            timeframes.add(first.getTimeframe());
+
+            rows.sort(Comparator.comparing(CandleImportDto::getTimestamp));
+            KlineBatch batch = new KlineBatch(rows.size());
+            for (CandleImportDto dto : rows) {
+                long openTime = dto.getTimestamp().toEpochMilli();
+                batch.addKline(new BinanceKline(openTime, dto.getOpen(), dto.getHigh(), dto.getLow(),
+                        dto.getClose(), dto.getVolume(), openTime + step - 1, null, null));
+            }
+            imported += candleIngestService.applyAll(symbol, first.getTimeframe(), batch, now);
         }
 
-        candleRepository.saveAll(candles);
-
         Map<String, Object> result = new HashMap<>();
-        result.put("importedCount", candles.size());
+        result.put("importedCount", imported);
         result.put("uniqueSymbols", uniqueSymbols.size());
         result.put("timeframes", new ArrayList<>(timeframes));
         result.put("message", "Bulk import completed successfully");
 
-        log.info("Bulk import completed: {} candles", candles.size());
+        log.info("Bulk import completed: {} of {} candles written", imported, candleDtos.size());
 
         return ResponseEntity.ok(ApiResponse.success(result));
     }
 
+    // Rows go from a database cursor straight to the socket; the client's read speed paces the export
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> export(
+            @RequestParam List<String> series,
+            @RequestParam Instant from,
+            @RequestParam(required = false) Instant to,
+            @RequestParam(defaultValue = "NDJSON") CandleFileFormat format) {
+
+        List<CandleExportService.ExportSeries> resolved = candleExportService.resolve(series);
+        Instant end = to != null ? to : Instant.now();
+        if (!from.isBefore(end)) {
+            throw new IllegalArgumentException("from must be before to");
+        }
+        log.info("Exporting {} series from {} to {} as {}", resolved.size(), from, end, format);
+
+        StreamingResponseBody body = out -> candleExportService.export(resolved, from, end, format, out);
+        return ResponseEntity.ok()
+                .contentType(format.mediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"candles." + format.name().toLowerCase() + "\"")
+                .body(body);
+    }
+
+    // Parses the body while it arrives and writes it in fixed-size chunks; memory does not grow with the upload
+    @PostMapping(value = "/import", consumes = {"application/x-ndjson", "text/csv"})
+    public ResponseEntity<ApiResponse<CandleImportReport>> importStream(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+            InputStream body) throws IOException {
+
+        CandleFileFormat format = CandleFileFormat.of(contentType);
+        log.info("Streaming {} candle import", format);
+
+        CandleImportReport report = candleImportService.importStream(body, format);
+        return ResponseEntity.ok(ApiResponse.success(report));
+    }
+
     @DeleteMapping
     @Transactional
     public ResponseEntity<ApiResponse<Map<String, Object>>> deleteCandles(
@@ -134,11 +206,16 @@ public class CandleAdminController {
             Symbol symbol = symbolRepository.findByCode(symbolCode)
                     .orElseThrow(() -> new SymbolNotFoundException(symbolCode));
             deletedCount = candleRepository.deleteBySymbolAndTimeframe(symbol, timeframe);
+            // Otherwise tiered reads keep serving the deleted history from the archive
+            candleArchive.deleteSeries(symbol.getCode(), timeframe);
 
         } else if (symbolCode != null) {
             Symbol symbol = symbolRepository.findByCode(symbolCode)
                     .orElseThrow(() -> new SymbolNotFoundException(symbolCode));
             deletedCount = candleRepository.deleteBySymbol(symbol);
+            for (String archived : candleArchive.timeframes(symbol.getCode())) {
+                candleArchive.deleteSeries(symbol.getCode(), archived);
+            }
 
         } else {
             return ResponseEntity.badRequest()
@@ -155,64 +232,65 @@ public class CandleAdminController {
         return ResponseEntity.ok(ApiResponse.success(result));
     }
 
+    // Non-blocking: the request thread is released while the fetch is in flight and the
+    // delete-and-insert runs on the bounded candle persist pool
     @PostMapping("/import-binance")
-    @Transactional
-    public ResponseEntity<ApiResponse<Map<String, Object>>> importFromBinance(
+    public Mono<ResponseEntity<ApiResponse<Map<String, Object>>>> importFromBinance(
             @RequestParam String symbol,
             @RequestParam String timeframe,
             @RequestParam(defaultValue = "200") @Min(1) @Max(1000) int limit) {
 
-        log.info("Importing {} candles from Binance: {}/{}", limit, symbol, timeframe);
-
-        try {
-            String interval = BinanceClient.mapTimeframeToInterval(timeframe);
-            List<BinanceKline> klines = binanceClient.fetchKlines(symbol, interval, limit);
-
-            if (klines.isEmpty()) {
-                return ResponseEntity.badRequest()
-                        .body(ApiResponse.error("NO_DATA", 
-                              "No data returned from Binance for " + symbol));
-            }
-
-            Symbol symbolEntity = symbolRepository.findByCode(symbol)
-                    .orElseGet(() -> createSymbol(symbol));
-
-            List<Candle> candles = klines.stream()
-                    .map(kline -> Candle.builder()
-                            .symbol(symbolEntity)
-                            .timeframe(timeframe)
-                            .timestamp(Instant.ofEpochMilli(kline.getOpenTime()))
-                            .open(kline.getOpen())
-                            .high(kline.getHigh())
-                            .low(kline.getLow())
-                            .close(kline.getClose())
-                            .volume(kline.getVolume())
-                            .build())
-                    .toList();
-
-            candleRepository.deleteBySymbolAndTimeframe(symbolEntity, timeframe);
-            candleRepository.saveAll(candles);
-
-            Map<String, Object> result = new HashMap<>();
-            result.put("symbol", symbol);
-            result.put("timeframe", timeframe);
-            result.put("importedCount", candles.size());
-            result.put("source", "Binance API");
-            result.put("message", "Successfully imported real-time data from Binance");
-
-            log.info("Imported {} candles from Binance", candles.size());
-
-            return ResponseEntity.ok(ApiResponse.success(result));
-
-        } catch (Exception e) {
-            log.error("Failed to import from Binance: {}", e.getMessage());
-            return ResponseEntity.badRequest()
-                    .body(ApiResponse.error("BINANCE_IMPORT_ERROR", 
-                          "Failed to import from Binance: " + e.getMessage()));
-        }
+        log.info("Importing {} candles from {}: {}/{}", limit, marketDataSource.getName(), symbol, timeframe);
+
+        return Mono.fromCallable(() -> Timeframe.fromCode(timeframe))
+                .flatMap(tf -> marketDataSource.fetchKlinesAsync(symbol, tf, null, null, limit, new KlineBatch(limit)))
+                .publishOn(candlePersistScheduler)
+                .map(klines -> {
+                    if (klines.isEmpty()) {
+                        return ResponseEntity.badRequest()
+                                .body(ApiResponse.<Map<String, Object>>error("NO_DATA",
+                                      "No data returned from " + marketDataSource.getName() + " for " + symbol));
+                    }
+
+                    Symbol symbolEntity = symbolRepository.findByCode(symbol)
+                            .orElseGet(() -> createSymbol(symbol));
+                    int imported = candleIngestService.replaceSeries(symbolEntity, timeframe, klines,
+                            marketDataSource.currentTimeMillis());
+
+                    Map<String, Object> result = new HashMap<>();
+                    result.put("symbol", symbol);
+                    result.put("timeframe", timeframe);
+                    result.put("importedCount", imported);
+                    result.put("source", marketDataSource.getName());
+                    result.put("message", "Successfully imported real-time data from Binance");
+
+                    log.info("Imported {} candles from {}", imported, marketDataSource.getName());
+
+                    return ResponseEntity.ok(ApiResponse.success(result));
+                })
+                .onErrorResume(e -> {
+                    log.error("Failed to import from Binance: {}", e.getMessage());
+                    return Mono.just(ResponseEntity.badRequest()
+                            .body(ApiResponse.error("BINANCE_IMPORT_ERROR",
+                                  "Failed to import from Binance: " + e.getMessage())));
+                });
     }
 
     private Symbol createSymbol(String code) {
+        Optional<BinanceSymbolInfo> listed = symbolCatalogService.find(code);
+        if (listed.isPresent()) {
+            BinanceSymbolInfo info = listed.get();
+            return symbolRepository.save(Symbol.builder()
+                    .code(code)
+                    .type(SymbolType.CRYPTO)
+                    .description(info.baseAsset() + " vs " + info.quoteAsset())
+                    .tickSize(info.tickSize())
+                    .lotSize(info.stepSize())
+                    .minNotional(info.minNotional())
+                    .build());
+        }
+
+        // Not listed on Binance (or the catalog is not loaded yet): guess from the code
         SymbolType type;
         String description;
 
@@ -0,0 +1,36 @@
+package fpt.wongun.trading_ai.controller;
+
+import fpt.wongun.trading_ai.dto.ApiResponse;
+import fpt.wongun.trading_ai.exception.MarketDataException;
+import fpt.wongun.trading_ai.service.market.DepthSummary;
+import fpt.wongun.trading_ai.service.market.OrderBookRegistry;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/market")
+@RequiredArgsConstructor
+@Validated
+@Tag(name = "Market Depth", description = "Live spread and order book depth")
+public class MarketDepthController {
+
+    private final OrderBookRegistry orderBookRegistry;
+
+    @GetMapping("/depth")
+    @Operation(summary = "Best bid/ask, spread and depth within a distance of the mid price")
+    public ResponseEntity<ApiResponse<DepthSummary>> depth(
+            @RequestParam String symbolCode,
+            @RequestParam(defaultValue = "10") @Min(1) @Max(10000) int distanceBps) {
+
+        DepthSummary summary = orderBookRegistry.summary(symbolCode, distanceBps)
+                .orElseThrow(() -> new MarketDataException("No synced order book for " + symbolCode));
+
+        return ResponseEntity.ok(ApiResponse.success(summary));
+    }
+}
@@ -0,0 +1,29 @@
+package fpt.wongun.trading_ai.controller;
+
+import fpt.wongun.trading_ai.dto.ApiResponse;
+import fpt.wongun.trading_ai.exception.MarketDataException;
+import fpt.wongun.trading_ai.service.analysis.SessionVwap;
+import fpt.wongun.trading_ai.service.analysis.SessionVwapEngine;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/market")
+@RequiredArgsConstructor
+@Tag(name = "Session VWAP", description = "Session VWAP bands and volume profile")
+public class SessionVwapController {
+
+    private final SessionVwapEngine sessionVwapEngine;
+
+    @GetMapping("/vwap")
+    @Operation(summary = "VWAP with 1 and 2 sigma bands, point of control, value area and high-volume nodes")
+    public ResponseEntity<ApiResponse<SessionVwap>> vwap(@RequestParam String symbolCode) {
+        SessionVwap vwap = sessionVwapEngine.snapshot(symbolCode)
+                .orElseThrow(() -> new MarketDataException("No session volume yet for " + symbolCode));
+
+        return ResponseEntity.ok(ApiResponse.success(vwap));
+    }
+}
@@ -0,0 +1,52 @@
+package fpt.wongun.trading_ai.controller;
+
+import fpt.wongun.trading_ai.dto.ApiResponse;
+import fpt.wongun.trading_ai.dto.SyncSubscriptionDto;
+import fpt.wongun.trading_ai.service.market.SyncSubscriptionService;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/admin/sync-subscriptions")
+@RequiredArgsConstructor
+@Slf4j
+@Validated
+@Tag(name = "Admin - Sync Subscriptions", description = "Tracked symbol/timeframe series (Admin only)")
+@PreAuthorize("hasRole('ADMIN')")
+public class SyncSubscriptionController {
+
+    private final SyncSubscriptionService subscriptionService;
+
+    @GetMapping
+    public ResponseEntity<ApiResponse<List<SyncSubscriptionDto>>> list() {
+        return ResponseEntity.ok(ApiResponse.success(subscriptionService.listSubscriptions()));
+    }
+
+    @PostMapping
+    public ResponseEntity<ApiResponse<SyncSubscriptionDto>> subscribe(
+            @Valid @RequestBody SyncSubscriptionDto request) {
+
+        log.info("Subscribing {}/{} for sync", request.getSymbolCode(), request.getTimeframe());
+
+        SyncSubscriptionDto subscription = subscriptionService.subscribe(
+                request.getSymbolCode(), request.getTimeframe());
+        return ResponseEntity
+                .status(HttpStatus.CREATED)
+                .body(ApiResponse.success(subscription));
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<ApiResponse<Void>> unsubscribe(@PathVariable Long id) {
+        subscriptionService.unsubscribe(id);
+        return ResponseEntity.ok(ApiResponse.success(null));
+    }
+}
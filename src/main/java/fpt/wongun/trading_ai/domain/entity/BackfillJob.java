@@ -0,0 +1,67 @@
+package fpt.wongun.trading_ai.domain.entity;
+
+import fpt.wongun.trading_ai.domain.enums.BackfillStatus;
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotNull;
+import lombok.*;
+
+import java.time.Instant;
+
+@Entity
+@Table(name = "backfill_jobs",
+       indexes = {
+           @Index(name = "idx_backfill_job_status", columnList = "status")
+       })
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BackfillJob extends BaseEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @NotNull(message = "Symbol is required")
+    @ManyToOne(optional = false, fetch = FetchType.LAZY)
+    @JoinColumn(name = "symbol_id", nullable = false)
+    private Symbol symbol;
+
+    @NotNull(message = "Timeframe is required")
+    @Column(nullable = false, length = 10)
+    private String timeframe;
+
+    @NotNull
+    @Column(nullable = false)
+    private Instant startTime;
+
+    @NotNull
+    @Column(nullable = false)
+    private Instant endTime;
+
+    // Checkpoint: everything in [startTime, completedUntil) has been written
+    @NotNull
+    @Column(nullable = false)
+    private Instant completedUntil;
+
+    @NotNull
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private BackfillStatus status;
+
+    @Column(nullable = false)
+    @Builder.Default
+    private Integer totalChunks = 0;
+
+    @Column(nullable = false)
+    @Builder.Default
+    private Integer completedChunks = 0;
+
+    @Column(nullable = false)
+    @Builder.Default
+    private Long candlesWritten = 0L;
+
+    @Column(length = 500)
+    private String lastError;
+}
@@ -8,6 +8,10 @@ import lombok.*;
 import java.math.BigDecimal;
 import java.time.Instant;
 
+// No BaseEntity audit columns: rows come from CandleBulkWriter, and CandlePartitionManager partitions
+// the table with the natural key below as its primary key. The entity is read-only: never persist,
+// merge or remove a Candle through JPA (CandleRepository deletes in bulk). id is a row number filled
+// from candles_row_id_seq, unique in practice but not constrained, so it only tells loaded rows apart.
 @Entity
 @Table(name = "candles",
        uniqueConstraints = {
@@ -15,16 +19,13 @@ import java.time.Instant;
                name = "uk_candle_symbol_timeframe_timestamp",
                columnNames = {"symbol_id", "timeframe", "timestamp"}
            )
-       },
-       indexes = {
-           @Index(name = "idx_candle_symbol_tf_time", columnList = "symbol_id,timeframe,timestamp")
        })
 @Getter
 @Setter
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
-public class Candle extends BaseEntity {
+public class Candle {
 
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
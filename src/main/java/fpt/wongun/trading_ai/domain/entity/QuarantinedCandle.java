@@ -0,0 +1,63 @@
+package fpt.wongun.trading_ai.domain.entity;
+
+import fpt.wongun.trading_ai.domain.enums.CandleDefect;
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotNull;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+// Klines rejected by the ingest validator, kept as received for inspection
+@Entity
+@Table(name = "quarantined_candles",
+       indexes = {
+           @Index(name = "idx_quarantined_candle_symbol_tf", columnList = "symbol_id,timeframe,timestamp")
+       })
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class QuarantinedCandle extends BaseEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @NotNull(message = "Symbol is required")
+    @ManyToOne(optional = false, fetch = FetchType.LAZY)
+    @JoinColumn(name = "symbol_id", nullable = false)
+    private Symbol symbol;
+
+    @NotNull(message = "Timeframe is required")
+    @Column(nullable = false, length = 10)
+    private String timeframe;
+
+    @NotNull(message = "Timestamp is required")
+    @Column(nullable = false)
+    private Instant timestamp;
+
+    @Column(nullable = false)
+    private Instant closeTime;
+
+    @Column(precision = 28, scale = 18)
+    private BigDecimal open;
+
+    @Column(precision = 28, scale = 18)
+    private BigDecimal high;
+
+    @Column(precision = 28, scale = 18)
+    private BigDecimal low;
+
+    @Column(precision = 28, scale = 18)
+    private BigDecimal close;
+
+    @Column(precision = 28, scale = 18)
+    private BigDecimal volume;
+
+    @NotNull
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 30)
+    private CandleDefect defect;
+}
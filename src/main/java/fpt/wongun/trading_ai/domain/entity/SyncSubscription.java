@@ -0,0 +1,38 @@
+package fpt.wongun.trading_ai.domain.entity;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotNull;
+import lombok.*;
+
+@Entity
+@Table(name = "sync_subscriptions",
+       uniqueConstraints = {
+           @UniqueConstraint(
+               name = "uk_sync_subscription_symbol_timeframe",
+               columnNames = {"symbol_id", "timeframe"}
+           )
+       })
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SyncSubscription extends BaseEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @NotNull(message = "Symbol is required")
+    @ManyToOne(optional = false, fetch = FetchType.LAZY)
+    @JoinColumn(name = "symbol_id", nullable = false)
+    private Symbol symbol;
+
+    @NotNull(message = "Timeframe is required")
+    @Column(nullable = false, length = 10)
+    private String timeframe;
+
+    @Column(nullable = false)
+    @Builder.Default
+    private Boolean enabled = true;
+}
@@ -0,0 +1,14 @@
+package fpt.wongun.trading_ai.domain.enums;
+
+public enum BackfillStatus {
+
+    PENDING,
+
+    RUNNING,
+
+    COMPLETED,
+
+    FAILED,
+
+    CANCELLED
+}
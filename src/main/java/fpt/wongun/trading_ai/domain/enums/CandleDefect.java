@@ -0,0 +1,23 @@
+package fpt.wongun.trading_ai.domain.enums;
+
+public enum CandleDefect {
+
+    // Open, high, low or close at or below zero, or negative volume
+    NON_POSITIVE_VALUE,
+
+    // High below low, or open/close outside the high-low range
+    INCONSISTENT_OHLC,
+
+    // Close time does not match open time plus the timeframe
+    BAD_CLOSE_TIME,
+
+    // Open time not on a timeframe boundary
+    MISALIGNED,
+
+    DUPLICATE_TIMESTAMP,
+
+    OUT_OF_ORDER,
+
+    // Close moved further from the previous close than the configured limit
+    PRICE_JUMP
+}
@@ -0,0 +1,46 @@
+package fpt.wongun.trading_ai.domain.enums;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.Duration;
+
+@Getter
+@AllArgsConstructor
+public enum Timeframe {
+
+    M1("1m", Duration.ofMinutes(1)),
+
+    M3("3m", Duration.ofMinutes(3)),
+
+    M5("5m", Duration.ofMinutes(5)),
+
+    M15("15m", Duration.ofMinutes(15)),
+
+    M30("30m", Duration.ofMinutes(30)),
+
+    H1("1h", Duration.ofHours(1)),
+
+    H4("4h", Duration.ofHours(4)),
+
+    D1("1d", Duration.ofDays(1));
+
+    private final String binanceInterval;
+    private final Duration duration;
+
+    public long getMillis() {
+        return duration.toMillis();
+    }
+
+    public static Timeframe fromCode(String code) {
+        if (code == null) {
+            throw new IllegalArgumentException("Timeframe is required");
+        }
+        try {
+            return Timeframe.valueOf(code.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid timeframe: " + code +
+                ". Valid values: M1, M3, M5, M15, M30, H1, H4, D1");
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package fpt.wongun.trading_ai.dto;
+
+import fpt.wongun.trading_ai.domain.enums.BackfillStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BackfillJobDto {
+
+    private Long id;
+    private String symbolCode;
+    private String timeframe;
+    private Instant startTime;
+    private Instant endTime;
+    private Instant completedUntil;
+    private BackfillStatus status;
+    private Integer totalChunks;
+    private Integer completedChunks;
+    private Double progressPercent;
+    private Long candlesWritten;
+    private String lastError;
+    private Instant createdAt;
+    private Instant updatedAt;
+}
@@ -0,0 +1,31 @@
+package fpt.wongun.trading_ai.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BackfillRequestDto {
+
+    @NotBlank(message = "Symbol code is required")
+    private String symbolCode;
+
+    @NotBlank(message = "Timeframe is required")
+    @Pattern(regexp = "^(M1|M3|M5|M15|M30|H1|H4|D1)$", message = "Timeframe must be one of M1, M3, M5, M15, M30, H1, H4, D1")
+    private String timeframe;
+
+    @NotNull(message = "Start time is required")
+    private Instant from;
+
+    // Defaults to now
+    private Instant to;
+}
@@ -0,0 +1,26 @@
+package fpt.wongun.trading_ai.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Pattern;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SyncSubscriptionDto {
+
+    private Long id;
+
+    @NotBlank(message = "Symbol code is required")
+    private String symbolCode;
+
+    @NotBlank(message = "Timeframe is required")
+    @Pattern(regexp = "^(M1|M3|M5|M15|M30|H1|H4|D1)$", message = "Timeframe must be one of M1, M3, M5, M15, M30, H1, H4, D1")
+    private String timeframe;
+
+    private Boolean enabled;
+}
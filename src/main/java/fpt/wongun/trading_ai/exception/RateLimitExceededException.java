@@ -0,0 +1,10 @@
+package fpt.wongun.trading_ai.exception;
+
+import org.springframework.http.HttpStatus;
+
+public class RateLimitExceededException extends TradingException {
+
+    public RateLimitExceededException(String message) {
+        super(message, "RATE_LIMIT_EXCEEDED", HttpStatus.TOO_MANY_REQUESTS);
+    }
+}
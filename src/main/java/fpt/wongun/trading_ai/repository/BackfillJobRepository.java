@@ -0,0 +1,34 @@
+package fpt.wongun.trading_ai.repository;
+
+import fpt.wongun.trading_ai.domain.entity.BackfillJob;
+import fpt.wongun.trading_ai.domain.entity.Symbol;
+import fpt.wongun.trading_ai.domain.enums.BackfillStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface BackfillJobRepository extends JpaRepository<BackfillJob, Long> {
+
+    @Query("SELECT j FROM BackfillJob j JOIN FETCH j.symbol WHERE j.status IN :statuses ORDER BY j.id")
+    List<BackfillJob> findByStatusIn(@Param("statuses") Collection<BackfillStatus> statuses);
+
+    @Query("SELECT j FROM BackfillJob j JOIN FETCH j.symbol ORDER BY j.id DESC")
+    List<BackfillJob> findAllWithSymbol();
+
+    // True if a job in one of the given states already covers [from, to)
+    @Query("SELECT COUNT(j) > 0 FROM BackfillJob j WHERE j.symbol = :symbol AND j.timeframe = :timeframe " +
+           "AND j.status IN :statuses AND j.startTime <= :from AND j.endTime >= :to")
+    boolean existsCovering(@Param("symbol") Symbol symbol,
+                           @Param("timeframe") String timeframe,
+                           @Param("from") Instant from,
+                           @Param("to") Instant to,
+                           @Param("statuses") Collection<BackfillStatus> statuses);
+
+    @Query("SELECT j FROM BackfillJob j JOIN FETCH j.symbol WHERE j.id = :id")
+    Optional<BackfillJob> findByIdWithSymbol(@Param("id") Long id);
+}
@@ -7,7 +7,9 @@ import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.time.Instant;
 import java.util.List;
+import java.util.Optional;
 
 public interface CandleRepository extends JpaRepository<Candle, Long> {
 
@@ -16,14 +18,52 @@ public interface CandleRepository extends JpaRepository<Candle, Long> {
     List<Candle> findBySymbolAndTimeframe(Symbol symbol, String timeframe);
     
     List<Candle> findTop1BySymbolOrderByTimestampDesc(Symbol symbol);
+
+    Optional<Candle> findTop1BySymbolAndTimeframeOrderByTimestampDesc(Symbol symbol, String timeframe);
+
+    Optional<Candle> findTop1BySymbolAndTimeframeOrderByTimestampAsc(Symbol symbol, String timeframe);
+
+    List<Candle> findBySymbolAndTimeframeAndTimestampBetweenOrderByTimestampAsc(
+            Symbol symbol, String timeframe, Instant from, Instant to);
+
+    @Query("SELECT DISTINCT c.timeframe FROM Candle c WHERE c.symbol = :symbol")
+    List<String> findDistinctTimeframesBySymbol(@Param("symbol") Symbol symbol);
     
-    long deleteBySymbolAndTimeframe(Symbol symbol, String timeframe);
-    
-    long deleteBySymbol(Symbol symbol);
-    
-    long countBySymbolAndTimeframe(Symbol symbol, String timeframe);
+    // Single windowed pass over the series index: each row pairs a bar with the previous one and
+    // only pairs further apart than one bar are returned. Times are epoch millis.
+    @Query(value = """
+            SELECT CAST(EXTRACT(EPOCH FROM prev_ts) * 1000 AS BIGINT) AS lastBefore,
+                   CAST(EXTRACT(EPOCH FROM ts) * 1000 AS BIGINT) AS firstAfter
+            FROM (
+                SELECT timestamp AS ts, lag(timestamp) OVER (ORDER BY timestamp) AS prev_ts
+                FROM candles
+                WHERE symbol_id = :symbolId AND timeframe = :timeframe AND timestamp >= :since
+            ) bars
+            WHERE prev_ts IS NOT NULL
+              AND EXTRACT(EPOCH FROM ts - prev_ts) * 1000 > :stepMillis
+            ORDER BY ts
+            LIMIT :maxGaps
+            """, nativeQuery = true)
+    List<CandleGap> findGaps(@Param("symbolId") Long symbolId,
+                             @Param("timeframe") String timeframe,
+                             @Param("since") Instant since,
+                             @Param("stepMillis") long stepMillis,
+                             @Param("maxGaps") int maxGaps);
+
+    interface CandleGap {
+        Long getLastBefore();
+
+        Long getFirstAfter();
+    }
+
+    // Bulk deletes: Candle is never removed entity by entity (see Candle)
+    @Modifying
+    @Query("DELETE FROM Candle c WHERE c.symbol = :symbol AND c.timeframe = :timeframe")
+    int deleteBySymbolAndTimeframe(@Param("symbol") Symbol symbol, @Param("timeframe") String timeframe);
 
     @Modifying
-    @Query(value = "DELETE FROM candles WHERE symbol_id = :#{#symbol.id} AND timeframe = :timeframe", nativeQuery = true)
-    int hardDeleteBySymbolAndTimeframe(@Param("symbol") Symbol symbol, @Param("timeframe") String timeframe);
+    @Query("DELETE FROM Candle c WHERE c.symbol = :symbol")
+    int deleteBySymbol(@Param("symbol") Symbol symbol);
+    
+    long countBySymbolAndTimeframe(Symbol symbol, String timeframe);
 }
@@ -0,0 +1,22 @@
+package fpt.wongun.trading_ai.repository;
+
+import fpt.wongun.trading_ai.domain.entity.Symbol;
+import fpt.wongun.trading_ai.domain.entity.SyncSubscription;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface SyncSubscriptionRepository extends JpaRepository<SyncSubscription, Long> {
+
+    // Symbol is fetched eagerly: subscriptions are handed to sync workers outside any transaction
+    @Query("SELECT s FROM SyncSubscription s JOIN FETCH s.symbol sym " +
+           "WHERE s.enabled = true AND sym.isActive = true ORDER BY sym.code, s.timeframe")
+    List<SyncSubscription> findAllActive();
+
+    @Query("SELECT s FROM SyncSubscription s JOIN FETCH s.symbol ORDER BY s.symbol.code, s.timeframe")
+    List<SyncSubscription> findAllWithSymbol();
+
+    Optional<SyncSubscription> findBySymbolAndTimeframe(Symbol symbol, String timeframe);
+}
@@ -0,0 +1,29 @@
+package fpt.wongun.trading_ai.service;
+
+import fpt.wongun.trading_ai.domain.enums.TradingMode;
+import fpt.wongun.trading_ai.service.market.event.CandleClosed;
+import fpt.wongun.trading_ai.service.market.event.CandleEventListener;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+
+// A cached signal is stale as soon as its series closes a new bar; drop it instead of waiting for the TTL
+@Component
+@RequiredArgsConstructor
+public class AiSignalCacheInvalidator implements CandleEventListener {
+
+    private final CacheManager cacheManager;
+
+    @Override
+    public void onCandleClosed(CandleClosed event) {
+        Cache cache = cacheManager.getCache("aiSignals");
+        if (cache == null) {
+            return;
+        }
+        // Same key as AiSignalServiceImpl.generateSignal
+        for (TradingMode mode : TradingMode.values()) {
+            cache.evict(event.symbol().getCode() + "_" + event.timeframe() + "_" + mode);
+        }
+    }
+}
@@ -29,8 +29,7 @@ public class GroqAiClient implements AiClient {
 
     private final GroqProperties groqProperties;
     private final ObjectMapper objectMapper;
-
-    private WebClient groqWebClient;
+    private final WebClient groqWebClient;
 
     private static final String SYSTEM_PROMPT = """
         You are Bob Volman, world-renowned price action scalper and author of "Forex Price Action Scalping".
@@ -84,17 +83,6 @@ public class GroqAiClient implements AiClient {
         - You NEVER force a trade - if it's not textbook, it's NEUTRAL
         """;
 
-    private WebClient getGroqWebClient() {
-        if (groqWebClient == null) {
-            groqWebClient = WebClient.builder()
-                    .baseUrl(groqProperties.getBaseUrl())
-                    .defaultHeader("Authorization", "Bearer " + groqProperties.getApiKey())
-                    .defaultHeader("Content-Type", "application/json")
-                    .build();
-        }
-        return groqWebClient;
-    }
-
     @Override
     public TradeSuggestion suggestTrade(TradeAnalysisContext context, String mode) {
         try {
@@ -142,10 +130,7 @@ public class GroqAiClient implements AiClient {
                 ? ema25.size() - candleLimit 
                 : 0;
 
-        return TradeAnalysisContext.builder()
-                .symbolCode(context.getSymbolCode())
-                .timeframe(context.getTimeframe())
-                .higherTimeframeTrend(context.getHigherTimeframeTrend())
+        return context.toBuilder()
                 .candles(new ArrayList<>(candles.subList(candleStartIndex, candleSize)))
                 .ema21(ema21 != null && ema21.size() > candleLimit
                         ? new ArrayList<>(ema21.subList(ema21StartIndex, ema21.size()))
@@ -342,7 +327,7 @@ public class GroqAiClient implements AiClient {
             try {
                 log.debug("Groq API call attempt {}/{}", attempt, maxRetries);
                 
-                Mono<Map> responseMono = getGroqWebClient().post()
+                Mono<Map> responseMono = groqWebClient.post()
                         .uri("/chat/completions")
                         .bodyValue(requestBody)
                         .retrieve()
@@ -99,10 +99,7 @@ public class OpenAiClient implements AiClient {
                 ? ema25.size() - candleLimit 
                 : 0;
 
-        return TradeAnalysisContext.builder()
-                .symbolCode(context.getSymbolCode())
-                .timeframe(context.getTimeframe())
-                .higherTimeframeTrend(context.getHigherTimeframeTrend())
+        return context.toBuilder()
                 .candles(new ArrayList<>(candles.subList(candleStartIndex, candleSize)))
                 .ema21(ema21 != null && ema21.size() > candleLimit 
                         ? new ArrayList<>(ema21.subList(ema21StartIndex, ema21.size())) 
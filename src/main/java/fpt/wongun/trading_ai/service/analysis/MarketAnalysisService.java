@@ -1,16 +1,20 @@
 package fpt.wongun.trading_ai.service.analysis;
 
-import fpt.wongun.trading_ai.domain.entity.Candle;
 import fpt.wongun.trading_ai.domain.entity.Symbol;
-import fpt.wongun.trading_ai.repository.CandleRepository;
+import fpt.wongun.trading_ai.service.market.DepthSummary;
+import fpt.wongun.trading_ai.service.market.FormingBarStore;
+import fpt.wongun.trading_ai.service.market.KlineBatch;
+import fpt.wongun.trading_ai.service.market.OrderBookRegistry;
+import fpt.wongun.trading_ai.service.market.TieredCandleReader;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
-import java.util.Comparator;
 import java.util.List;
 import java.util.Objects;
 
@@ -18,13 +22,49 @@ import java.util.Objects;
 @RequiredArgsConstructor
 public class MarketAnalysisService {
 
-    private final CandleRepository candleRepository;
+    private static final int CONTEXT_BARS = 200;
 
+    private final TieredCandleReader tieredCandleReader;
+    private final FormingBarStore formingBarStore;
+    private final OrderBookRegistry orderBookRegistry;
+    private final SessionVwapEngine sessionVwapEngine;
+
+    // Closed history from the archive and candles table with the series' forming bar appended
     public TradeAnalysisContext buildContext(Symbol symbol, String timeframe) {
-        List<Candle> candles = candleRepository
-                .findTop200BySymbolAndTimeframeOrderByTimestampDesc(symbol, timeframe);
+        KlineBatch candles = tieredCandleReader.latest(symbol, timeframe, CONTEXT_BARS);
+
+        List<TradeAnalysisContext.CandlePoint> candlePoints = new ArrayList<>(candles.size() + 1);
+        for (int row = 0; row < candles.size(); row++) {
+            candlePoints.add(TradeAnalysisContext.CandlePoint.builder()
+                    .timestamp(Instant.ofEpochMilli(candles.openTime(row)))
+                    .open(candles.decimal(KlineBatch.OPEN, row))
+                    .high(candles.decimal(KlineBatch.HIGH, row))
+                    .low(candles.decimal(KlineBatch.LOW, row))
+                    .close(candles.decimal(KlineBatch.CLOSE, row))
+                    .volume(candles.decimal(KlineBatch.VOLUME, row))
+                    .build());
+        }
 
-        if (candles.isEmpty()) {
+        formingBarStore.get(symbol.getId(), timeframe)
+                .filter(bar -> candles.isEmpty() || bar.getOpenTime() > candles.lastOpenTime())
+                .ifPresent(bar -> {
+                    candlePoints.add(TradeAnalysisContext.CandlePoint.builder()
+                            .timestamp(Instant.ofEpochMilli(bar.getOpenTime()))
+                            .open(bar.getOpen())
+                            .high(bar.getHigh())
+                            .low(bar.getLow())
+                            .close(bar.getClose())
+                            .volume(bar.getVolume())
+                            .build());
+                    if (candlePoints.size() > CONTEXT_BARS) {
+                        candlePoints.removeFirst();
+                    }
+                });
+
+        DepthSummary orderBook = orderBookRegistry.summary(symbol.getCode()).orElse(null);
+        SessionVwap sessionVwap = sessionVwapEngine.snapshot(symbol.getCode()).orElse(null);
+
+        if (candlePoints.isEmpty()) {
             return TradeAnalysisContext.builder()
                     .symbolCode(symbol.getCode())
                     .timeframe(timeframe)
@@ -32,22 +72,11 @@ public class MarketAnalysisService {
                     .candles(Collections.emptyList())
                     .ema21(Collections.emptyList())
                     .ema25(Collections.emptyList())
+                    .orderBook(orderBook)
+                    .sessionVwap(sessionVwap)
                     .build();
         }
 
-        candles.sort(Comparator.comparing(Candle::getTimestamp));
-
-        List<TradeAnalysisContext.CandlePoint> candlePoints = candles.stream()
-                .map(c -> TradeAnalysisContext.CandlePoint.builder()
-                        .timestamp(c.getTimestamp())
-                        .open(c.getOpen())
-                        .high(c.getHigh())
-                        .low(c.getLow())
-                        .close(c.getClose())
-                        .volume(c.getVolume())
-                        .build())
-                .toList();
-
         List<BigDecimal> closes = candlePoints.stream()
                 .map(TradeAnalysisContext.CandlePoint::getClose)
                 .toList();
@@ -64,6 +93,8 @@ public class MarketAnalysisService {
                 .candles(candlePoints)
                 .ema21(ema21)
                 .ema25(ema25)
+                .orderBook(orderBook)
+                .sessionVwap(sessionVwap)
                 .build();
     }
 
@@ -0,0 +1,219 @@
+package fpt.wongun.trading_ai.service.analysis;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Running VWAP and volume profile of one symbol's session. A bar costs a few additions to the VWAP sums
+ * and one addition per price bucket its range spans; the histogram is a flat {@code double[]} indexed
+ * from {@code origin}, grown as price leaves the covered range. Callers synchronize on the instance.
+ */
+class SessionProfile {
+
+    // Bucket count beyond which extreme prices are folded into the edge buckets
+    private static final int MAX_BUCKETS = 20_000;
+    private static final double VALUE_AREA = 0.70;
+    private static final int HIGH_VOLUME_NODES = 3;
+    private static final MathContext PRECISION = MathContext.DECIMAL64;
+
+    private final String symbol;
+    private final long sessionStart;
+    private final double bucketSize;
+
+    private double volume;
+    private double priceVolume;
+    private double squareVolume;
+    private int bars;
+
+    private double[] buckets = new double[64];
+    private long origin;
+
+    private long lastClosedOpenTime = Long.MIN_VALUE;
+    private Bar forming;
+
+    SessionProfile(String symbol, long sessionStart, double referencePrice, double bucketBps) {
+        this.symbol = symbol;
+        this.sessionStart = sessionStart;
+        this.bucketSize = referencePrice * bucketBps / 10_000;
+        this.origin = index(referencePrice) - buckets.length / 2;
+    }
+
+    long sessionStart() {
+        return sessionStart;
+    }
+
+    long lastClosedOpenTime() {
+        return lastClosedOpenTime;
+    }
+
+    // Bars at or before the last folded one are ignored, so seeding and live events may overlap
+    void addClosed(long openTime, double high, double low, double close, double barVolume) {
+        if (openTime <= lastClosedOpenTime) {
+            return;
+        }
+        lastClosedOpenTime = openTime;
+        if (forming != null && forming.openTime() <= openTime) {
+            forming = null;
+        }
+        if (barVolume <= 0) {
+            return;
+        }
+        double typical = (high + low + close) / 3;
+        volume += barVolume;
+        priceVolume += typical * barVolume;
+        squareVolume += typical * typical * barVolume;
+        bars++;
+        ensureRange(high, low);
+        spread(buckets, high, low, barVolume);
+    }
+
+    void setForming(long openTime, double high, double low, double close, double barVolume) {
+        if (openTime > lastClosedOpenTime) {
+            forming = new Bar(openTime, high, low, close, barVolume);
+        }
+    }
+
+    SessionVwap snapshot() {
+        double totalVolume = volume;
+        double totalPriceVolume = priceVolume;
+        double totalSquareVolume = squareVolume;
+        double[] histogram = buckets;
+        if (forming != null && forming.volume() > 0) {
+            double typical = (forming.high() + forming.low() + forming.close()) / 3;
+            totalVolume += forming.volume();
+            totalPriceVolume += typical * forming.volume();
+            totalSquareVolume += typical * typical * forming.volume();
+            ensureRange(forming.high(), forming.low());
+            histogram = buckets.clone();
+            spread(histogram, forming.high(), forming.low(), forming.volume());
+        }
+        if (totalVolume <= 0) {
+            return null;
+        }
+
+        double vwap = totalPriceVolume / totalVolume;
+        double deviation = Math.sqrt(Math.max(0, totalSquareVolume / totalVolume - vwap * vwap));
+
+        int poc = 0;
+        for (int i = 1; i < histogram.length; i++) {
+            if (histogram[i] > histogram[poc]) {
+                poc = i;
+            }
+        }
+        int[] valueArea = valueArea(histogram, poc, totalVolume);
+
+        return new SessionVwap(symbol,
+                Instant.ofEpochMilli(sessionStart),
+                decimal(vwap),
+                decimal(vwap + deviation),
+                decimal(vwap - deviation),
+                decimal(vwap + 2 * deviation),
+                decimal(vwap - 2 * deviation),
+                decimal(totalVolume),
+                decimal(bucketPrice(poc)),
+                decimal(bucketPrice(valueArea[1])),
+                decimal(bucketPrice(valueArea[0])),
+                highVolumeNodes(histogram),
+                decimal(bucketSize),
+                bars + (forming != null ? 1 : 0),
+                Instant.now());
+    }
+
+    // Expands from the point of control towards the heavier neighbour until 70% of the volume is covered
+    private static int[] valueArea(double[] histogram, int poc, double totalVolume) {
+        int low = poc;
+        int high = poc;
+        double covered = histogram[poc];
+        while (covered < totalVolume * VALUE_AREA && (low > 0 || high < histogram.length - 1)) {
+            double below = low > 0 ? histogram[low - 1] : -1;
+            double above = high < histogram.length - 1 ? histogram[high + 1] : -1;
+            if (above >= below) {
+                covered += histogram[++high];
+            } else {
+                covered += histogram[--low];
+            }
+        }
+        return new int[]{low, high};
+    }
+
+    // Heaviest local maxima of the histogram, by price
+    private List<BigDecimal> highVolumeNodes(double[] histogram) {
+        List<Integer> peaks = new ArrayList<>();
+        for (int i = 0; i < histogram.length; i++) {
+            double left = i > 0 ? histogram[i - 1] : 0;
+            double right = i < histogram.length - 1 ? histogram[i + 1] : 0;
+            if (histogram[i] > 0 && histogram[i] >= left && histogram[i] > right) {
+                peaks.add(i);
+            }
+        }
+        return peaks.stream()
+                .sorted(Comparator.comparingDouble((Integer i) -> histogram[i]).reversed())
+                .limit(HIGH_VOLUME_NODES)
+                .sorted()
+                .map(i -> decimal(bucketPrice(i)))
+                .toList();
+    }
+
+    // Bar volume is spread evenly over the buckets between its low and high
+    private void spread(double[] histogram, double high, double low, double barVolume) {
+        int from = clamp(index(low) - origin, histogram.length);
+        int to = clamp(index(high) - origin, histogram.length);
+        double share = barVolume / (to - from + 1);
+        for (int i = from; i <= to; i++) {
+            histogram[i] += share;
+        }
+    }
+
+    private void ensureRange(double high, double low) {
+        long first = Math.min(index(low), origin);
+        long last = Math.max(index(high), origin + buckets.length - 1);
+        if (first == origin && last == origin + buckets.length - 1) {
+            return;
+        }
+        int size = buckets.length;
+        while (size < last - first + 1 && size < MAX_BUCKETS) {
+            size = Math.min(size * 2, MAX_BUCKETS);
+        }
+        if (size == buckets.length) {
+            return;
+        }
+        // Extra room goes to the side that overflowed; existing buckets are always kept
+        long end = origin + buckets.length;
+        long newOrigin;
+        if (first == origin) {
+            newOrigin = origin;
+        } else if (last == end - 1) {
+            newOrigin = end - size;
+        } else {
+            newOrigin = Math.max(first, end - size);
+        }
+        double[] grown = new double[size];
+        System.arraycopy(buckets, 0, grown, (int) (origin - newOrigin), buckets.length);
+        buckets = grown;
+        origin = newOrigin;
+    }
+
+    private long index(double price) {
+        return (long) Math.floor(price / bucketSize);
+    }
+
+    private static int clamp(long offset, int length) {
+        return (int) Math.max(0, Math.min(length - 1, offset));
+    }
+
+    // Midpoint of a bucket
+    private double bucketPrice(int bucket) {
+        return (origin + bucket + 0.5) * bucketSize;
+    }
+
+    private static BigDecimal decimal(double value) {
+        return new BigDecimal(value, PRECISION).stripTrailingZeros();
+    }
+
+    private record Bar(long openTime, double high, double low, double close, double volume) {
+    }
+}
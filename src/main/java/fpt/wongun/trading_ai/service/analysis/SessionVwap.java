@@ -0,0 +1,26 @@
+package fpt.wongun.trading_ai.service.analysis;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Point-in-time VWAP and volume profile of a symbol's session. Bands are one and two volume-weighted
+ * standard deviations around the VWAP; profile prices are bucket midpoints.
+ */
+public record SessionVwap(String symbol,
+                          Instant sessionStart,
+                          BigDecimal vwap,
+                          BigDecimal upperBand1,
+                          BigDecimal lowerBand1,
+                          BigDecimal upperBand2,
+                          BigDecimal lowerBand2,
+                          BigDecimal volume,
+                          BigDecimal pointOfControl,
+                          BigDecimal valueAreaHigh,
+                          BigDecimal valueAreaLow,
+                          List<BigDecimal> highVolumeNodes,
+                          BigDecimal bucketSize,
+                          int bars,
+                          Instant updatedAt) {
+}
@@ -0,0 +1,105 @@
+package fpt.wongun.trading_ai.service.analysis;
+
+import fpt.wongun.trading_ai.config.MarketDataProperties;
+import fpt.wongun.trading_ai.domain.entity.Candle;
+import fpt.wongun.trading_ai.domain.entity.Symbol;
+import fpt.wongun.trading_ai.repository.CandleRepository;
+import fpt.wongun.trading_ai.service.market.BinanceKline;
+import fpt.wongun.trading_ai.service.market.CandleRollupService;
+import fpt.wongun.trading_ai.service.market.event.CandleClosed;
+import fpt.wongun.trading_ai.service.market.event.CandleEventListener;
+import fpt.wongun.trading_ai.service.market.event.CandleUpdated;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Maintains each symbol's session VWAP and volume profile from M1 candle events, one bar at a time.
+ * Sessions are aligned to {@code market-data.vwap-session} in UTC. The first event after startup seeds
+ * the session from stored candles once; afterwards queries only read the running sums and histogram.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SessionVwapEngine implements CandleEventListener {
+
+    private final CandleRepository candleRepository;
+    private final MarketDataProperties properties;
+
+    private final Map<String, SessionProfile> profiles = new ConcurrentHashMap<>();
+
+    @Override
+    public void onCandleClosed(CandleClosed event) {
+        if (!CandleRollupService.BASE_TIMEFRAME.equals(event.timeframe())) {
+            return;
+        }
+        BinanceKline kline = event.kline();
+        SessionProfile profile = profile(event.symbol(), kline);
+        synchronized (profile) {
+            profile.addClosed(kline.getOpenTime(), kline.getHigh().doubleValue(), kline.getLow().doubleValue(),
+                    kline.getClose().doubleValue(), kline.getVolume().doubleValue());
+        }
+    }
+
+    @Override
+    public void onCandleUpdated(CandleUpdated event) {
+        if (!CandleRollupService.BASE_TIMEFRAME.equals(event.timeframe())) {
+            return;
+        }
+        BinanceKline kline = event.kline();
+        SessionProfile profile = profile(event.symbol(), kline);
+        synchronized (profile) {
+            profile.setForming(kline.getOpenTime(), kline.getHigh().doubleValue(), kline.getLow().doubleValue(),
+                    kline.getClose().doubleValue(), kline.getVolume().doubleValue());
+        }
+    }
+
+    public Optional<SessionVwap> snapshot(String symbolCode) {
+        SessionProfile profile = profiles.get(symbolCode.toUpperCase());
+        if (profile == null) {
+            return Optional.empty();
+        }
+        synchronized (profile) {
+            return Optional.ofNullable(profile.snapshot());
+        }
+    }
+
+    // Events of one series arrive on a single lane thread, so only that thread replaces a symbol's profile
+    private SessionProfile profile(Symbol symbol, BinanceKline kline) {
+        long sessionMillis = properties.getVwapSession().toMillis();
+        long sessionStart = Math.floorDiv(kline.getOpenTime(), sessionMillis) * sessionMillis;
+        SessionProfile current = profiles.get(symbol.getCode());
+        if (current != null && current.sessionStart() >= sessionStart) {
+            return current;
+        }
+
+        SessionProfile fresh = new SessionProfile(symbol.getCode(), sessionStart,
+                kline.getOpen().doubleValue(), properties.getVwapBucketBps());
+        if (current == null) {
+            seed(fresh, symbol, sessionStart, kline.getOpenTime());
+        }
+        profiles.put(symbol.getCode(), fresh);
+        return fresh;
+    }
+
+    // Catches up on the part of the session that closed before this process started
+    private void seed(SessionProfile profile, Symbol symbol, long sessionStart, long until) {
+        if (until <= sessionStart) {
+            return;
+        }
+        List<Candle> candles = candleRepository.findBySymbolAndTimeframeAndTimestampBetweenOrderByTimestampAsc(
+                symbol, CandleRollupService.BASE_TIMEFRAME, Instant.ofEpochMilli(sessionStart),
+                Instant.ofEpochMilli(until - 1));
+        for (Candle candle : candles) {
+            profile.addClosed(candle.getTimestamp().toEpochMilli(), candle.getHigh().doubleValue(),
+                    candle.getLow().doubleValue(), candle.getClose().doubleValue(), candle.getVolume().doubleValue());
+        }
+        log.debug("Seeded session VWAP for {} from {} stored bars", symbol.getCode(), candles.size());
+    }
+}
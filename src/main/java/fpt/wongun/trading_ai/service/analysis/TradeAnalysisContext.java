@@ -1,5 +1,6 @@
 package fpt.wongun.trading_ai.service.analysis;
 
+import fpt.wongun.trading_ai.service.market.DepthSummary;
 import lombok.Builder;
 import lombok.Data;
 
@@ -8,7 +9,7 @@ import java.time.Instant;
 import java.util.List;
 
 @Data
-@Builder
+@Builder(toBuilder = true)
 public class TradeAnalysisContext {
 
     @Data
@@ -28,4 +29,8 @@ public class TradeAnalysisContext {
     private List<CandlePoint> candles;
     private List<BigDecimal> ema21;
     private List<BigDecimal> ema25;
+    // Live spread and near-touch depth; null when no synced order book exists for the symbol
+    private DepthSummary orderBook;
+    // Session VWAP bands and volume profile; null until the symbol's M1 feed has delivered a bar
+    private SessionVwap sessionVwap;
 }
@@ -0,0 +1,295 @@
+package fpt.wongun.trading_ai.service.market;
+
+import fpt.wongun.trading_ai.config.BinanceProperties;
+import fpt.wongun.trading_ai.domain.entity.BackfillJob;
+import fpt.wongun.trading_ai.domain.entity.Symbol;
+import fpt.wongun.trading_ai.domain.enums.BackfillStatus;
+import fpt.wongun.trading_ai.domain.enums.Timeframe;
+import fpt.wongun.trading_ai.dto.BackfillJobDto;
+import fpt.wongun.trading_ai.dto.BackfillRequestDto;
+import fpt.wongun.trading_ai.exception.RateLimitExceededException;
+import fpt.wongun.trading_ai.exception.SymbolNotFoundException;
+import fpt.wongun.trading_ai.repository.BackfillJobRepository;
+import fpt.wongun.trading_ai.repository.SymbolRepository;
+import fpt.wongun.trading_ai.service.market.source.MarketDataSource;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Resumable historical backfill. A job's date range is split into 1000-bar startTime/endTime
+ * chunks that are fetched in parallel (under the shared rate limiter) and upserted in JDBC
+ * batches. Progress is checkpointed as a contiguous watermark, so a restart re-fetches at most
+ * the chunks that were in flight.
+ */
+@Slf4j
+@Service
+public class BackfillService {
+
+    private static final int CHUNK_BARS = 1000;
+    private static final int MAX_CHUNK_ATTEMPTS = 5;
+    private static final long RETRY_BASE_DELAY_MS = 1000;
+
+    private final BackfillJobRepository jobRepository;
+    private final SymbolRepository symbolRepository;
+    private final MarketDataSource marketDataSource;
+    private final CandleIngestService candleIngestService;
+    private final int parallelism;
+
+    private final ExecutorService jobExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Set<Long> runningJobs = ConcurrentHashMap.newKeySet();
+    private final Set<Long> cancelRequested = ConcurrentHashMap.newKeySet();
+
+    public BackfillService(BackfillJobRepository jobRepository,
+                           SymbolRepository symbolRepository,
+                           MarketDataSource marketDataSource,
+                           CandleIngestService candleIngestService,
+                           BinanceProperties properties) {
+        this.jobRepository = jobRepository;
+        this.symbolRepository = symbolRepository;
+        this.marketDataSource = marketDataSource;
+        this.candleIngestService = candleIngestService;
+        this.parallelism = properties.getBackfillParallelism();
+    }
+
+    public BackfillJobDto start(BackfillRequestDto request) {
+        Symbol symbol = symbolRepository.findByCode(request.getSymbolCode())
+                .orElseThrow(() -> new SymbolNotFoundException(request.getSymbolCode()));
+        Timeframe timeframe = Timeframe.fromCode(request.getTimeframe());
+        Instant to = request.getTo() != null ? request.getTo() : Instant.now();
+
+        return mapToDto(enqueue(symbol, timeframe, request.getFrom(), to));
+    }
+
+    public BackfillJob enqueue(Symbol symbol, Timeframe timeframe, Instant requestedFrom, Instant to) {
+        // Align the start to a bar boundary so chunk edges match exchange open times
+        long step = timeframe.getMillis();
+        Instant from = Instant.ofEpochMilli(Math.floorDiv(requestedFrom.toEpochMilli(), step) * step);
+        if (!from.isBefore(to)) {
+            throw new IllegalArgumentException("Backfill start must be before end: from=" + from + ", to=" + to);
+        }
+
+        BackfillJob job = jobRepository.save(BackfillJob.builder()
+                .symbol(symbol)
+                .timeframe(timeframe.name())
+                .startTime(from)
+                .endTime(to)
+                .completedUntil(from)
+                .status(BackfillStatus.PENDING)
+                .totalChunks(chunkCount(from.toEpochMilli(), to.toEpochMilli(), step))
+                .build());
+
+        log.info("Created backfill job {} for {}/{} from {} to {} ({} chunks)",
+                job.getId(), symbol.getCode(), timeframe, from, to, job.getTotalChunks());
+
+        submit(job.getId());
+        return job;
+    }
+
+    public List<BackfillJobDto> listJobs() {
+        return jobRepository.findAllWithSymbol().stream()
+                .map(this::mapToDto)
+                .toList();
+    }
+
+    public BackfillJobDto getJob(Long id) {
+        return mapToDto(findJob(id));
+    }
+
+    public BackfillJobDto cancel(Long id) {
+        BackfillJob job = findJob(id);
+        if (runningJobs.contains(id)) {
+            cancelRequested.add(id);
+        } else if (job.getStatus() == BackfillStatus.PENDING || job.getStatus() == BackfillStatus.RUNNING) {
+            job.setStatus(BackfillStatus.CANCELLED);
+            job = jobRepository.save(job);
+        }
+        return mapToDto(job);
+    }
+
+    public BackfillJobDto resume(Long id) {
+        BackfillJob job = findJob(id);
+        if (job.getStatus() == BackfillStatus.COMPLETED) {
+            throw new IllegalArgumentException("Backfill job " + id + " is already completed");
+        }
+        submit(id);
+        return mapToDto(job);
+    }
+
+    // Picks up jobs that were pending or running when the application stopped
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeInterruptedJobs() {
+        List<BackfillJob> interrupted = jobRepository.findByStatusIn(
+                List.of(BackfillStatus.PENDING, BackfillStatus.RUNNING));
+        for (BackfillJob job : interrupted) {
+            log.info("Resuming backfill job {} from checkpoint {}", job.getId(), job.getCompletedUntil());
+            submit(job.getId());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        jobExecutor.shutdownNow();
+    }
+
+    private void submit(Long jobId) {
+        if (runningJobs.add(jobId)) {
+            jobExecutor.submit(() -> {
+                try {
+                    run(jobId);
+                } finally {
+                    runningJobs.remove(jobId);
+                    cancelRequested.remove(jobId);
+                }
+            });
+        }
+    }
+
+    private void run(Long jobId) {
+        BackfillJob job = jobRepository.findByIdWithSymbol(jobId).orElse(null);
+        if (job == null || job.getStatus() == BackfillStatus.COMPLETED) {
+            return;
+        }
+
+        Symbol symbol = job.getSymbol();
+        Timeframe timeframe = Timeframe.fromCode(job.getTimeframe());
+        long step = timeframe.getMillis();
+        long chunkSpan = step * CHUNK_BARS;
+        long resumeFrom = job.getCompletedUntil().toEpochMilli();
+        long end = job.getEndTime().toEpochMilli();
+        int chunks = chunkCount(resumeFrom, end, step);
+
+        job.setStatus(BackfillStatus.RUNNING);
+        job.setLastError(null);
+        job = jobRepository.save(job);
+
+        boolean[] done = new boolean[chunks];
+        int watermark = 0;
+        int submitted = 0;
+        int inFlight = 0;
+        int completedBeforeResume = job.getTotalChunks() - chunks;
+
+        try (ExecutorService chunkExecutor = Executors.newVirtualThreadPerTaskExecutor()) {
+            CompletionService<long[]> completion = new ExecutorCompletionService<>(chunkExecutor);
+
+            while (watermark < chunks) {
+                boolean cancelled = cancelRequested.contains(jobId);
+                while (!cancelled && inFlight < parallelism && submitted < chunks) {
+                    int index = submitted++;
+                    long chunkStart = resumeFrom + index * chunkSpan;
+                    long chunkEnd = Math.min(chunkStart + chunkSpan, end) - 1;
+                    completion.submit(() -> new long[]{index, fetchChunk(symbol, timeframe, chunkStart, chunkEnd)});
+                    inFlight++;
+                }
+                if (inFlight == 0) {
+                    break;
+                }
+
+                long[] result = completion.take().get();
+                inFlight--;
+                done[(int) result[0]] = true;
+                job.setCandlesWritten(job.getCandlesWritten() + result[1]);
+
+                int advanced = watermark;
+                while (watermark < chunks && done[watermark]) {
+                    watermark++;
+                }
+                if (watermark > advanced) {
+                    job.setCompletedUntil(Instant.ofEpochMilli(Math.min(resumeFrom + watermark * chunkSpan, end)));
+                    job.setCompletedChunks(completedBeforeResume + watermark);
+                    job = jobRepository.save(job);
+                }
+            }
+
+            job.setStatus(watermark == chunks ? BackfillStatus.COMPLETED : BackfillStatus.CANCELLED);
+            job = jobRepository.save(job);
+            log.info("Backfill job {} {}: {} candles written", jobId, job.getStatus(), job.getCandlesWritten());
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Backfill job {} interrupted at {}; it will resume on next start", jobId, job.getCompletedUntil());
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            log.error("Backfill job {} failed at {}: {}", jobId, job.getCompletedUntil(), cause.getMessage());
+            job.setStatus(BackfillStatus.FAILED);
+            job.setLastError(truncate(cause.getMessage()));
+            jobRepository.save(job);
+        }
+    }
+
+    // Fetches one [startTime, endTime] page and upserts it; retries transient failures with backoff
+    private long fetchChunk(Symbol symbol, Timeframe timeframe, long startTime, long endTime) throws InterruptedException {
+        KlineBatch batch = new KlineBatch(CHUNK_BARS);
+        for (int attempt = 1; ; attempt++) {
+            try {
+                marketDataSource.fetchKlines(symbol.getCode(), timeframe, startTime, endTime, CHUNK_BARS, batch);
+                return candleIngestService.applyAll(symbol, timeframe.name(), batch, marketDataSource.currentTimeMillis());
+            } catch (RateLimitExceededException e) {
+                // Shed by the limiter: back off without burning an attempt
+                attempt--;
+                TimeUnit.MILLISECONDS.sleep(RETRY_BASE_DELAY_MS);
+            } catch (RuntimeException e) {
+                if (attempt >= MAX_CHUNK_ATTEMPTS) {
+                    throw e;
+                }
+                log.warn("Backfill chunk {}/{} at {} failed (attempt {}): {}", symbol.getCode(), timeframe,
+                        Instant.ofEpochMilli(startTime), attempt, e.getMessage());
+                TimeUnit.MILLISECONDS.sleep(RETRY_BASE_DELAY_MS << attempt);
+            }
+        }
+    }
+
+    private BackfillJob findJob(Long id) {
+        return jobRepository.findByIdWithSymbol(id)
+                .orElseThrow(() -> new EntityNotFoundException("Backfill job not found with id: " + id));
+    }
+
+    private static int chunkCount(long from, long to, long step) {
+        long chunkSpan = step * CHUNK_BARS;
+        return (int) Math.max(0, (to - from + chunkSpan - 1) / chunkSpan);
+    }
+
+    private static String truncate(String message) {
+        if (message == null) {
+            return null;
+        }
+        return message.length() > 500 ? message.substring(0, 500) : message;
+    }
+
+    private BackfillJobDto mapToDto(BackfillJob job) {
+        int total = job.getTotalChunks();
+        double progress = total == 0 ? 100.0 : job.getCompletedChunks() * 100.0 / total;
+
+        return BackfillJobDto.builder()
+                .id(job.getId())
+                .symbolCode(job.getSymbol().getCode())
+                .timeframe(job.getTimeframe())
+                .startTime(job.getStartTime())
+                .endTime(job.getEndTime())
+                .completedUntil(job.getCompletedUntil())
+                .status(job.getStatus())
+                .totalChunks(total)
+                .completedChunks(job.getCompletedChunks())
+                .progressPercent(Math.round(progress * 100.0) / 100.0)
+                .candlesWritten(job.getCandlesWritten())
+                .lastError(job.getLastError())
+                .createdAt(job.getCreatedAt())
+                .updatedAt(job.getUpdatedAt())
+                .build();
+    }
+}
@@ -0,0 +1,58 @@
+package fpt.wongun.trading_ai.service.market;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Bar type encoded in a candle series' timeframe code. Time bars use the exchange notation
+ * (M1, M2, H2, D1: unit and count). Trade-built bars have their own codes:
+ * <ul>
+ *   <li>T500 closes every 500 trades;</li>
+ *   <li>V25 closes once 25 units of base volume have traded;</li>
+ *   <li>R100 closes when the high-low range would exceed 100 in price.</li>
+ * </ul>
+ * For V and R, {@code size} is scaled like {@link KlineBatch}. For time bars it is the period in milliseconds.
+ */
+public record BarSpec(String code, Kind kind, long size) {
+
+    public enum Kind {
+        TIME, TICK, VOLUME, RANGE
+    }
+
+    private static final Pattern CODE = Pattern.compile("([MHDTVR])(\\d+(?:\\.\\d+)?)");
+
+    public static BarSpec parse(String code) {
+        Matcher matcher = code == null ? null : CODE.matcher(code.toUpperCase());
+        if (matcher == null || !matcher.matches()) {
+            throw new IllegalArgumentException("Invalid bar code: " + code);
+        }
+        String unit = matcher.group(1);
+        String amount = matcher.group(2);
+
+        BarSpec spec = switch (unit) {
+            case "M" -> new BarSpec(code.toUpperCase(), Kind.TIME, Long.parseLong(amount) * 60_000L);
+            case "H" -> new BarSpec(code.toUpperCase(), Kind.TIME, Long.parseLong(amount) * 3_600_000L);
+            case "D" -> new BarSpec(code.toUpperCase(), Kind.TIME, Long.parseLong(amount) * 86_400_000L);
+            case "T" -> new BarSpec(code.toUpperCase(), Kind.TICK, Long.parseLong(amount));
+            case "V" -> new BarSpec(code.toUpperCase(), Kind.VOLUME, scaled(code, amount));
+            default -> new BarSpec(code.toUpperCase(), Kind.RANGE, scaled(code, amount));
+        };
+        if (spec.size() <= 0) {
+            throw new IllegalArgumentException("Bar size must be positive: " + code);
+        }
+        return spec;
+    }
+
+    // Period for time bars; 0 for bars that close on activity rather than the clock
+    public long stepMillis() {
+        return kind == Kind.TIME ? size : 0;
+    }
+
+    private static long scaled(String code, String amount) {
+        long value = BinanceKlineParser.parseScaled(amount.toCharArray(), 0, amount.length());
+        if (value == KlineBatch.SPILLED) {
+            throw new IllegalArgumentException("Bar size out of range: " + code);
+        }
+        return value;
+    }
+}
@@ -1,66 +1,109 @@
 package fpt.wongun.trading_ai.service.market;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import fpt.wongun.trading_ai.exception.MarketDataException;
+import fpt.wongun.trading_ai.exception.RateLimitExceededException;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
 import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
 import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Mono;
 
+import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
 
 @Service
 @Slf4j
 public class BinanceClient {
 
-    private static final String BINANCE_API_BASE = "https://api.binance.com";
     private final WebClient webClient;
+    private final BinanceRateLimiter rateLimiter;
 
-    public BinanceClient() {
-        this.webClient = WebClient.builder()
-                .baseUrl(BINANCE_API_BASE)
+    public BinanceClient(WebClient binanceWebClient, BinanceRateLimiter rateLimiter) {
+        this.rateLimiter = rateLimiter;
+        this.webClient = binanceWebClient.mutate()
+                .filter(ExchangeFilterFunction.ofResponseProcessor(response -> {
+                    rateLimiter.onResponse(response.statusCode(), response.headers().asHttpHeaders());
+                    return Mono.just(response);
+                }))
                 .build();
     }
 
     public List<BinanceKline> fetchKlines(String symbol, String interval, int limit) {
-        try {
-            log.info("Fetching {} candles for {}/{} from Binance...", limit, symbol, interval);
-
-            // Call Binance API: GET /api/v3/klines
-            Mono<List> responseMono = webClient.get()
-                    .uri(uriBuilder -> uriBuilder
-                            .path("/api/v3/klines")
-                            .queryParam("symbol", symbol)
-                            .queryParam("interval", interval)
-                            .queryParam("limit", limit)
-                            .build())
-                    .retrieve()
-                    .bodyToMono(List.class);
-
-            List<Object> response = responseMono.block();
-
-            if (response == null || response.isEmpty()) {
-                log.warn("No data returned from Binance for {}/{}", symbol, interval);
-                return new ArrayList<>();
-            }
-
-            // Parse response to BinanceKline objects
-            List<BinanceKline> klines = new ArrayList<>();
-            for (Object item : response) {
-                if (item instanceof List<?> list) {
-                    Object[] arr = list.toArray();
-                    klines.add(BinanceKline.fromArray(arr));
-                }
-            }
-
-            log.info("Successfully fetched {} candles for {}/{}", klines.size(), symbol, interval);
-            return klines;
+        return fetchKlines(symbol, interval, null, limit);
+    }
+
+    // startTime (inclusive, epoch millis) narrows the request to klines opened at or after it
+    public List<BinanceKline> fetchKlines(String symbol, String interval, Long startTime, int limit) {
+        KlineBatch batch = fetchKlines(symbol, interval, startTime, limit, new KlineBatch(limit));
 
+        List<BinanceKline> klines = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            klines.add(batch.toKline(i));
+        }
+        return klines;
+    }
+
+    // Fills the caller-owned batch, so hot loops can reuse one set of column arrays across calls
+    public KlineBatch fetchKlines(String symbol, String interval, Long startTime, int limit, KlineBatch batch) {
+        return fetchKlines(symbol, interval, startTime, null, limit, batch);
+    }
+
+    // endTime (inclusive, epoch millis) bounds the page, used to fetch fixed historical chunks
+    public KlineBatch fetchKlines(String symbol, String interval, Long startTime, Long endTime, int limit,
+                                  KlineBatch batch) {
+        try {
+            return fetchKlinesAsync(symbol, interval, startTime, endTime, limit, batch).block();
+        } catch (RateLimitExceededException e) {
+            throw e;
         } catch (Exception e) {
-            log.error("Error fetching data from Binance for {}/{}: {}", symbol, interval, e.getMessage());
             throw new RuntimeException("Failed to fetch Binance data: " + e.getMessage(), e);
         }
     }
 
+    // Non-blocking fetch: waits for request weight on a timer and parses the body on the Netty thread
+    public Mono<KlineBatch> fetchKlinesAsync(String symbol, String interval, Long startTime, Long endTime,
+                                             int limit, KlineBatch batch) {
+        log.debug("Fetching {} candles for {}/{} from Binance (startTime={}, endTime={})...",
+                limit, symbol, interval, startTime, endTime);
+
+        // Call Binance API: GET /api/v3/klines
+        return rateLimiter.acquireAsync(BinanceEndpoint.KLINES.weight(limit))
+                .then(DataBufferUtils.join(webClient.get()
+                        .uri(uriBuilder -> uriBuilder
+                                .path(BinanceEndpoint.KLINES.getPath())
+                                .queryParam("symbol", symbol)
+                                .queryParam("interval", interval)
+                                .queryParamIfPresent("startTime", Optional.ofNullable(startTime))
+                                .queryParamIfPresent("endTime", Optional.ofNullable(endTime))
+                                .queryParam("limit", limit)
+                                .build())
+                        .retrieve()
+                        .bodyToFlux(DataBuffer.class)))
+                .map(buffer -> BinanceKlineParser.parse(buffer.asInputStream(true), batch))
+                .switchIfEmpty(Mono.fromSupplier(() -> {
+                    batch.clear();
+                    return batch;
+                }))
+                .doOnNext(result -> {
+                    if (result.isEmpty()) {
+                        log.warn("No data returned from Binance for {}/{}", symbol, interval);
+                    } else {
+                        log.debug("Fetched {} candles for {}/{}", result.size(), symbol, interval);
+                    }
+                })
+                .doOnError(e -> !(e instanceof RateLimitExceededException), e ->
+                        log.error("Error fetching data from Binance for {}/{}: {}", symbol, interval, e.getMessage()));
+    }
+
     public static String mapIntervalToTimeframe(String binanceInterval) {
         return switch (binanceInterval) {
             case "1m" -> "M1";
@@ -89,12 +132,65 @@ public class BinanceClient {
         };
     }
 
-    public boolean isValidSymbol(String symbol) {
+    // Last traded price per symbol from one ticker call, far cheaper than a klines request per symbol
+    public Mono<Map<String, BigDecimal>> fetchLastPricesAsync(Collection<String> symbols) {
+        String symbolsParam = symbols.stream()
+                .map(symbol -> "\"" + symbol + "\"")
+                .collect(Collectors.joining(",", "[", "]"));
+
+        return rateLimiter.acquireAsync(BinanceEndpoint.TICKER_PRICE.weight(symbols.size()))
+                .then(webClient.get()
+                        .uri(uriBuilder -> uriBuilder
+                                .path(BinanceEndpoint.TICKER_PRICE.getPath())
+                                .queryParam("symbols", "{symbols}")
+                                .build(symbolsParam))
+                        .retrieve()
+                        .bodyToMono(JsonNode.class))
+                .map(response -> {
+                    Map<String, BigDecimal> prices = new HashMap<>();
+                    for (JsonNode ticker : response) {
+                        prices.put(ticker.path("symbol").asText(), new BigDecimal(ticker.path("price").asText()));
+                    }
+                    return prices;
+                });
+    }
+
+    // Order book snapshot used to (re)start a local book from the diff stream
+    public Mono<DepthFrame> fetchDepthSnapshotAsync(String symbol, int limit) {
+        return rateLimiter.acquireAsync(BinanceEndpoint.DEPTH.weight(limit))
+                .then(DataBufferUtils.join(webClient.get()
+                        .uri(uriBuilder -> uriBuilder
+                                .path(BinanceEndpoint.DEPTH.getPath())
+                                .queryParam("symbol", symbol)
+                                .queryParam("limit", limit)
+                                .build())
+                        .retrieve()
+                        .bodyToFlux(DataBuffer.class)))
+                .map(buffer -> {
+                    DepthFrame snapshot = new DepthFrame();
+                    if (!snapshot.parse(buffer.asInputStream(true))) {
+                        throw new MarketDataException("Depth snapshot for " + symbol + " has no lastUpdateId");
+                    }
+                    return snapshot;
+                });
+    }
+
+    // Full spot exchange info; heavy (weight 20), so callers cache it rather than calling per request
+    public List<BinanceSymbolInfo> fetchExchangeInfo() {
         try {
-            List<BinanceKline> klines = fetchKlines(symbol, "5m", 1);
-            return !klines.isEmpty();
+            rateLimiter.acquire(BinanceEndpoint.EXCHANGE_INFO.weight(0));
+
+            return DataBufferUtils.join(webClient.get()
+                            .uri(BinanceEndpoint.EXCHANGE_INFO.getPath())
+                            .retrieve()
+                            .bodyToFlux(DataBuffer.class))
+                    .map(buffer -> BinanceExchangeInfoParser.parse(buffer.asInputStream(true)))
+                    .block();
+        } catch (RateLimitExceededException e) {
+            throw e;
         } catch (Exception e) {
-            return false;
+            log.error("Error fetching exchange info from Binance: {}", e.getMessage());
+            throw new RuntimeException("Failed to fetch Binance exchange info: " + e.getMessage(), e);
         }
     }
 }
@@ -0,0 +1,33 @@
+package fpt.wongun.trading_ai.service.market;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Binance spot REST endpoints we call, with their request weight as published in the API docs.
+ */
+@Getter
+@AllArgsConstructor
+public enum BinanceEndpoint {
+
+    KLINES("/api/v3/klines"),
+
+    EXCHANGE_INFO("/api/v3/exchangeInfo"),
+
+    TICKER_PRICE("/api/v3/ticker/price"),
+
+    DEPTH("/api/v3/depth");
+
+    private final String path;
+
+    public int weight(int limit) {
+        return switch (this) {
+            case KLINES -> 2;
+            case EXCHANGE_INFO -> 20;
+            // limit is the number of symbols requested; 0 means no symbol list, which prices every symbol
+            case TICKER_PRICE -> limit <= 0 ? 80 : limit <= 20 ? 4 : limit <= 100 ? 40 : 80;
+            // limit is the number of levels per side
+            case DEPTH -> limit <= 100 ? 5 : limit <= 500 ? 25 : limit <= 1000 ? 50 : 250;
+        };
+    }
+}
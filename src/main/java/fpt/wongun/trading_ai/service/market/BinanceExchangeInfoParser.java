@@ -0,0 +1,104 @@
+package fpt.wongun.trading_ai.service.market;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import fpt.wongun.trading_ai.exception.MarketDataException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Token-level parser for the /api/v3/exchangeInfo document (several MB for the full spot market).
+ * Only the fields of {@link BinanceSymbolInfo} are materialized; order types, permissions and the
+ * remaining filters are skipped without building a tree.
+ */
+public class BinanceExchangeInfoParser {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private BinanceExchangeInfoParser() {
+    }
+
+    public static List<BinanceSymbolInfo> parse(InputStream in) {
+        List<BinanceSymbolInfo> symbols = new ArrayList<>();
+        try (JsonParser parser = JSON_FACTORY.createParser(in)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new MarketDataException("Unexpected exchangeInfo payload: expected a JSON object");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                parser.nextToken();
+                if ("symbols".equals(field) && parser.currentToken() == JsonToken.START_ARRAY) {
+                    while (parser.nextToken() == JsonToken.START_OBJECT) {
+                        symbols.add(readSymbol(parser));
+                    }
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            return symbols;
+        } catch (IOException e) {
+            throw new MarketDataException("Failed to parse Binance exchangeInfo: " + e.getMessage(), e);
+        }
+    }
+
+    private static BinanceSymbolInfo readSymbol(JsonParser parser) throws IOException {
+        String symbol = null;
+        String status = null;
+        String baseAsset = null;
+        String quoteAsset = null;
+        BigDecimal[] filters = new BigDecimal[3];
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            switch (field) {
+                case "symbol" -> symbol = parser.getText();
+                case "status" -> status = parser.getText();
+                case "baseAsset" -> baseAsset = parser.getText();
+                case "quoteAsset" -> quoteAsset = parser.getText();
+                case "filters" -> readFilters(parser, filters);
+                default -> parser.skipChildren();
+            }
+        }
+        return new BinanceSymbolInfo(symbol, status, baseAsset, quoteAsset, filters[0], filters[1], filters[2]);
+    }
+
+    // filters: [0] tickSize, [1] stepSize, [2] minNotional
+    private static void readFilters(JsonParser parser, BigDecimal[] filters) throws IOException {
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return;
+        }
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            String type = null;
+            BigDecimal tickSize = null;
+            BigDecimal stepSize = null;
+            BigDecimal minNotional = null;
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                parser.nextToken();
+                switch (field) {
+                    case "filterType" -> type = parser.getText();
+                    case "tickSize" -> tickSize = new BigDecimal(parser.getText());
+                    case "stepSize" -> stepSize = new BigDecimal(parser.getText());
+                    case "minNotional" -> minNotional = new BigDecimal(parser.getText());
+                    default -> parser.skipChildren();
+                }
+            }
+
+            if ("PRICE_FILTER".equals(type)) {
+                filters[0] = tickSize;
+            } else if ("LOT_SIZE".equals(type)) {
+                filters[1] = stepSize;
+            } else if ("NOTIONAL".equals(type) || ("MIN_NOTIONAL".equals(type) && filters[2] == null)) {
+                filters[2] = minNotional;
+            }
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package fpt.wongun.trading_ai.service.market;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BinanceKlineEvent {
+    private String symbol;        // s - e.g. BTCUSDT
+    private String interval;      // k.i - e.g. 1m
+    private boolean closed;       // k.x - true once the bar is final
+    private BinanceKline kline;
+
+    // Parses a raw kline stream payload; returns null for anything that is not a kline event
+    // (subscription acks, errors, combined-stream wrappers without data).
+    public static BinanceKlineEvent fromJson(JsonNode root) {
+        JsonNode node = root.has("data") ? root.get("data") : root;
+        if (!"kline".equals(node.path("e").asText())) {
+            return null;
+        }
+
+        JsonNode k = node.get("k");
+        BinanceKline kline = new BinanceKline();
+        kline.setOpenTime(k.get("t").asLong());
+        kline.setCloseTime(k.get("T").asLong());
+        kline.setOpen(new BigDecimal(k.get("o").asText()));
+        kline.setHigh(new BigDecimal(k.get("h").asText()));
+        kline.setLow(new BigDecimal(k.get("l").asText()));
+        kline.setClose(new BigDecimal(k.get("c").asText()));
+        kline.setVolume(new BigDecimal(k.get("v").asText()));
+        kline.setQuoteVolume(new BigDecimal(k.get("q").asText()));
+        kline.setTrades(k.get("n").asInt());
+
+        return new BinanceKlineEvent(
+                node.get("s").asText(),
+                k.get("i").asText(),
+                k.get("x").asBoolean(),
+                kline);
+    }
+}
@@ -0,0 +1,130 @@
+package fpt.wongun.trading_ai.service.market;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import fpt.wongun.trading_ai.exception.MarketDataException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+
+/**
+ * Token-level parser for the /api/v3/klines response. Reads the byte stream straight into a
+ * {@link KlineBatch}: numbers are decoded from Jackson's character buffer without creating
+ * Strings, and columns we never store (quote volume, trade count, taker volumes, ignore) are skipped.
+ */
+public class BinanceKlineParser {
+
+    private static final int OPEN_TIME = 0;
+    private static final int CLOSE_TIME = 6;
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private BinanceKlineParser() {
+    }
+
+    public static KlineBatch parse(InputStream in, KlineBatch batch) {
+        batch.clear();
+        try (JsonParser parser = JSON_FACTORY.createParser(in)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new MarketDataException("Unexpected klines payload: expected a JSON array");
+            }
+            while (parser.nextToken() == JsonToken.START_ARRAY) {
+                readKline(parser, batch);
+            }
+            return batch;
+        } catch (IOException e) {
+            throw new MarketDataException("Failed to parse Binance klines: " + e.getMessage(), e);
+        }
+    }
+
+    private static void readKline(JsonParser parser, KlineBatch batch) throws IOException {
+        int row = batch.addRow();
+        int field = 0;
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+            switch (field) {
+                case OPEN_TIME -> batch.setOpenTime(row, parser.getLongValue());
+                case 1, 2, 3, 4, 5 -> readDecimal(parser, batch, field - 1, row);
+                case CLOSE_TIME -> batch.setCloseTime(row, parser.getLongValue());
+                default -> {
+                    if (token.isStructStart()) {
+                        parser.skipChildren();
+                    }
+                }
+            }
+            field++;
+        }
+    }
+
+    // Binance sends prices and volumes as JSON strings, e.g. "93576.01000000"
+    private static void readDecimal(JsonParser parser, KlineBatch batch, int column, int row) throws IOException {
+        char[] chars = parser.getTextCharacters();
+        int offset = parser.getTextOffset();
+        int length = parser.getTextLength();
+
+        long scaled = parseScaled(chars, offset, length);
+        if (scaled == KlineBatch.SPILLED) {
+            batch.setDecimal(column, row, new BigDecimal(chars, offset, length));
+        } else {
+            batch.setScaled(column, row, scaled);
+        }
+    }
+
+    /**
+     * Parses a plain decimal into a long scaled by {@link KlineBatch#SCALE}. Returns
+     * {@link KlineBatch#SPILLED} when the value overflows, carries more significant fraction
+     * digits than the scale, or uses a notation we do not handle (exponents).
+     */
+    static long parseScaled(char[] chars, int offset, int length) {
+        int end = offset + length;
+        int i = offset;
+        boolean negative = false;
+        if (i < end && (chars[i] == '-' || chars[i] == '+')) {
+            negative = chars[i] == '-';
+            i++;
+        }
+        if (i == end) {
+            return KlineBatch.SPILLED;
+        }
+
+        long value = 0;
+        int fractionDigits = -1;
+        for (; i < end; i++) {
+            char ch = chars[i];
+            if (ch == '.') {
+                if (fractionDigits >= 0) {
+                    return KlineBatch.SPILLED;
+                }
+                fractionDigits = 0;
+                continue;
+            }
+            int digit = ch - '0';
+            if (digit < 0 || digit > 9) {
+                return KlineBatch.SPILLED;
+            }
+            if (fractionDigits == KlineBatch.SCALE) {
+                // Trailing zeros beyond the scale are harmless, anything else would lose precision
+                if (digit != 0) {
+                    return KlineBatch.SPILLED;
+                }
+                continue;
+            }
+            if (value > (Long.MAX_VALUE - digit) / 10) {
+                return KlineBatch.SPILLED;
+            }
+            value = value * 10 + digit;
+            if (fractionDigits >= 0) {
+                fractionDigits++;
+            }
+        }
+
+        for (int pad = Math.max(fractionDigits, 0); pad < KlineBatch.SCALE; pad++) {
+            if (value > Long.MAX_VALUE / 10) {
+                return KlineBatch.SPILLED;
+            }
+            value *= 10;
+        }
+        return negative ? -value : value;
+    }
+}
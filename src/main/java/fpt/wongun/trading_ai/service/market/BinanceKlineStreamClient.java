@@ -0,0 +1,129 @@
+package fpt.wongun.trading_ai.service.market;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import fpt.wongun.trading_ai.config.BinanceProperties;
+import fpt.wongun.trading_ai.exception.MarketDataException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.socket.WebSocketMessage;
+import org.springframework.web.reactive.socket.client.ReactorNettyWebSocketClient;
+import org.springframework.web.reactive.socket.client.WebSocketClient;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Component
+@Slf4j
+public class BinanceKlineStreamClient {
+
+    // Binance accepts at most 5 incoming messages per second and 1024 streams per connection
+    static final int MAX_STREAMS_PER_CONNECTION = 1024;
+    private static final int MAX_STREAMS_PER_SUBSCRIBE = 100;
+    private static final Duration SUBSCRIBE_SPACING = Duration.ofMillis(250);
+
+    private final BinanceProperties properties;
+    private final ObjectMapper objectMapper;
+    private final WebSocketClient webSocketClient;
+    private final AtomicLong requestIds = new AtomicLong();
+
+    public BinanceKlineStreamClient(BinanceProperties properties, ObjectMapper objectMapper) {
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+        this.webSocketClient = new ReactorNettyWebSocketClient();
+    }
+
+    public static String streamName(String symbol, String interval) {
+        return symbol.toLowerCase() + "@kline_" + interval;
+    }
+
+    // Diff depth stream, one event per 100 ms with every level changed since the last one
+    public static String depthStreamName(String symbol) {
+        return symbol.toLowerCase() + "@depth@100ms";
+    }
+
+    /**
+     * Opens a kline stream connection and keeps it open: every (re)connect re-sends the
+     * SUBSCRIBE requests and then invokes {@code onConnected} so callers can backfill
+     * whatever was missed while disconnected. Reconnects use exponential backoff. More
+     * streams than one connection may carry are spread over several connections, each
+     * reconnecting (and calling {@code onConnected}) on its own.
+     */
+    public Flux<BinanceKlineEvent> stream(Collection<String> streams, Runnable onConnected) {
+        return frames(streams, onConnected).mapNotNull(this::parse);
+    }
+
+    // Same connection handling for any stream type; emits the raw text frames for the caller to parse
+    public Flux<String> frames(Collection<String> streams, Runnable onConnected) {
+        URI uri = URI.create(properties.getStreamUrl());
+        return Flux.fromIterable(partition(List.copyOf(streams), MAX_STREAMS_PER_CONNECTION))
+                .flatMap(connectionStreams -> connection(uri, connectionStreams, onConnected));
+    }
+
+    private Flux<String> connection(URI uri, List<String> streams, Runnable onConnected) {
+        List<List<String>> batches = partition(streams, MAX_STREAMS_PER_SUBSCRIBE);
+
+        return Flux.<String>create(sink -> {
+                    Disposable connection = webSocketClient.execute(uri, session -> {
+                        log.info("Stream connected to {}, subscribing to {} streams", uri, streams.size());
+
+                        Mono<Void> subscribe = session.send(Flux.fromIterable(batches)
+                                .delayElements(SUBSCRIBE_SPACING)
+                                .map(batch -> session.textMessage(subscribeMessage(batch))));
+
+                        Flux<String> events = session.receive()
+                                .map(WebSocketMessage::getPayloadAsText);
+
+                        // Receive concurrently with subscribing so no early frame is missed
+                        return Mono.when(
+                                subscribe.then(Mono.fromRunnable(onConnected)),
+                                events.doOnNext(sink::next));
+                    }).subscribe(
+                            null,
+                            sink::error,
+                            () -> sink.error(new MarketDataException("Stream closed by server")));
+                    sink.onDispose(connection);
+                })
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, properties.getReconnectMinBackoff())
+                        .maxBackoff(properties.getReconnectMaxBackoff())
+                        .transientErrors(true)
+                        .doBeforeRetry(signal -> log.warn("Stream disconnected ({}), reconnecting...",
+                                signal.failure().getMessage())));
+    }
+
+    private BinanceKlineEvent parse(String payload) {
+        try {
+            return BinanceKlineEvent.fromJson(objectMapper.readTree(payload));
+        } catch (Exception e) {
+            log.warn("Skipping unparseable kline frame: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private String subscribeMessage(List<String> params) {
+        try {
+            return objectMapper.writeValueAsString(Map.of(
+                    "method", "SUBSCRIBE",
+                    "params", params,
+                    "id", requestIds.incrementAndGet()));
+        } catch (Exception e) {
+            throw new MarketDataException("Failed to build subscribe request", e);
+        }
+    }
+
+    private static List<List<String>> partition(List<String> streams, int size) {
+        List<List<String>> batches = new ArrayList<>();
+        for (int i = 0; i < streams.size(); i += size) {
+            batches.add(streams.subList(i, Math.min(i + size, streams.size())));
+        }
+        return batches;
+    }
+}
@@ -0,0 +1,163 @@
+package fpt.wongun.trading_ai.service.market;
+
+import fpt.wongun.trading_ai.config.BinanceProperties;
+import fpt.wongun.trading_ai.exception.RateLimitExceededException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token bucket over the exchange's per-minute request weight budget, shared by every Binance call.
+ * Callers reserve weight up front and wait for it when the bucket is in debt; if the wait would
+ * exceed {@code binance.rate-limit-max-wait} the work is shed with {@link RateLimitExceededException}
+ * instead of being sent and throttled. The bucket is corrected from the X-MBX-USED-WEIGHT-1M header
+ * and pauses completely after a 429/418 for the Retry-After period.
+ */
+@Slf4j
+@Component
+public class BinanceRateLimiter {
+
+    static final String USED_WEIGHT_HEADER = "X-MBX-USED-WEIGHT-1M";
+
+    private final int weightLimit;
+    private final double tokensPerNano;
+    private final long maxWaitNanos;
+
+    private double tokens;
+    private long lastRefillNanos;
+    private long pausedUntilNanos;
+    private volatile int lastUsedWeight;
+
+    private final Counter shedCounter;
+    private final Counter throttledCounter;
+    private final Timer waitTimer;
+
+    public BinanceRateLimiter(BinanceProperties properties, MeterRegistry meterRegistry) {
+        this.weightLimit = properties.getWeightLimitPerMinute();
+        this.tokensPerNano = weightLimit / (double) TimeUnit.MINUTES.toNanos(1);
+        this.maxWaitNanos = properties.getRateLimitMaxWait().toNanos();
+        this.tokens = weightLimit;
+        this.lastRefillNanos = System.nanoTime();
+
+        Gauge.builder("binance.ratelimit.available", this, BinanceRateLimiter::availableWeight)
+                .description("Request weight currently available in the local bucket")
+                .register(meterRegistry);
+        Gauge.builder("binance.ratelimit.used", this, limiter -> limiter.lastUsedWeight)
+                .description("Used weight for the current minute as reported by the exchange")
+                .register(meterRegistry);
+        Gauge.builder("binance.ratelimit.limit", this, limiter -> limiter.weightLimit)
+                .register(meterRegistry);
+        this.shedCounter = Counter.builder("binance.ratelimit.shed")
+                .description("Requests dropped because the weight budget could not be met in time")
+                .register(meterRegistry);
+        this.throttledCounter = Counter.builder("binance.ratelimit.throttled")
+                .description("429/418 responses received from the exchange")
+                .register(meterRegistry);
+        this.waitTimer = Timer.builder("binance.ratelimit.wait")
+                .description("Time spent queued for request weight")
+                .register(meterRegistry);
+    }
+
+    // Blocks until the weight is available; sheds the request if that would take too long
+    public void acquire(int weight) {
+        long waitNanos = reserve(weight);
+        waitTimer.record(waitNanos, TimeUnit.NANOSECONDS);
+        if (waitNanos <= 0) {
+            return;
+        }
+        try {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RateLimitExceededException("Interrupted while waiting for Binance request weight");
+        }
+    }
+
+    // Non-blocking variant: the returned Mono completes once the weight is available, without parking a thread
+    public Mono<Void> acquireAsync(int weight) {
+        return Mono.defer(() -> {
+            long waitNanos = reserve(weight);
+            waitTimer.record(waitNanos, TimeUnit.NANOSECONDS);
+            return waitNanos <= 0 ? Mono.<Void>empty() : Mono.delay(Duration.ofNanos(waitNanos)).then();
+        });
+    }
+
+    /**
+     * Takes the weight from the bucket and returns how long the caller must wait before sending.
+     * The bucket may go into debt, which makes later callers queue behind this one.
+     */
+    public synchronized long reserve(int weight) {
+        long now = System.nanoTime();
+        refill(now);
+
+        long waitNanos = Math.max(0, pausedUntilNanos - now);
+        double remaining = tokens - weight;
+        if (remaining < 0) {
+            waitNanos = Math.max(waitNanos, (long) Math.ceil(-remaining / tokensPerNano));
+        }
+
+        if (waitNanos > maxWaitNanos) {
+            shedCounter.increment();
+            throw new RateLimitExceededException(String.format(
+                    "Binance weight budget exhausted: %d weight would wait %d ms", weight,
+                    TimeUnit.NANOSECONDS.toMillis(waitNanos)));
+        }
+
+        tokens = remaining;
+        return waitNanos;
+    }
+
+    // Self-corrects the bucket from the exchange's view of used weight and handles throttling
+    public synchronized void onResponse(HttpStatusCode status, HttpHeaders headers) {
+        String usedWeight = headers.getFirst(USED_WEIGHT_HEADER);
+        if (usedWeight != null) {
+            try {
+                int used = Integer.parseInt(usedWeight);
+                lastUsedWeight = used;
+                refill(System.nanoTime());
+                tokens = Math.min(tokens, weightLimit - used);
+            } catch (NumberFormatException e) {
+                log.debug("Ignoring malformed {} header: {}", USED_WEIGHT_HEADER, usedWeight);
+            }
+        }
+
+        if (status.value() == 429 || status.value() == 418) {
+            throttledCounter.increment();
+            Duration retryAfter = parseRetryAfter(headers.getFirst(HttpHeaders.RETRY_AFTER));
+            pausedUntilNanos = Math.max(pausedUntilNanos, System.nanoTime() + retryAfter.toNanos());
+            tokens = Math.min(tokens, 0);
+            log.warn("Binance responded {}; pausing market data requests for {}s", status.value(),
+                    retryAfter.toSeconds());
+        }
+    }
+
+    public synchronized double availableWeight() {
+        refill(System.nanoTime());
+        return tokens;
+    }
+
+    private void refill(long now) {
+        tokens = Math.min(weightLimit, tokens + (now - lastRefillNanos) * tokensPerNano);
+        lastRefillNanos = now;
+    }
+
+    private static Duration parseRetryAfter(String value) {
+        if (value != null) {
+            try {
+                return Duration.ofSeconds(Long.parseLong(value.trim()));
+            } catch (NumberFormatException ignored) {
+                // fall through to the default
+            }
+        }
+        return Duration.ofMinutes(1);
+    }
+}
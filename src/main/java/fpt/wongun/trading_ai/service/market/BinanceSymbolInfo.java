@@ -0,0 +1,19 @@
+package fpt.wongun.trading_ai.service.market;
+
+import java.math.BigDecimal;
+
+// One entry of /api/v3/exchangeInfo, reduced to what we validate and size orders with
+public record BinanceSymbolInfo(
+        String symbol,
+        String status,
+        String baseAsset,
+        String quoteAsset,
+        BigDecimal tickSize,     // PRICE_FILTER
+        BigDecimal stepSize,     // LOT_SIZE
+        BigDecimal minNotional   // NOTIONAL (MIN_NOTIONAL on older listings)
+) {
+
+    public boolean isTrading() {
+        return "TRADING".equals(status);
+    }
+}
@@ -1,103 +1,357 @@
 package fpt.wongun.trading_ai.service.market;
 
-import fpt.wongun.trading_ai.domain.entity.Candle;
+import fpt.wongun.trading_ai.config.BinanceProperties;
 import fpt.wongun.trading_ai.domain.entity.Symbol;
-import fpt.wongun.trading_ai.domain.enums.SymbolType;
+import fpt.wongun.trading_ai.domain.enums.Timeframe;
+import fpt.wongun.trading_ai.exception.RateLimitExceededException;
 import fpt.wongun.trading_ai.repository.CandleRepository;
-import fpt.wongun.trading_ai.repository.SymbolRepository;
-import lombok.RequiredArgsConstructor;
+import fpt.wongun.trading_ai.service.market.event.CandleEventBus;
+import fpt.wongun.trading_ai.service.market.source.MarketDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
 
-import java.time.Instant;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
 
+/**
+ * Polls the configured market data source; used whenever the Binance kline stream ingester is not running.
+ * Each series is fetched in full just after its bar boundary, when the closed bar is final. Between
+ * boundaries one last-price call for all symbols refreshes the forming bars held in the {@link FormingBarStore}.
+ * Cycles run on a dedicated thread, never overlap, and skip (and count) the slots an overrunning cycle missed.
+ */
 @Slf4j
 @Service
-@RequiredArgsConstructor
+@ConditionalOnExpression("!${binance.stream-enabled:true} or '${market-data.source:binance}' != 'binance'")
 public class BinanceSyncScheduler {
 
-    private final BinanceClient binanceClient;
-    private final SymbolRepository symbolRepository;
+    // 200 bars are required for Bob Volman analysis with trend context
+    private static final int INITIAL_LIMIT = 200;
+    private static final int INCREMENTAL_LIMIT = 1000;
+
+    private final MarketDataSource marketDataSource;
     private final CandleRepository candleRepository;
+    private final CandleIngestService candleIngestService;
+    private final FormingBarStore formingBarStore;
+    private final SyncSubscriptionService subscriptionService;
+    private final CandleRollupService rollupService;
+    private final CandleEventBus eventBus;
+    private final Scheduler persistScheduler;
+    private final int concurrency;
+    private final long intervalMillis;
+    private final long jitterMillis;
+    private final Duration seriesTimeout;
+    private final long closeFetchDelayMillis;
+    // Replay and synthetic feeds run on a virtual clock, so wall-clock bar boundaries mean nothing to them
+    private final boolean alignToClose;
+
+    private final ScheduledExecutorService syncExecutor = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("candle-sync").daemon().factory());
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    // When each series next needs a full fetch (just after its current bar closes)
+    private final Map<SeriesKey, Long> closeFetchDue = new ConcurrentHashMap<>();
+
+    // Close time of the newest closed bar stored per subscribed series, on the source's clock
+    private final Map<SeriesKey, Long> closedThrough = new ConcurrentHashMap<>();
+
+    private final Timer cycleTimer;
+    private final Counter skippedCycles;
+    private final Counter seriesTimeouts;
+
+    public BinanceSyncScheduler(MarketDataSource marketDataSource,
+                                CandleRepository candleRepository,
+                                CandleIngestService candleIngestService,
+                                FormingBarStore formingBarStore,
+                                SyncSubscriptionService subscriptionService,
+                                CandleRollupService rollupService,
+                                CandleEventBus eventBus,
+                                @Qualifier("candlePersistScheduler") Scheduler persistScheduler,
+                                BinanceProperties properties,
+                                MeterRegistry meterRegistry) {
+        this.marketDataSource = marketDataSource;
+        this.candleRepository = candleRepository;
+        this.candleIngestService = candleIngestService;
+        this.formingBarStore = formingBarStore;
+        this.subscriptionService = subscriptionService;
+        this.rollupService = rollupService;
+        this.eventBus = eventBus;
+        this.persistScheduler = persistScheduler;
+        this.concurrency = properties.getSyncParallelism();
+        this.intervalMillis = properties.getSyncInterval().toMillis();
+        this.jitterMillis = properties.getSyncJitter().toMillis();
+        this.seriesTimeout = properties.getSyncSeriesTimeout();
+        this.closeFetchDelayMillis = properties.getCloseFetchDelay().toMillis();
+        this.alignToClose = "binance".equals(marketDataSource.getName());
+
+        this.cycleTimer = Timer.builder("candle.sync.duration")
+                .description("Duration of one full candle sync cycle")
+                .register(meterRegistry);
+        this.skippedCycles = Counter.builder("candle.sync.skipped")
+                .description("Sync slots skipped because the previous cycle was still running")
+                .register(meterRegistry);
+        this.seriesTimeouts = Counter.builder("candle.sync.series.timeouts")
+                .description("Series abandoned for a cycle after exceeding their deadline")
+                .register(meterRegistry);
+        Gauge.builder("candle.sync.lag", this, BinanceSyncScheduler::lagMillis)
+                .description("Milliseconds since the oldest closed bar not yet stored closed, over all subscribed series")
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+    }
+
+    // First cycle runs right after startup and fetches every series in full
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        scheduleNext(0);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        syncExecutor.shutdownNow();
+    }
 
-    @Scheduled(fixedRate = 5000)  
-    @Transactional
     public void syncLatestCandles() {
-        log.info("Starting scheduled Binance candle sync...");
+        if (!running.compareAndSet(false, true)) {
+            skippedCycles.increment();
+            log.warn("Previous candle sync still running; skipping this cycle");
+            return;
+        }
+        try {
+            cycleTimer.record(this::runCycle);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private void scheduleNext(long delayMillis) {
+        long jitter = jitterMillis > 0 ? ThreadLocalRandom.current().nextLong(jitterMillis + 1) : 0;
+        syncExecutor.schedule(this::tick, delayMillis + jitter, TimeUnit.MILLISECONDS);
+    }
+
+    private void tick() {
+        long started = System.currentTimeMillis();
+        try {
+            syncLatestCandles();
+        } catch (Exception e) {
+            log.error("Candle sync cycle failed: {}", e.getMessage());
+        } finally {
+            long elapsed = System.currentTimeMillis() - started;
+            long missed = elapsed / intervalMillis;
+            if (missed > 0) {
+                skippedCycles.increment(missed);
+                log.warn("Candle sync took {} ms and skipped {} cycle(s)", elapsed, missed);
+            }
+            if (!syncExecutor.isShutdown()) {
+                scheduleNext(nextWakeDelay(intervalMillis - elapsed % intervalMillis));
+            }
+        }
+    }
 
-        // Find all crypto symbols (BTCUSDT, ETHUSDT, etc.)
-        List<Symbol> cryptoSymbols = symbolRepository.findAll().stream()
-                .filter(s -> s.getType() == SymbolType.CRYPTO)
-                .toList();
+    // Wakes early for the next bar boundary; failed close fetches are already due and retry on the regular tick
+    private long nextWakeDelay(long regularDelay) {
+        long now = System.currentTimeMillis();
+        long delay = regularDelay;
+        for (long due : closeFetchDue.values()) {
+            if (due > now) {
+                delay = Math.min(delay, due - now);
+            }
+        }
+        return delay;
+    }
 
-        if (cryptoSymbols.isEmpty()) {
-            log.info("No crypto symbols found. Skipping sync.");
+    private void runCycle() {
+        List<CandleRollupService.SeriesFeed> feeds =
+                rollupService.planFeeds(subscriptionService.getActiveSubscriptions());
+
+        if (feeds.isEmpty()) {
+            log.info("No sync subscriptions found. Skipping sync.");
             return;
         }
 
-        int totalSynced = 0;
-
-        for (Symbol symbol : cryptoSymbols) {
-            try {
-                // Get the most recent candle to determine which timeframes exist
-                List<Candle> existingCandles = candleRepository.findTop1BySymbolOrderByTimestampDesc(symbol);
-                
-                if (existingCandles.isEmpty()) {
-                    log.warn("No existing candles for {}. Skipping sync.", symbol.getCode());
-                    continue;
-                }
-
-                String timeframe = existingCandles.getFirst().getTimeframe();
-                String interval = BinanceClient.mapTimeframeToInterval(timeframe);
-
-                // Fetch latest 200 candles (required for Bob Volman analysis with trend context)
-                List<BinanceKline> klines = binanceClient.fetchKlines(symbol.getCode(), interval, 200);
-
-                if (klines.isEmpty()) {
-                    log.warn("No data from Binance for {}/{}. Skipping.", symbol.getCode(), timeframe);
-                    continue;
-                }
-
-                // Convert to Candle entities
-                List<Candle> newCandles = klines.stream()
-                        .map(kline -> Candle.builder()
-                                .symbol(symbol)
-                                .timeframe(timeframe)
-                                .timestamp(Instant.ofEpochMilli(kline.getOpenTime()))
-                                .open(kline.getOpen())
-                                .high(kline.getHigh())
-                                .low(kline.getLow())
-                                .close(kline.getClose())
-                                .volume(kline.getVolume())
-                                .build())
-                        .toList();
-
-                // Delete old candles first using HARD DELETE to avoid unique constraint violations
-                // (soft delete would leave rows with deleted=true, causing duplicates on re-insert)
-                int deleted = candleRepository.hardDeleteBySymbolAndTimeframe(symbol, timeframe);
-
-                // Save new candles
-                candleRepository.saveAll(newCandles);
-
-                totalSynced += newCandles.size();
-                log.info("Synced {} new candles for {}/{} (hard-deleted {} old)", 
-                        newCandles.size(), symbol.getCode(), timeframe, deleted);
-
-            } catch (Exception e) {
-                log.error("Failed to sync candles for {}: {}", symbol.getCode(), e.getMessage());
+        long now = System.currentTimeMillis();
+        long sourceNow = marketDataSource.currentTimeMillis();
+        Set<SeriesKey> active = new HashSet<>();
+        List<CandleRollupService.SeriesFeed> due = new ArrayList<>();
+        List<FormingFeed> formingBars = new ArrayList<>();
+        for (CandleRollupService.SeriesFeed feed : feeds) {
+            SeriesKey key = new SeriesKey(feed.symbol().getId(), feed.timeframe());
+            active.add(key);
+            // A series that never synced counts as current from when it was first scheduled, so its lag grows if it keeps failing
+            long step = Timeframe.fromCode(feed.timeframe()).getMillis();
+            closedThrough.putIfAbsent(key, Math.floorDiv(sourceNow, step) * step - 1);
+            if (closeFetchDue.getOrDefault(key, 0L) <= now) {
+                due.add(feed);
+            } else {
+                formingBarStore.get(feed.symbol().getId(), feed.timeframe())
+                        .ifPresent(kline -> formingBars.add(new FormingFeed(feed.symbol(), feed.timeframe(), kline)));
             }
         }
+        closeFetchDue.keySet().retainAll(active);
+        closedThrough.keySet().retainAll(active);
+
+        // Up to `concurrency` fetches are in flight at once without a thread each; database work hops to the
+        // bounded persist pool. Each series upserts in its own short transaction, so a slow symbol never holds
+        // locks for the others, and its deadline stops it from stretching the whole cycle.
+        Mono<Integer> closeFetches = Flux.fromIterable(due)
+                .flatMap(feed -> syncSeries(feed.symbol(), feed.timeframe()), concurrency)
+                .reduce(0, Integer::sum);
+
+        Integer totalSynced = Mono.zip(closeFetches, updateFormingBars(formingBars), Integer::sum).block();
+
+        if (!due.isEmpty()) {
+            log.info("Binance sync completed for {} series ({} closed-bar fetches, {} price refreshes). "
+                    + "Total candles synced: {}", feeds.size(), due.size(), formingBars.size(), totalSynced);
+        } else {
+            log.debug("Refreshed {} forming bars from last prices; {} changed", formingBars.size(), totalSynced);
+        }
+    }
+
+    // One last-price call covers every symbol; only bars whose price moved are replaced and announced
+    private Mono<Integer> updateFormingBars(List<FormingFeed> bars) {
+        if (bars.isEmpty()) {
+            return Mono.just(0);
+        }
+        Set<String> symbols = new HashSet<>();
+        bars.forEach(bar -> symbols.add(bar.symbol().getCode()));
+
+        return marketDataSource.fetchLastPrices(symbols)
+                .timeout(seriesTimeout)
+                .publishOn(persistScheduler)
+                .map(prices -> applyPrices(bars, prices))
+                .onErrorResume(e -> {
+                    log.warn("Forming bar refresh failed: {}", e.getMessage());
+                    return Mono.just(0);
+                });
+    }
+
+    private int applyPrices(List<FormingFeed> bars, Map<String, BigDecimal> prices) {
+        long now = marketDataSource.currentTimeMillis();
+        int changed = 0;
+
+        for (FormingFeed bar : bars) {
+            BigDecimal price = prices.get(bar.symbol().getCode());
+            BinanceKline kline = bar.kline();
+            // A bar past its close time waits for the close fetch, which brings the exchange's final values
+            if (price == null || now > kline.getCloseTime() || price.compareTo(kline.getClose()) == 0) {
+                continue;
+            }
+            BinanceKline updated = new BinanceKline(kline.getOpenTime(), kline.getOpen(),
+                    kline.getHigh().max(price), kline.getLow().min(price), price, kline.getVolume(),
+                    kline.getCloseTime(), kline.getQuoteVolume(), kline.getTrades());
+            formingBarStore.put(bar.symbol().getId(), bar.timeframe(), updated);
+            eventBus.publish(bar.symbol(), bar.timeframe(), updated, false);
+            changed++;
+        }
+        return changed;
+    }
+
+    private Mono<Integer> syncSeries(Symbol symbol, String timeframe) {
+        Timeframe tf = Timeframe.fromCode(timeframe);
+
+        // Incremental: only ask for klines from the last stored (closed) open time onwards; the
+        // overlap keeps the request anchored even when nothing new has closed since.
+        return Mono.fromCallable(() -> candleRepository.findTop1BySymbolAndTimeframeOrderByTimestampDesc(symbol, timeframe)
+                        .map(c -> c.getTimestamp().toEpochMilli()))
+                .subscribeOn(persistScheduler)
+                .flatMap(lastOpenTime -> lastOpenTime
+                        .map(start -> marketDataSource.fetchKlinesAsync(symbol.getCode(), tf, start, null,
+                                INCREMENTAL_LIMIT, new KlineBatch(16)))
+                        .orElseGet(() -> marketDataSource.fetchKlinesAsync(symbol.getCode(), tf, null, null,
+                                INITIAL_LIMIT, new KlineBatch(INITIAL_LIMIT))))
+                // Only the lookup and fetch are bounded: cancelling a running upsert would not stop its
+                // JDBC work, it would only let the next cycle write the same series concurrently
+                .timeout(seriesTimeout)
+                .publishOn(persistScheduler)
+                .map(klines -> persist(symbol, timeframe, klines))
+                .onErrorResume(TimeoutException.class, e -> {
+                    seriesTimeouts.increment();
+                    log.warn("Sync of {}/{} exceeded its {} ms deadline; retrying next cycle",
+                            symbol.getCode(), timeframe, seriesTimeout.toMillis());
+                    return Mono.just(0);
+                })
+                .onErrorResume(RateLimitExceededException.class, e -> {
+                    // Shed: the next cycle picks up from the same last open time
+                    log.warn("Skipped {}/{} this cycle: {}", symbol.getCode(), timeframe, e.getMessage());
+                    return Mono.just(0);
+                })
+                .onErrorResume(e -> {
+                    log.error("Failed to sync candles for {}/{}: {}", symbol.getCode(), timeframe, e.getMessage());
+                    return Mono.just(0);
+                });
+    }
+
+    private int persist(Symbol symbol, String timeframe, KlineBatch klines) {
+        SeriesKey key = new SeriesKey(symbol.getId(), timeframe);
+        long now = System.currentTimeMillis();
+        if (alignToClose) {
+            long step = Timeframe.fromCode(timeframe).getMillis();
+            closeFetchDue.put(key, Math.floorDiv(now, step) * step + step + closeFetchDelayMillis);
+        }
+
+        if (klines.isEmpty()) {
+            log.warn("No data from {} for {}/{}. Skipping.", marketDataSource.getName(), symbol.getCode(), timeframe);
+            return 0;
+        }
+
+        // Replay and synthetic bars close on the source's virtual clock
+        long closedBefore = marketDataSource.currentTimeMillis();
+        // Read before ingest, which drops rejected rows from the batch
+        int fetched = klines.size();
+        int closed = fetched;
+        while (closed > 0 && klines.closeTime(closed - 1) >= closedBefore) {
+            closed--;
+        }
+        long newestClosed = closed > 0 ? klines.closeTime(closed - 1) : Long.MIN_VALUE;
+
+        int written = candleIngestService.applyAll(symbol, timeframe, klines, closedBefore);
+        eventBus.publishAll(symbol, timeframe, klines, closedBefore);
+        if (newestClosed != Long.MIN_VALUE) {
+            closedThrough.merge(key, newestClosed, Math::max);
+        }
+
+        log.info("Synced {}/{}: fetched {} klines, upserted {} changed candles",
+                symbol.getCode(), timeframe, fetched, written);
+        return written;
+    }
+
+    // How long ago the first bar missing from the most stale series closed; 0 when every series is current
+    private double lagMillis() {
+        long now = marketDataSource.currentTimeMillis();
+        long lag = 0;
+        for (Map.Entry<SeriesKey, Long> series : closedThrough.entrySet()) {
+            long step = Timeframe.fromCode(series.getKey().timeframe()).getMillis();
+            // The bar after the newest stored one closes at closedThrough + step
+            lag = Math.max(lag, now - (series.getValue() + step));
+        }
+        return lag;
+    }
 
-        log.info("Binance sync completed. Total candles synced: {}", totalSynced);
+    private record SeriesKey(Long symbolId, String timeframe) {
     }
 
-    @Scheduled(initialDelay = 30000, fixedDelay = Long.MAX_VALUE)  // Run once 30s after startup
-    @Transactional
-    public void initialSync() {
-        log.info("Running initial Binance candle sync...");
-        syncLatestCandles();
+    private record FormingFeed(Symbol symbol, String timeframe, BinanceKline kline) {
     }
 }
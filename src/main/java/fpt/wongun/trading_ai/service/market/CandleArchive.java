@@ -0,0 +1,188 @@
+package fpt.wongun.trading_ai.service.market;
+
+import fpt.wongun.trading_ai.config.MarketDataProperties;
+import fpt.wongun.trading_ai.exception.MarketDataException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Local archive of closed candles: {@code <dir>/<SYMBOL>/<TIMEFRAME>/<yyyy-MM>.cca}, one immutable
+ * {@link CandleArchiveFile} per series and UTC month, mapped on first read and kept mapped. A write
+ * to Postgres inside an archived month leaves a {@code .stale} marker next to the file; until
+ * {@link CandleArchiver} rebuilds the month, {@link TieredCandleReader} merges it with the database.
+ */
+@Slf4j
+@Component
+public class CandleArchive {
+
+    private static final Pattern NAME = Pattern.compile("[A-Z0-9.]+");
+    private static final Pattern MONTH_FILE = Pattern.compile("(\\d{4}-\\d{2})\\.cca(\\.stale)?");
+    private static final String EXTENSION = ".cca";
+    private static final String STALE = ".stale";
+
+    private final Path root;
+    // Per series: archived months, true while stale
+    private final Map<String, NavigableMap<YearMonth, Boolean>> series = new ConcurrentHashMap<>();
+    private final Map<Path, CandleArchiveFile> mapped = new ConcurrentHashMap<>();
+
+    public CandleArchive(MarketDataProperties properties) {
+        String dir = properties.getCandleArchiveDir();
+        this.root = dir == null || dir.isBlank() ? null : Path.of(dir);
+    }
+
+    public boolean isEnabled() {
+        return root != null;
+    }
+
+    // Archived months of the series, mapped to whether the database has newer rows for them
+    public NavigableMap<YearMonth, Boolean> months(String symbolCode, String timeframe) {
+        if (root == null || !NAME.matcher(symbolCode).matches() || !NAME.matcher(timeframe).matches()) {
+            return new ConcurrentSkipListMap<>();
+        }
+        return series.computeIfAbsent(symbolCode + ":" + timeframe, key -> scan(directory(symbolCode, timeframe)));
+    }
+
+    // Appends the month's archived bars opening in [from, to) to out
+    public int read(String symbolCode, String timeframe, YearMonth month, long from, long to, KlineBatch out) {
+        Path path = file(symbolCode, timeframe, month);
+        try {
+            CandleArchiveFile file = mapped.get(path);
+            if (file == null) {
+                file = mapped.computeIfAbsent(path, p -> {
+                    try {
+                        return CandleArchiveFile.open(p);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+            return file.read(from, to, out);
+        } catch (IOException | UncheckedIOException e) {
+            throw new MarketDataException("Cannot read candle archive " + path, e);
+        }
+    }
+
+    // Replaces the month's file with the first rows of the batch and clears its stale marker
+    public void write(String symbolCode, String timeframe, YearMonth month, long stepMillis, KlineBatch batch, int rows)
+            throws IOException {
+        if (!NAME.matcher(symbolCode).matches() || !NAME.matcher(timeframe).matches()) {
+            throw new IllegalArgumentException("Cannot archive series " + symbolCode + "/" + timeframe);
+        }
+        Path path = file(symbolCode, timeframe, month);
+        Files.createDirectories(path.getParent());
+        CandleArchiveFile.write(path, stepMillis, batch, rows);
+        mapped.remove(path);
+        Files.deleteIfExists(stale(path));
+        months(symbolCode, timeframe).put(month, false);
+    }
+
+    // Called after bars opening in [from, to] were written to the database
+    public void markStale(String symbolCode, String timeframe, long from, long to) {
+        NavigableMap<YearMonth, Boolean> archived = months(symbolCode, timeframe);
+        if (archived.isEmpty()) {
+            return;
+        }
+        for (Map.Entry<YearMonth, Boolean> month : archived.subMap(month(from), true, month(to), true).entrySet()) {
+            if (month.getValue()) {
+                continue;
+            }
+            Path marker = stale(file(symbolCode, timeframe, month.getKey()));
+            try {
+                if (Files.notExists(marker)) {
+                    Files.createFile(marker);
+                }
+                archived.put(month.getKey(), true);
+                log.info("Archived month {} of {}/{} is stale", month.getKey(), symbolCode, timeframe);
+            } catch (IOException e) {
+                log.error("Could not mark {} stale: {}", marker, e.getMessage());
+            }
+        }
+    }
+
+    // Timeframes of the symbol with an archive directory
+    public List<String> timeframes(String symbolCode) {
+        if (root == null || !NAME.matcher(symbolCode).matches() || !Files.isDirectory(root.resolve(symbolCode))) {
+            return List.of();
+        }
+        try (Stream<Path> directories = Files.list(root.resolve(symbolCode))) {
+            return directories.filter(Files::isDirectory)
+                    .map(path -> path.getFileName().toString())
+                    .filter(name -> NAME.matcher(name).matches())
+                    .toList();
+        } catch (IOException e) {
+            throw new MarketDataException("Cannot list candle archive of " + symbolCode, e);
+        }
+    }
+
+    // Drops every archived month of the series (the stored series was replaced or deleted)
+    public void deleteSeries(String symbolCode, String timeframe) {
+        NavigableMap<YearMonth, Boolean> archived = months(symbolCode, timeframe);
+        for (YearMonth month : archived.keySet()) {
+            Path path = file(symbolCode, timeframe, month);
+            try {
+                Files.deleteIfExists(stale(path));
+                Files.deleteIfExists(path);
+                mapped.remove(path);
+                archived.remove(month);
+            } catch (IOException e) {
+                throw new MarketDataException("Cannot delete candle archive " + path, e);
+            }
+        }
+    }
+
+    static YearMonth month(long epochMillis) {
+        return YearMonth.from(Instant.ofEpochMilli(epochMillis).atZone(ZoneOffset.UTC));
+    }
+
+    static long start(YearMonth month) {
+        return month.atDay(1).atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
+    }
+
+    private NavigableMap<YearMonth, Boolean> scan(Path directory) {
+        NavigableMap<YearMonth, Boolean> months = new ConcurrentSkipListMap<>();
+        if (!Files.isDirectory(directory)) {
+            return months;
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            files.forEach(path -> {
+                Matcher name = MONTH_FILE.matcher(path.getFileName().toString());
+                if (name.matches()) {
+                    months.merge(YearMonth.parse(name.group(1)), name.group(2) != null, Boolean::logicalOr);
+                }
+            });
+        } catch (IOException e) {
+            log.error("Could not list candle archive {}: {}", directory, e.getMessage());
+        }
+        // A marker without its file is left over from a rebuild that failed half way
+        months.entrySet().removeIf(month -> Files.notExists(directory.resolve(month.getKey() + EXTENSION)));
+        return months;
+    }
+
+    private Path directory(String symbolCode, String timeframe) {
+        return root.resolve(symbolCode).resolve(timeframe);
+    }
+
+    private Path file(String symbolCode, String timeframe, YearMonth month) {
+        return directory(symbolCode, timeframe).resolve(month + EXTENSION);
+    }
+
+    private static Path stale(Path file) {
+        return file.resolveSibling(file.getFileName() + STALE);
+    }
+}
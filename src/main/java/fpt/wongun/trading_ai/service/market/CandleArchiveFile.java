@@ -0,0 +1,469 @@
+package fpt.wongun.trading_ai.service.market;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * One immutable, memory-mapped file of closed candles in the archive's columnar format.
+ * <pre>
+ * header   magic, version, price scale, volume scale, step millis, rows, wide flags
+ * blocks   deflated; up to BLOCK_ROWS rows each, column by column:
+ *          open times as first value, first delta, then deltas of deltas;
+ *          open, high, low, close, volume as first value then deltas, all zigzag varints of
+ *          longs unscaled at the file's price or volume scale; a group with a value no long can
+ *          hold at that scale is wide instead: each value a length-prefixed BigInteger
+ * index    per block: first and last open time, offset, compressed and raw length, rows, CRC32
+ * trailer  index offset, block count, magic
+ * </pre>
+ * Bars of a regular series are evenly spaced, so the open-time column shrinks to a run of zero
+ * bytes; prices move a few ticks per bar, so their deltas are one or two bytes before deflating.
+ * The scale of a group is the most decimals any of its values has, and may be negative (a volume
+ * of 120000000000 is 12 at scale -10), so large values stay narrow as long as they are round.
+ * Only the index is read when a file is opened; blocks are inflated when a read first touches them.
+ */
+final class CandleArchiveFile {
+
+    static final int BLOCK_ROWS = 4096;
+
+    private static final int MAGIC = 0x434E444C; // "CNDL"
+    private static final short VERSION = 2;
+    private static final int HEADER_BYTES = 4 + 2 + 1 + 1 + 8 + 4 + 1;
+    private static final int INDEX_ENTRY_BYTES = 8 + 8 + 8 + 4 + 4 + 4 + 4;
+    private static final int TRAILER_BYTES = 8 + 4 + 4;
+    private static final long[] POWERS_OF_TEN = new long[19];
+    // Scales below this are never needed: the multiplier back to KlineBatch.SCALE must fit a long
+    static final int MIN_SCALE = KlineBatch.SCALE - 18;
+    private static final int MAX_SCALE = 127;
+
+    private static final int PRICES = 0;
+    private static final int VOLUMES = 1;
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    private final Path path;
+    private final MappedByteBuffer buffer;
+    private final long stepMillis;
+    private final int rows;
+    // Per group (PRICES, VOLUMES): scale of the stored values and whether they are stored wide
+    private final int[] scale = new int[2];
+    private final boolean[] wide = new boolean[2];
+
+    private final long[] firstOpenTime;
+    private final long[] lastOpenTime;
+    private final int[] offset;
+    private final int[] length;
+    private final int[] rawLength;
+    private final int[] blockRows;
+    private final int[] crc;
+
+    private CandleArchiveFile(Path path, MappedByteBuffer buffer) throws IOException {
+        this.path = path;
+        this.buffer = buffer;
+        int size = buffer.capacity();
+        if (size < HEADER_BYTES + TRAILER_BYTES || buffer.getInt(0) != MAGIC || buffer.getInt(size - 4) != MAGIC) {
+            throw new IOException("Not a candle archive: " + path);
+        }
+        short version = buffer.getShort(4);
+        if (version < 1 || version > VERSION) {
+            throw new IOException("Unsupported candle archive version " + version + ": " + path);
+        }
+        scale[PRICES] = buffer.get(6);
+        scale[VOLUMES] = buffer.get(7);
+        stepMillis = buffer.getLong(8);
+        rows = buffer.getInt(16);
+        // Version 1 files have no wide flags; their scales are all within 0..KlineBatch.SCALE
+        int flags = version == 1 ? 0 : buffer.get(20);
+        wide[PRICES] = (flags & 1) != 0;
+        wide[VOLUMES] = (flags & 2) != 0;
+
+        int indexOffset = (int) buffer.getLong(size - TRAILER_BYTES);
+        int blocks = buffer.getInt(size - TRAILER_BYTES + 8);
+        firstOpenTime = new long[blocks];
+        lastOpenTime = new long[blocks];
+        offset = new int[blocks];
+        length = new int[blocks];
+        rawLength = new int[blocks];
+        blockRows = new int[blocks];
+        crc = new int[blocks];
+        for (int b = 0; b < blocks; b++) {
+            int entry = indexOffset + b * INDEX_ENTRY_BYTES;
+            firstOpenTime[b] = buffer.getLong(entry);
+            lastOpenTime[b] = buffer.getLong(entry + 8);
+            offset[b] = (int) buffer.getLong(entry + 16);
+            length[b] = buffer.getInt(entry + 24);
+            rawLength[b] = buffer.getInt(entry + 28);
+            blockRows[b] = buffer.getInt(entry + 32);
+            crc[b] = buffer.getInt(entry + 36);
+        }
+    }
+
+    static CandleArchiveFile open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            // The mapping stays valid after the channel is closed
+            return new CandleArchiveFile(path, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    int rows() {
+        return rows;
+    }
+
+    long firstOpenTime() {
+        return firstOpenTime.length == 0 ? Long.MAX_VALUE : firstOpenTime[0];
+    }
+
+    long lastOpenTime() {
+        return lastOpenTime.length == 0 ? Long.MIN_VALUE : lastOpenTime[lastOpenTime.length - 1];
+    }
+
+    /**
+     * Appends the bars opening in [from, to) to {@code out} and returns how many were added. Close
+     * times are rebuilt from the series step. Safe to call from several threads.
+     */
+    int read(long from, long to, KlineBatch out) throws IOException {
+        int block = firstBlockEndingAtOrAfter(from);
+        if (block >= firstOpenTime.length || firstOpenTime[block] >= to) {
+            return 0;
+        }
+        Inflater inflater = new Inflater();
+        try {
+            byte[] raw = null;
+            long[][] columns = new long[KlineBatch.VOLUME + 2][BLOCK_ROWS];
+            BigInteger[][] wideColumns = new BigInteger[KlineBatch.VOLUME + 2][];
+            for (int c = KlineBatch.OPEN; c <= KlineBatch.VOLUME; c++) {
+                if (wide[group(c)]) {
+                    wideColumns[1 + c] = new BigInteger[BLOCK_ROWS];
+                }
+            }
+            int added = 0;
+            for (; block < firstOpenTime.length && firstOpenTime[block] < to; block++) {
+                if (raw == null || raw.length < rawLength[block]) {
+                    raw = new byte[rawLength[block]];
+                }
+                inflate(block, inflater, raw);
+                decode(raw, blockRows[block], columns, wideColumns);
+                added += append(columns, wideColumns, blockRows[block], from, to, out);
+            }
+            return added;
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private int firstBlockEndingAtOrAfter(long time) {
+        int index = Arrays.binarySearch(lastOpenTime, time);
+        return index >= 0 ? index : -index - 1;
+    }
+
+    private void inflate(int block, Inflater inflater, byte[] raw) throws IOException {
+        ByteBuffer compressed = buffer.slice(offset[block], length[block]);
+        CRC32 checksum = new CRC32();
+        checksum.update(compressed.duplicate());
+        if ((int) checksum.getValue() != crc[block]) {
+            throw new IOException("Checksum mismatch in block " + block + " of " + path);
+        }
+        inflater.reset();
+        inflater.setInput(compressed);
+        try {
+            int inflated = 0;
+            while (inflated < rawLength[block] && !inflater.finished()) {
+                int count = inflater.inflate(raw, inflated, rawLength[block] - inflated);
+                if (count == 0 && inflater.needsInput()) {
+                    break;
+                }
+                inflated += count;
+            }
+            if (inflated != rawLength[block]) {
+                throw new IOException("Truncated block " + block + " of " + path);
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt block " + block + " of " + path, e);
+        }
+    }
+
+    // columns[0] is open time, columns[1 + c] is KlineBatch column c, or wideColumns[1 + c] for a wide group
+    private static void decode(byte[] raw, int count, long[][] columns, BigInteger[][] wideColumns) {
+        int[] position = {0};
+        long[] times = columns[0];
+        times[0] = readVarLong(raw, position);
+        long delta = 0;
+        for (int i = 1; i < count; i++) {
+            delta = i == 1 ? readVarLong(raw, position) : delta + readVarLong(raw, position);
+            times[i] = times[i - 1] + delta;
+        }
+        for (int c = 1; c < columns.length; c++) {
+            if (wideColumns[c] != null) {
+                for (int i = 0; i < count; i++) {
+                    int length = (int) readVarLong(raw, position);
+                    wideColumns[c][i] = new BigInteger(raw, position[0], length);
+                    position[0] += length;
+                }
+                continue;
+            }
+            long[] values = columns[c];
+            values[0] = readVarLong(raw, position);
+            for (int i = 1; i < count; i++) {
+                values[i] = values[i - 1] + readVarLong(raw, position);
+            }
+        }
+    }
+
+    private int append(long[][] columns, BigInteger[][] wideColumns, int count, long from, long to, KlineBatch out) {
+        int added = 0;
+        for (int i = 0; i < count; i++) {
+            long openTime = columns[0][i];
+            if (openTime < from || openTime >= to) {
+                continue;
+            }
+            int row = out.addRow();
+            out.setOpenTime(row, openTime);
+            out.setCloseTime(row, openTime + stepMillis - 1);
+            for (int c = KlineBatch.OPEN; c <= KlineBatch.VOLUME; c++) {
+                int valueScale = scale[group(c)];
+                if (wideColumns[1 + c] != null) {
+                    out.setDecimal(c, row, new BigDecimal(wideColumns[1 + c][i], valueScale));
+                } else {
+                    setValue(out, c, row, columns[1 + c][i], valueScale);
+                }
+            }
+            added++;
+        }
+        return added;
+    }
+
+    // Keeps the value scaled in the batch when it is representable at KlineBatch.SCALE
+    private static void setValue(KlineBatch out, int column, int row, long unscaled, int valueScale) {
+        if (valueScale <= KlineBatch.SCALE) {
+            long factor = POWERS_OF_TEN[KlineBatch.SCALE - valueScale];
+            if (unscaled != Long.MIN_VALUE && Math.abs(unscaled) <= Long.MAX_VALUE / factor) {
+                out.setScaled(column, row, unscaled * factor);
+                return;
+            }
+        } else if (valueScale - KlineBatch.SCALE < POWERS_OF_TEN.length
+                && unscaled % POWERS_OF_TEN[valueScale - KlineBatch.SCALE] == 0) {
+            out.setScaled(column, row, unscaled / POWERS_OF_TEN[valueScale - KlineBatch.SCALE]);
+            return;
+        }
+        out.setDecimal(column, row, BigDecimal.valueOf(unscaled, valueScale));
+    }
+
+    /**
+     * Writes the first {@code rows} bars of the batch, which must be in open-time order, to
+     * {@code target}. The file is built next to it and moved into place, so readers only ever see
+     * complete files.
+     */
+    static void write(Path target, long stepMillis, KlineBatch batch, int rows) throws IOException {
+        int[] scale = {MIN_SCALE, MIN_SCALE};
+        for (int row = 0; row < rows; row++) {
+            for (int c = KlineBatch.OPEN; c <= KlineBatch.VOLUME; c++) {
+                scale[group(c)] = Math.max(scale[group(c)], decimals(batch, c, row));
+            }
+        }
+        boolean[] wide = new boolean[2];
+        for (int row = 0; row < rows; row++) {
+            for (int c = KlineBatch.OPEN; c <= KlineBatch.VOLUME; c++) {
+                if (!wide[group(c)] && !fitsLong(batch, c, row, scale[group(c)])) {
+                    wide[group(c)] = true;
+                }
+            }
+        }
+
+        int blocks = (rows + BLOCK_ROWS - 1) / BLOCK_ROWS;
+        ByteBuffer index = ByteBuffer.allocate(blocks * INDEX_ENTRY_BYTES);
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            out.writeByte(scale[PRICES]);
+            out.writeByte(scale[VOLUMES]);
+            out.writeLong(stepMillis);
+            out.writeInt(rows);
+            out.writeByte((wide[PRICES] ? 1 : 0) | (wide[VOLUMES] ? 2 : 0));
+
+            Varints raw = new Varints();
+            byte[] compressed = new byte[64 * 1024];
+            long position = HEADER_BYTES;
+            for (int start = 0; start < rows; start += BLOCK_ROWS) {
+                int end = Math.min(rows, start + BLOCK_ROWS);
+                raw.clear();
+                encode(batch, start, end, scale, wide, raw);
+
+                deflater.reset();
+                deflater.setInput(raw.bytes, 0, raw.size);
+                deflater.finish();
+                CRC32 checksum = new CRC32();
+                int written = 0;
+                while (!deflater.finished()) {
+                    int count = deflater.deflate(compressed);
+                    out.write(compressed, 0, count);
+                    checksum.update(compressed, 0, count);
+                    written += count;
+                }
+
+                index.putLong(batch.openTime(start));
+                index.putLong(batch.openTime(end - 1));
+                index.putLong(position);
+                index.putInt(written);
+                index.putInt(raw.size);
+                index.putInt(end - start);
+                index.putInt((int) checksum.getValue());
+                position += written;
+            }
+
+            out.write(index.array());
+            out.writeLong(position);
+            out.writeInt(blocks);
+            out.writeInt(MAGIC);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        } finally {
+            deflater.end();
+        }
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static void encode(KlineBatch batch, int start, int end, int[] scale, boolean[] wide, Varints raw) {
+        raw.write(batch.openTime(start));
+        long previousDelta = 0;
+        for (int row = start + 1; row < end; row++) {
+            long delta = batch.openTime(row) - batch.openTime(row - 1);
+            raw.write(row == start + 1 ? delta : delta - previousDelta);
+            previousDelta = delta;
+        }
+        for (int c = KlineBatch.OPEN; c <= KlineBatch.VOLUME; c++) {
+            int valueScale = scale[group(c)];
+            if (wide[group(c)]) {
+                for (int row = start; row < end; row++) {
+                    raw.write(batch.decimal(c, row).setScale(valueScale).unscaledValue().toByteArray());
+                }
+                continue;
+            }
+            // Deltas may wrap around; decoding wraps the same way
+            long previous = 0;
+            for (int row = start; row < end; row++) {
+                long value = unscaled(batch, c, row, valueScale);
+                raw.write(value - previous);
+                previous = value;
+            }
+        }
+    }
+
+    private static int group(int column) {
+        return column == KlineBatch.VOLUME ? VOLUMES : PRICES;
+    }
+
+    // Decimals of the cell once trailing zeros are dropped, negative for round integers; zero needs none
+    private static int decimals(KlineBatch batch, int column, int row) {
+        long scaled = batch.scaled(column, row);
+        if (scaled != KlineBatch.SPILLED) {
+            if (scaled == 0) {
+                return MIN_SCALE;
+            }
+            int decimals = KlineBatch.SCALE;
+            while (decimals > MIN_SCALE && scaled % 10 == 0) {
+                scaled /= 10;
+                decimals--;
+            }
+            return decimals;
+        }
+        BigDecimal value = batch.decimal(column, row);
+        if (value.signum() == 0) {
+            return MIN_SCALE;
+        }
+        int decimals = value.stripTrailingZeros().scale();
+        if (decimals > MAX_SCALE) {
+            throw new IllegalArgumentException("Too many decimals to archive: " + value);
+        }
+        return Math.max(MIN_SCALE, decimals);
+    }
+
+    private static boolean fitsLong(KlineBatch batch, int column, int row, int valueScale) {
+        long scaled = batch.scaled(column, row);
+        if (scaled != KlineBatch.SPILLED) {
+            if (valueScale <= KlineBatch.SCALE) {
+                return true;
+            }
+            int shift = valueScale - KlineBatch.SCALE;
+            return shift < POWERS_OF_TEN.length && Math.abs(scaled) <= Long.MAX_VALUE / POWERS_OF_TEN[shift];
+        }
+        return batch.decimal(column, row).setScale(valueScale).unscaledValue().bitLength() < 64;
+    }
+
+    // The cell unscaled at valueScale; fitsLong must hold and valueScale covers all of its decimals
+    private static long unscaled(KlineBatch batch, int column, int row, int valueScale) {
+        long scaled = batch.scaled(column, row);
+        if (scaled == KlineBatch.SPILLED) {
+            return batch.decimal(column, row).setScale(valueScale).unscaledValue().longValue();
+        }
+        return valueScale <= KlineBatch.SCALE
+                ? scaled / POWERS_OF_TEN[KlineBatch.SCALE - valueScale]
+                : scaled * POWERS_OF_TEN[valueScale - KlineBatch.SCALE];
+    }
+
+    private static long readVarLong(byte[] raw, int[] position) {
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = raw[position[0]++];
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while (b < 0);
+        // zigzag
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    // Growable buffer of zigzag varints
+    private static final class Varints {
+
+        private byte[] bytes = new byte[BLOCK_ROWS * 16];
+        private int size;
+
+        void clear() {
+            size = 0;
+        }
+
+        void write(long value) {
+            if (size + 10 > bytes.length) {
+                bytes = Arrays.copyOf(bytes, bytes.length * 2);
+            }
+            long zigzag = (value << 1) ^ (value >> 63);
+            while ((zigzag & ~0x7FL) != 0) {
+                bytes[size++] = (byte) ((zigzag & 0x7F) | 0x80);
+                zigzag >>>= 7;
+            }
+            bytes[size++] = (byte) zigzag;
+        }
+
+        void write(byte[] value) {
+            write(value.length);
+            if (size + value.length > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + value.length));
+            }
+            System.arraycopy(value, 0, bytes, size, value.length);
+            size += value.length;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package fpt.wongun.trading_ai.service.market;
+
+import fpt.wongun.trading_ai.config.MarketDataProperties;
+import fpt.wongun.trading_ai.domain.entity.Candle;
+import fpt.wongun.trading_ai.domain.entity.Symbol;
+import fpt.wongun.trading_ai.repository.CandleRepository;
+import fpt.wongun.trading_ai.repository.SymbolRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.util.NavigableMap;
+import java.util.Optional;
+
+/**
+ * Copies every month of closed candles that ended at least {@code market-data.candle-archive-after}
+ * ago into the {@link CandleArchive}, and rebuilds archived months marked stale. Postgres keeps its
+ * rows until partition retention drops them, so the archive can be rebuilt from scratch at any time
+ * before then.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CandleArchiver {
+
+    private final CandleArchive candleArchive;
+    private final TieredCandleReader tieredCandleReader;
+    private final SymbolRepository symbolRepository;
+    private final CandleRepository candleRepository;
+    private final MarketDataProperties properties;
+
+    @Scheduled(cron = "0 45 0 * * *", zone = "UTC")
+    public void archiveClosedMonths() {
+        if (!candleArchive.isEnabled()) {
+            return;
+        }
+        // Months before this one ended at least archive-after ago
+        YearMonth horizon = CandleArchive.month(Instant.now().minus(properties.getCandleArchiveAfter()).toEpochMilli());
+        int written = 0;
+        for (Symbol symbol : symbolRepository.findAll()) {
+            for (String timeframe : candleRepository.findDistinctTimeframesBySymbol(symbol)) {
+                try {
+                    written += archiveSeries(symbol, timeframe, horizon);
+                } catch (Exception e) {
+                    log.error("Archiving {}/{} failed: {}", symbol.getCode(), timeframe, e.getMessage());
+                }
+            }
+        }
+        if (written > 0) {
+            log.info("Archived {} candle months", written);
+        }
+    }
+
+    private int archiveSeries(Symbol symbol, String timeframe, YearMonth horizon) throws IOException {
+        Optional<Candle> oldest = candleRepository.findTop1BySymbolAndTimeframeOrderByTimestampAsc(symbol, timeframe);
+        if (oldest.isEmpty()) {
+            return 0;
+        }
+        NavigableMap<YearMonth, Boolean> archived = candleArchive.months(symbol.getCode(), timeframe);
+        long step = Math.max(BarSpec.parse(timeframe).stepMillis(), 1);
+
+        int written = 0;
+        for (YearMonth month = CandleArchive.month(oldest.get().getTimestamp().toEpochMilli());
+             month.isBefore(horizon); month = month.plusMonths(1)) {
+            if (Boolean.FALSE.equals(archived.get(month))) {
+                continue;
+            }
+            // Reads the database for a new month, archive and database merged for a stale one
+            KlineBatch batch = tieredCandleReader.read(symbol, timeframe,
+                    Instant.ofEpochMilli(CandleArchive.start(month)),
+                    Instant.ofEpochMilli(CandleArchive.start(month.plusMonths(1))));
+            if (batch.isEmpty()) {
+                continue;
+            }
+            candleArchive.write(symbol.getCode(), timeframe, month, step, batch, batch.size());
+            written++;
+        }
+        return written;
+    }
+}
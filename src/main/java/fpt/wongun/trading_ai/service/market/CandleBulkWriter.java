@@ -0,0 +1,355 @@
+package fpt.wongun.trading_ai.service.market;
+
+import lombok.RequiredArgsConstructor;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+
+/**
+ * Writes closed candles without going through JPA. Small batches (the live feed) are sent as one JDBC
+ * batch of upserts. Large ones (backfill, imports) are streamed with {@code COPY ... (FORMAT binary)}
+ * into a per-connection temp table and merged into {@code candles} with a single INSERT ... SELECT,
+ * so conflicts are handled the same way as the upsert. Month partitions the rows land in are created
+ * first through {@link CandlePartitionManager}. Values go from the batch's scaled longs
+ * straight to Postgres' binary numeric format, without creating a BigDecimal per cell.
+ */
+@Component
+@RequiredArgsConstructor
+public class CandleBulkWriter {
+
+    // Below this many rows the temp table round trips cost more than they save
+    static final int COPY_THRESHOLD = 256;
+
+    // Closed bars are appended; the conflict branch only fires when a closed bar is corrected (e.g. the
+    // row an older version stored while it was still forming), and unchanged rows are left untouched
+    private static final String CONFLICT_SQL = """
+            ON CONFLICT (symbol_id, timeframe, timestamp) DO UPDATE SET
+                open = EXCLUDED.open,
+                high = EXCLUDED.high,
+                low = EXCLUDED.low,
+                close = EXCLUDED.close,
+                volume = EXCLUDED.volume
+            WHERE (candles.open, candles.high, candles.low, candles.close, candles.volume)
+                IS DISTINCT FROM (EXCLUDED.open, EXCLUDED.high, EXCLUDED.low, EXCLUDED.close, EXCLUDED.volume)
+            """;
+
+    private static final String UPSERT_SQL = """
+            INSERT INTO candles (symbol_id, timeframe, timestamp, open, high, low, close, volume)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?)
+            """ + CONFLICT_SQL;
+
+    private static final String CREATE_STAGE_SQL = """
+            CREATE TEMP TABLE IF NOT EXISTS candles_stage (
+                timestamp TIMESTAMP WITH TIME ZONE NOT NULL,
+                open NUMERIC NOT NULL,
+                high NUMERIC NOT NULL,
+                low NUMERIC NOT NULL,
+                close NUMERIC NOT NULL,
+                volume NUMERIC NOT NULL
+            ) ON COMMIT DELETE ROWS
+            """;
+
+    private static final String COPY_SQL =
+            "COPY candles_stage (timestamp, open, high, low, close, volume) FROM STDIN (FORMAT binary)";
+
+    private static final String MERGE_SQL = """
+            INSERT INTO candles (symbol_id, timeframe, timestamp, open, high, low, close, volume)
+            SELECT ?, ?, timestamp, open, high, low, close, volume
+            FROM candles_stage
+            """ + CONFLICT_SQL;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final CandlePartitionManager partitionManager;
+
+    public int write(long symbolId, String timeframe, BinanceKline kline) {
+        partitionManager.ensure(timeframe, kline.getOpenTime(), kline.getOpenTime());
+        return jdbcTemplate.update(UPSERT_SQL,
+                symbolId,
+                timeframe,
+                toTimestamp(kline.getOpenTime()),
+                kline.getOpen(),
+                kline.getHigh(),
+                kline.getLow(),
+                kline.getClose(),
+                kline.getVolume());
+    }
+
+    /**
+     * Upserts the first {@code rows} rows of the batch, which must have distinct open times. Returns the
+     * number of candle rows actually written. Runs in a transaction because the staging table is
+     * emptied on commit.
+     */
+    @Transactional
+    public int write(long symbolId, String timeframe, KlineBatch batch, int rows) {
+        if (rows <= 0) {
+            return 0;
+        }
+        long first = Long.MAX_VALUE;
+        long last = Long.MIN_VALUE;
+        for (int row = 0; row < rows; row++) {
+            first = Math.min(first, batch.openTime(row));
+            last = Math.max(last, batch.openTime(row));
+        }
+        partitionManager.ensure(timeframe, first, last);
+
+        if (rows >= COPY_THRESHOLD) {
+            Integer copied = jdbcTemplate.execute((ConnectionCallback<Integer>) connection ->
+                    connection.isWrapperFor(PGConnection.class)
+                            ? copy(connection, symbolId, timeframe, batch, rows)
+                            : null);
+            if (copied != null) {
+                return copied;
+            }
+        }
+        return batchUpsert(symbolId, timeframe, batch, rows);
+    }
+
+    private int copy(Connection connection, long symbolId, String timeframe, KlineBatch batch, int rows)
+            throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(CREATE_STAGE_SQL);
+        }
+
+        CopyIn copyIn = connection.unwrap(PGConnection.class).getCopyAPI().copyIn(COPY_SQL);
+        try {
+            BinaryCopyEncoder encoder = new BinaryCopyEncoder(copyIn);
+            for (int row = 0; row < rows; row++) {
+                encoder.startRow(6);
+                encoder.timestamp(batch.openTime(row));
+                for (int column = KlineBatch.OPEN; column <= KlineBatch.VOLUME; column++) {
+                    long scaled = batch.scaled(column, row);
+                    if (scaled == KlineBatch.SPILLED) {
+                        encoder.numeric(batch.decimal(column, row));
+                    } else {
+                        encoder.numeric(scaled, KlineBatch.SCALE);
+                    }
+                }
+            }
+            encoder.finish();
+            copyIn.endCopy();
+        } finally {
+            if (copyIn.isActive()) {
+                copyIn.cancelCopy();
+            }
+        }
+
+        int written;
+        try (PreparedStatement merge = connection.prepareStatement(MERGE_SQL)) {
+            merge.setLong(1, symbolId);
+            merge.setString(2, timeframe);
+            written = merge.executeUpdate();
+        }
+        // A second write in the same transaction must not see these rows again
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("TRUNCATE candles_stage");
+        }
+        return written;
+    }
+
+    private int batchUpsert(long symbolId, String timeframe, KlineBatch batch, int rows) {
+        int[] counts = jdbcTemplate.batchUpdate(UPSERT_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                ps.setLong(1, symbolId);
+                ps.setString(2, timeframe);
+                ps.setObject(3, toTimestamp(batch.openTime(i)));
+                ps.setBigDecimal(4, batch.decimal(KlineBatch.OPEN, i));
+                ps.setBigDecimal(5, batch.decimal(KlineBatch.HIGH, i));
+                ps.setBigDecimal(6, batch.decimal(KlineBatch.LOW, i));
+                ps.setBigDecimal(7, batch.decimal(KlineBatch.CLOSE, i));
+                ps.setBigDecimal(8, batch.decimal(KlineBatch.VOLUME, i));
+            }
+
+            @Override
+            public int getBatchSize() {
+                return rows;
+            }
+        });
+
+        int written = 0;
+        for (int count : counts) {
+            // SUCCESS_NO_INFO (-2) still means the row was processed
+            written += count == PreparedStatement.SUCCESS_NO_INFO ? 1 : count;
+        }
+        return written;
+    }
+
+    private static OffsetDateTime toTimestamp(long epochMillis) {
+        return Instant.ofEpochMilli(epochMillis).atOffset(ZoneOffset.UTC);
+    }
+
+    /**
+     * Postgres binary COPY stream: a signature header, then per row a field count followed by
+     * length-prefixed big-endian values, then a -1 trailer. Buffered and pushed to the server in chunks.
+     */
+    static final class BinaryCopyEncoder {
+
+        private static final byte[] SIGNATURE = "PGCOPY\n\377\r\n\0".getBytes(StandardCharsets.ISO_8859_1);
+        private static final long POSTGRES_EPOCH_MILLIS = 946_684_800_000L;
+        private static final int NUMERIC_NEG = 0x4000;
+        private static final BigInteger NBASE = BigInteger.valueOf(10_000);
+
+        private final Sink sink;
+        private final byte[] buffer = new byte[64 * 1024];
+        private int position;
+        // Base-10000 digit groups, least significant first
+        private final int[] groups = new int[16];
+
+        interface Sink {
+            void write(byte[] data, int offset, int length) throws SQLException;
+        }
+
+        BinaryCopyEncoder(CopyIn copyIn) throws SQLException {
+            this(copyIn::writeToCopy);
+        }
+
+        BinaryCopyEncoder(Sink sink) throws SQLException {
+            this.sink = sink;
+            ensure(SIGNATURE.length + 8);
+            System.arraycopy(SIGNATURE, 0, buffer, 0, SIGNATURE.length);
+            position = SIGNATURE.length;
+            putInt(0); // flags
+            putInt(0); // header extension length
+        }
+
+        void startRow(int fields) throws SQLException {
+            ensure(2);
+            putShort(fields);
+        }
+
+        // timestamptz: microseconds since 2000-01-01 UTC
+        void timestamp(long epochMillis) throws SQLException {
+            ensure(12);
+            putInt(8);
+            putLong((epochMillis - POSTGRES_EPOCH_MILLIS) * 1000);
+        }
+
+        void numeric(long unscaled, int scale) throws SQLException {
+            if (scale % 4 != 0) {
+                numeric(BigDecimal.valueOf(unscaled, scale));
+                return;
+            }
+            numeric(unscaled, scale, scale);
+        }
+
+        // scale is a multiple of 4; displayScale is the number of decimals Postgres shows
+        private void numeric(long unscaled, int scale, int displayScale) throws SQLException {
+            boolean negative = unscaled < 0;
+            // Long.MIN_VALUE has no positive counterpart; it never occurs as a scaled value
+            long remaining = Math.abs(unscaled);
+            int count = 0;
+            while (remaining != 0) {
+                groups[count++] = (int) (remaining % 10_000);
+                remaining /= 10_000;
+            }
+            writeNumeric(groups, count, scale / 4, negative, displayScale);
+        }
+
+        void numeric(BigDecimal value) throws SQLException {
+            int scale = Math.max(value.scale(), 0);
+            int padding = (4 - scale % 4) % 4;
+            BigInteger remaining = value.setScale(scale + padding).unscaledValue().abs();
+            if (remaining.bitLength() < 63) {
+                numeric(value.signum() < 0 ? -remaining.longValue() : remaining.longValue(), scale + padding, scale);
+                return;
+            }
+            int count = 0;
+            int[] digits = groups;
+            while (remaining.signum() != 0) {
+                BigInteger[] division = remaining.divideAndRemainder(NBASE);
+                if (count == digits.length) {
+                    digits = Arrays.copyOf(digits, count * 2);
+                }
+                digits[count++] = division[1].intValue();
+                remaining = division[0];
+            }
+            writeNumeric(digits, count, (scale + padding) / 4, value.signum() < 0, scale);
+        }
+
+        void finish() throws SQLException {
+            ensure(2);
+            putShort(-1);
+            flush();
+        }
+
+        // weight is the power of 10000 of the first stored group; zero groups at either end are dropped
+        private void writeNumeric(int[] digits, int count, int fractionGroups, boolean negative, int displayScale)
+                throws SQLException {
+            int first = Math.max(count, fractionGroups) - 1;
+            int last = 0;
+            while (first >= 0 && digits(digits, count, first) == 0) {
+                first--;
+            }
+            if (first < 0) {
+                ensure(12);
+                putInt(8);
+                putShort(0);
+                putShort(0);
+                putShort(0);
+                putShort(displayScale);
+                return;
+            }
+            while (digits(digits, count, last) == 0) {
+                last++;
+            }
+            int stored = first - last + 1;
+            ensure(12 + 2 * stored);
+            putInt(8 + 2 * stored);
+            putShort(stored);
+            putShort(first - fractionGroups);
+            putShort(negative ? NUMERIC_NEG : 0);
+            putShort(displayScale);
+            for (int i = first; i >= last; i--) {
+                putShort(digits(digits, count, i));
+            }
+        }
+
+        private static int digits(int[] digits, int count, int index) {
+            return index < count ? digits[index] : 0;
+        }
+
+        private void ensure(int bytes) throws SQLException {
+            if (position + bytes > buffer.length) {
+                flush();
+            }
+        }
+
+        private void flush() throws SQLException {
+            if (position > 0) {
+                sink.write(buffer, 0, position);
+                position = 0;
+            }
+        }
+
+        private void putShort(int value) {
+            buffer[position++] = (byte) (value >>> 8);
+            buffer[position++] = (byte) value;
+        }
+
+        private void putInt(int value) {
+            putShort(value >>> 16);
+            putShort(value);
+        }
+
+        private void putLong(long value) {
+            putInt((int) (value >>> 32));
+            putInt((int) value);
+        }
+    }
+}
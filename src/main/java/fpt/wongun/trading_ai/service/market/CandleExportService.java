@@ -0,0 +1,200 @@
+package fpt.wongun.trading_ai.service.market;
+
+import fpt.wongun.trading_ai.domain.entity.Symbol;
+import fpt.wongun.trading_ai.exception.SymbolNotFoundException;
+import fpt.wongun.trading_ai.repository.SymbolRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streams stored candles as CSV or NDJSON in the layout {@link CandleImportService} reads back. Each
+ * series is split by {@link TieredCandleReader}: archived months are decoded one month at a time, the
+ * rest is read through a forward-only cursor that fetches {@link #FETCH_SIZE} rows at a time. Every
+ * row is written straight to the response as it arrives; a slow client blocks the writes and with
+ * them the cursor, so memory stays flat for any range.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CandleExportService {
+
+    static final int FETCH_SIZE = 5000;
+    private static final int BUFFER_CHARS = 64 * 1024;
+
+    // Numeric text is passed through as-is; open time goes out as epoch millis
+    private static final String EXPORT_SQL = """
+            SELECT CAST(EXTRACT(EPOCH FROM timestamp) * 1000 AS BIGINT) AS open_time,
+                   open::text, high::text, low::text, close::text, volume::text
+            FROM candles
+            WHERE symbol_id = ? AND timeframe = ? AND timestamp >= ? AND timestamp < ?
+            ORDER BY timestamp
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SymbolRepository symbolRepository;
+    private final TieredCandleReader tieredCandleReader;
+
+    public record ExportSeries(Symbol symbol, String timeframe) {
+    }
+
+    // Entries are SYMBOL:TIMEFRAME; resolved before the response starts so bad input still gets a JSON error
+    public List<ExportSeries> resolve(List<String> entries) {
+        List<ExportSeries> series = new ArrayList<>();
+        for (String entry : entries) {
+            int separator = entry.indexOf(':');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("Expected SYMBOL:TIMEFRAME but got '" + entry + "'");
+            }
+            String code = entry.substring(0, separator).trim().toUpperCase();
+            String timeframe = BarSpec.parse(entry.substring(separator + 1).trim()).code();
+            Symbol symbol = symbolRepository.findByCode(code)
+                    .orElseThrow(() -> new SymbolNotFoundException(code));
+            series.add(new ExportSeries(symbol, timeframe));
+        }
+        return series;
+    }
+
+    // Read-only transaction: the Postgres driver only uses a cursor when autocommit is off
+    @Transactional(readOnly = true)
+    public long export(List<ExportSeries> series, Instant from, Instant to, CandleFileFormat format,
+                       OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_CHARS);
+        if (format == CandleFileFormat.CSV) {
+            writer.write("symbol,timeframe,openTime,open,high,low,close,volume\n");
+        }
+
+        long rows = 0;
+        try {
+            for (ExportSeries target : series) {
+                rows += exportSeries(target, from, to, format, writer);
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.flush();
+        log.info("Exported {} candles from {} series ({} to {})", rows, series.size(), from, to);
+        return rows;
+    }
+
+    private long exportSeries(ExportSeries target, Instant from, Instant to, CandleFileFormat format, Writer writer)
+            throws IOException {
+        String prefix = format == CandleFileFormat.CSV
+                ? target.symbol().getCode() + "," + target.timeframe() + ","
+                : "{\"symbol\":\"" + target.symbol().getCode() + "\",\"timeframe\":\"" + target.timeframe()
+                        + "\",\"openTime\":";
+        String[] values = new String[KlineBatch.VOLUME + 1];
+        KlineBatch archived = null;
+        long rows = 0;
+
+        for (TieredCandleReader.Span span : tieredCandleReader.plan(target.symbol().getCode(), target.timeframe(),
+                from.toEpochMilli(), to.toEpochMilli())) {
+            if (!span.archived()) {
+                rows += exportDatabase(target, span, prefix, format, values, writer);
+                continue;
+            }
+            // At most one month of bars, decoded from the archive
+            if (archived == null) {
+                archived = new KlineBatch(4096);
+            } else {
+                archived.clear();
+            }
+            tieredCandleReader.read(target.symbol(), target.timeframe(), span, archived);
+            for (int row = 0; row < archived.size(); row++) {
+                for (int column = KlineBatch.OPEN; column <= KlineBatch.VOLUME; column++) {
+                    values[column] = archived.decimal(column, row).toPlainString();
+                }
+                writeRow(writer, prefix, format, archived.openTime(row), values);
+            }
+            rows += archived.size();
+        }
+        return rows;
+    }
+
+    private long exportDatabase(ExportSeries target, TieredCandleReader.Span span, String prefix,
+                                CandleFileFormat format, String[] values, Writer writer) {
+        long[] rows = new long[1];
+        RowCallbackHandler handler = rs -> {
+            for (int column = KlineBatch.OPEN; column <= KlineBatch.VOLUME; column++) {
+                values[column] = rs.getString(column + 2);
+            }
+            try {
+                writeRow(writer, prefix, format, rs.getLong(1), values);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            rows[0]++;
+        };
+
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(EXPORT_SQL,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(FETCH_SIZE);
+            statement.setLong(1, target.symbol().getId());
+            statement.setString(2, target.timeframe());
+            statement.setObject(3, Instant.ofEpochMilli(span.from()).atOffset(ZoneOffset.UTC));
+            statement.setObject(4, Instant.ofEpochMilli(span.to()).atOffset(ZoneOffset.UTC));
+            return statement;
+        }, handler);
+        return rows[0];
+    }
+
+    private static void writeRow(Writer writer, String prefix, CandleFileFormat format, long openTime,
+                                 String[] values) throws IOException {
+        writer.write(prefix);
+        writer.write(Long.toString(openTime));
+        if (format == CandleFileFormat.CSV) {
+            for (String value : values) {
+                writer.write(',');
+                writeDecimal(writer, value);
+            }
+            writer.write('\n');
+        } else {
+            writeJsonDecimal(writer, "open", values[KlineBatch.OPEN]);
+            writeJsonDecimal(writer, "high", values[KlineBatch.HIGH]);
+            writeJsonDecimal(writer, "low", values[KlineBatch.LOW]);
+            writeJsonDecimal(writer, "close", values[KlineBatch.CLOSE]);
+            writeJsonDecimal(writer, "volume", values[KlineBatch.VOLUME]);
+            writer.write("}\n");
+        }
+    }
+
+    private static void writeJsonDecimal(Writer writer, String name, String value) throws IOException {
+        writer.write(",\"");
+        writer.write(name);
+        writer.write("\":\"");
+        writeDecimal(writer, value);
+        writer.write('"');
+    }
+
+    // Candles are NUMERIC(28, 18); drops the padding zeros so 93576.010000000000000000 goes out as 93576.01
+    private static void writeDecimal(Writer writer, String text) throws IOException {
+        int end = text.length();
+        if (text.indexOf('.') >= 0) {
+            while (text.charAt(end - 1) == '0') {
+                end--;
+            }
+            if (text.charAt(end - 1) == '.') {
+                end--;
+            }
+        }
+        writer.write(text, 0, end);
+    }
+}
@@ -0,0 +1,24 @@
+package fpt.wongun.trading_ai.service.market;
+
+import org.springframework.http.MediaType;
+
+// Line formats for candle import and export; both use the replay file layout
+public enum CandleFileFormat {
+
+    CSV(MediaType.parseMediaType("text/csv")),
+    NDJSON(MediaType.parseMediaType("application/x-ndjson"));
+
+    private final MediaType mediaType;
+
+    CandleFileFormat(MediaType mediaType) {
+        this.mediaType = mediaType;
+    }
+
+    public MediaType mediaType() {
+        return mediaType;
+    }
+
+    public static CandleFileFormat of(String contentType) {
+        return MediaType.parseMediaType(contentType).isCompatibleWith(CSV.mediaType) ? CSV : NDJSON;
+    }
+}
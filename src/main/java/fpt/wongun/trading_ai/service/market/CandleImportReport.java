@@ -0,0 +1,11 @@
+package fpt.wongun.trading_ai.service.market;
+
+import java.util.List;
+
+// Outcome of a streamed import; errors holds the first few rejection reasons with their line numbers
+public record CandleImportReport(long rowsRead,
+                                 long accepted,
+                                 long rejected,
+                                 long written,
+                                 List<String> errors) {
+}
@@ -0,0 +1,271 @@
+package fpt.wongun.trading_ai.service.market;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import fpt.wongun.trading_ai.domain.entity.Symbol;
+import fpt.wongun.trading_ai.repository.SymbolRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Imports candles from a CSV or NDJSON upload while reading it. Rows use the replay file layout
+ * ({@code symbol,timeframe,openTime,open,high,low,close,volume}; CSV needs that header and no quoting,
+ * which none of the fields need, so quoted rows are rejected rather than misread). Each row is parsed
+ * and checked on its own; good rows are buffered per series in reusable {@link KlineBatch}es and flushed
+ * through {@link CandleIngestService} every {@link #CHUNK_ROWS} rows, one transaction per series chunk,
+ * so memory and transaction size stay bounded whatever the upload size.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CandleImportService {
+
+    static final int CHUNK_ROWS = 5000;
+    private static final int MAX_REPORTED_ERRORS = 20;
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private static final String[] FIELDS = {"symbol", "timeframe", "openTime", "open", "high", "low", "close", "volume"};
+    private static final int SYMBOL = 0;
+    private static final int TIMEFRAME = 1;
+    private static final int OPEN_TIME = 2;
+    // FIELDS[FIRST_DECIMAL + c] is KlineBatch column c
+    private static final int FIRST_DECIMAL = 3;
+
+    private final SymbolRepository symbolRepository;
+    private final CandleIngestService candleIngestService;
+
+    public CandleImportReport importStream(InputStream body, CandleFileFormat format) throws IOException {
+        Import run = new Import();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+
+        int[] columns = null;
+        if (format == CandleFileFormat.CSV) {
+            columns = readHeader(reader.readLine());
+            run.line++;
+        }
+        String[] cells = new String[FIELDS.length];
+        String line;
+        while ((line = reader.readLine()) != null) {
+            run.line++;
+            if (line.isBlank()) {
+                continue;
+            }
+            run.read++;
+            String error = format == CandleFileFormat.CSV ? splitCsv(line, columns, cells) : splitJson(line, cells);
+            if (error == null) {
+                error = run.add(cells);
+            }
+            if (error != null) {
+                run.reject(error);
+            }
+            if (run.buffered >= CHUNK_ROWS) {
+                run.flush();
+            }
+        }
+        run.flush();
+
+        log.info("Streamed import finished: {} rows read, {} accepted, {} rejected, {} written",
+                run.read, run.read - run.rejected, run.rejected, run.written);
+        return new CandleImportReport(run.read, run.read - run.rejected, run.rejected, run.written,
+                List.copyOf(run.errors));
+    }
+
+    // Column index of each field in the CSV header
+    private static int[] readHeader(String line) {
+        if (line == null) {
+            throw new IllegalArgumentException("CSV import is empty; expected a header line");
+        }
+        if (line.indexOf('"') >= 0) {
+            throw new IllegalArgumentException("CSV header must not be quoted");
+        }
+        String[] names = line.split(",");
+        int[] columns = new int[FIELDS.length];
+        for (int f = 0; f < FIELDS.length; f++) {
+            columns[f] = -1;
+            for (int i = 0; i < names.length; i++) {
+                if (names[i].trim().equals(FIELDS[f])) {
+                    columns[f] = i;
+                }
+            }
+            if (columns[f] < 0) {
+                throw new IllegalArgumentException("CSV header is missing column: " + FIELDS[f]);
+            }
+        }
+        return columns;
+    }
+
+    private static String splitCsv(String line, int[] columns, String[] cells) {
+        // A quoted field may hold a comma, which a plain split would shift into the next column
+        if (line.indexOf('"') >= 0) {
+            return "quoted CSV fields are not supported";
+        }
+        String[] values = line.split(",", -1);
+        for (int f = 0; f < FIELDS.length; f++) {
+            if (columns[f] >= values.length) {
+                return "missing " + FIELDS[f];
+            }
+            cells[f] = values[columns[f]].trim();
+        }
+        return null;
+    }
+
+    private static String splitJson(String line, String[] cells) {
+        Arrays.fill(cells, null);
+        try (JsonParser parser = JSON_FACTORY.createParser(line)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return "not a JSON object";
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.currentName();
+                JsonToken value = parser.nextToken();
+                int field = fieldIndex(name);
+                if (field >= 0 && value.isScalarValue()) {
+                    cells[field] = parser.getText();
+                } else if (value.isStructStart()) {
+                    parser.skipChildren();
+                }
+            }
+        } catch (IOException e) {
+            return "malformed JSON";
+        }
+        for (int f = 0; f < FIELDS.length; f++) {
+            if (cells[f] == null) {
+                return "missing " + FIELDS[f];
+            }
+        }
+        return null;
+    }
+
+    private static int fieldIndex(String name) {
+        for (int f = 0; f < FIELDS.length; f++) {
+            if (FIELDS[f].equals(name)) {
+                return f;
+            }
+        }
+        return -1;
+    }
+
+    // State of one upload; lives on the request thread only
+    private final class Import {
+
+        private final Map<String, Series> series = new HashMap<>();
+        private final Map<String, Optional<Symbol>> symbols = new HashMap<>();
+        private final List<String> errors = new ArrayList<>();
+        private final long[] scaled = new long[KlineBatch.VOLUME + 1];
+        private final BigDecimal[] spilled = new BigDecimal[KlineBatch.VOLUME + 1];
+
+        private long line;
+        private long read;
+        private long rejected;
+        private long written;
+        private int buffered;
+
+        // Parses one row into its series buffer; returns why it was rejected, or null
+        String add(String[] cells) {
+            String symbolCode = cells[SYMBOL].toUpperCase();
+            String timeframe = cells[TIMEFRAME].toUpperCase();
+            Series target = series.get(symbolCode + ":" + timeframe);
+            if (target == null) {
+                Optional<Symbol> symbol = symbols.computeIfAbsent(symbolCode, symbolRepository::findByCode);
+                if (symbol.isEmpty()) {
+                    return "unknown symbol " + symbolCode;
+                }
+                BarSpec spec;
+                try {
+                    spec = BarSpec.parse(timeframe);
+                } catch (IllegalArgumentException e) {
+                    return e.getMessage();
+                }
+                target = new Series(symbol.get(), timeframe, Math.max(spec.stepMillis(), 1), new KlineBatch(256));
+                series.put(symbolCode + ":" + timeframe, target);
+            }
+
+            long openTime;
+            try {
+                String text = cells[OPEN_TIME];
+                openTime = !text.isEmpty() && text.chars().allMatch(Character::isDigit)
+                        ? Long.parseLong(text)
+                        : Instant.parse(text).toEpochMilli();
+            } catch (NumberFormatException | DateTimeParseException e) {
+                return "invalid openTime '" + cells[OPEN_TIME] + "'";
+            }
+
+            for (int c = KlineBatch.OPEN; c <= KlineBatch.VOLUME; c++) {
+                String text = cells[FIRST_DECIMAL + c];
+                scaled[c] = BinanceKlineParser.parseScaled(text.toCharArray(), 0, text.length());
+                spilled[c] = null;
+                if (scaled[c] == KlineBatch.SPILLED) {
+                    try {
+                        spilled[c] = new BigDecimal(text);
+                    } catch (NumberFormatException e) {
+                        return "invalid " + FIELDS[FIRST_DECIMAL + c] + " '" + text + "'";
+                    }
+                }
+            }
+
+            KlineBatch batch = target.batch();
+            int row = batch.addRow();
+            batch.setOpenTime(row, openTime);
+            batch.setCloseTime(row, openTime + target.step() - 1);
+            for (int c = KlineBatch.OPEN; c <= KlineBatch.VOLUME; c++) {
+                if (spilled[c] != null) {
+                    batch.setDecimal(c, row, spilled[c]);
+                } else {
+                    batch.setScaled(c, row, scaled[c]);
+                }
+            }
+            buffered++;
+            return null;
+        }
+
+        void reject(String error) {
+            rejected++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add("line " + line + ": " + error);
+            }
+        }
+
+        // Rows the validator quarantines or that repeat an open time count as rejected
+        void flush() {
+            long now = System.currentTimeMillis();
+            for (Series target : series.values()) {
+                KlineBatch batch = target.batch();
+                if (batch.isEmpty()) {
+                    continue;
+                }
+                KlineBatch chunk = batch.sorted();
+                int size = batch.size();
+                written += candleIngestService.applyAll(target.symbol(), target.timeframe(), chunk, now);
+                if (chunk.size() < size) {
+                    rejected += size - chunk.size();
+                    if (errors.size() < MAX_REPORTED_ERRORS) {
+                        errors.add((size - chunk.size()) + " " + target.symbol().getCode() + "/" + target.timeframe()
+                                + " rows up to line " + line + " repeated an open time or failed validation");
+                    }
+                }
+                batch.clear();
+            }
+            buffered = 0;
+        }
+    }
+
+    private record Series(Symbol symbol, String timeframe, long step, KlineBatch batch) {
+    }
+}
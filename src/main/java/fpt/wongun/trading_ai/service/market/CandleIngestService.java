@@ -0,0 +1,133 @@
+package fpt.wongun.trading_ai.service.market;
+
+import fpt.wongun.trading_ai.domain.entity.Symbol;
+import fpt.wongun.trading_ai.domain.enums.CandleDefect;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CandleIngestService {
+
+    private static final String QUARANTINE_SQL = """
+            INSERT INTO quarantined_candles (symbol_id, timeframe, timestamp, close_time, open, high, low, close, volume,
+                                             defect, created_at, updated_at, created_by, updated_by)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, now(), now(), 'SYSTEM', 'SYSTEM')
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final FormingBarStore formingBarStore;
+    private final KlineValidator klineValidator;
+    private final CandleBulkWriter candleBulkWriter;
+    private final CandleArchive candleArchive;
+
+    // Closed bars go to the candles table, the forming bar only to the forming bar store.
+    // Returns the number of candle rows actually written (0 when the stored bar is unchanged).
+    @Transactional
+    public int apply(Symbol symbol, String timeframe, BinanceKline kline, boolean closed) {
+        CandleDefect defect = klineValidator.validate(kline, BarSpec.parse(timeframe).stepMillis());
+        if (defect != null) {
+            // A bad forming update is just dropped; the closed bar is what gets kept for inspection
+            if (closed) {
+                KlineBatch rejected = new KlineBatch(1);
+                rejected.addKline(kline);
+                quarantine(symbol, timeframe, rejected, new CandleDefect[]{defect});
+            }
+            return 0;
+        }
+        if (!closed) {
+            formingBarStore.put(symbol.getId(), timeframe, kline);
+            return 0;
+        }
+        int written = candleBulkWriter.write(symbol.getId(), timeframe, kline);
+        formingBarStore.closed(symbol.getId(), timeframe, kline.getOpenTime());
+        if (written > 0) {
+            candleArchive.markStale(symbol.getCode(), timeframe, kline.getOpenTime(), kline.getOpenTime());
+        }
+        return written;
+    }
+
+    // Klines in open-time order; bars closing at or after closedBefore are still forming
+    @Transactional
+    public int applyAll(Symbol symbol, String timeframe, List<BinanceKline> klines, long closedBefore) {
+        int written = 0;
+        for (BinanceKline kline : klines) {
+            written += apply(symbol, timeframe, kline, kline.getCloseTime() < closedBefore);
+        }
+        return written;
+    }
+
+    // Validates the batch, quarantining and removing rejected rows from it, then hands the closed
+    // rows to the bulk writer
+    @Transactional
+    public int applyAll(Symbol symbol, String timeframe, KlineBatch batch, long closedBefore) {
+        CandleDefect[] defects = klineValidator.validate(batch, BarSpec.parse(timeframe).stepMillis());
+        if (defects != null) {
+            quarantine(symbol, timeframe, batch, defects);
+            BitSet rejected = new BitSet(defects.length);
+            for (int row = 0; row < defects.length; row++) {
+                if (defects[row] != null) {
+                    rejected.set(row);
+                }
+            }
+            batch.removeRows(rejected);
+        }
+
+        int closed = batch.size();
+        while (closed > 0 && batch.closeTime(closed - 1) >= closedBefore) {
+            closed--;
+        }
+        if (closed < batch.size()) {
+            formingBarStore.put(symbol.getId(), timeframe, batch.toKline(batch.size() - 1));
+        }
+        if (closed == 0) {
+            return 0;
+        }
+
+        int written = candleBulkWriter.write(symbol.getId(), timeframe, batch, closed);
+        formingBarStore.closed(symbol.getId(), timeframe, batch.openTime(closed - 1));
+        if (written > 0) {
+            candleArchive.markStale(symbol.getCode(), timeframe, batch.openTime(0), batch.openTime(closed - 1));
+        }
+        return written;
+    }
+
+    // Swaps the stored series for the batch in one transaction (admin re-import)
+    @Transactional
+    public int replaceSeries(Symbol symbol, String timeframe, KlineBatch batch, long closedBefore) {
+        jdbcTemplate.update("DELETE FROM candles WHERE symbol_id = ? AND timeframe = ?", symbol.getId(), timeframe);
+        int written = applyAll(symbol, timeframe, batch, closedBefore);
+        candleArchive.deleteSeries(symbol.getCode(), timeframe);
+        return written;
+    }
+
+    private void quarantine(Symbol symbol, String timeframe, KlineBatch batch, CandleDefect[] defects) {
+        List<Object[]> rows = new ArrayList<>();
+        for (int row = 0; row < defects.length; row++) {
+            if (defects[row] != null) {
+                rows.add(new Object[]{symbol.getId(), timeframe,
+                        toTimestamp(batch.openTime(row)), toTimestamp(batch.closeTime(row)),
+                        batch.decimal(KlineBatch.OPEN, row), batch.decimal(KlineBatch.HIGH, row),
+                        batch.decimal(KlineBatch.LOW, row), batch.decimal(KlineBatch.CLOSE, row),
+                        batch.decimal(KlineBatch.VOLUME, row), defects[row].name()});
+            }
+        }
+        jdbcTemplate.batchUpdate(QUARANTINE_SQL, rows);
+        log.warn("Quarantined {} of {} klines for {}/{}", rows.size(), defects.length, symbol.getCode(), timeframe);
+    }
+
+    private static OffsetDateTime toTimestamp(long epochMillis) {
+        return Instant.ofEpochMilli(epochMillis).atOffset(ZoneOffset.UTC);
+    }
+}
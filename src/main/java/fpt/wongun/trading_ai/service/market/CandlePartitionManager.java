@@ -0,0 +1,354 @@
+package fpt.wongun.trading_ai.service.market;
+
+import fpt.wongun.trading_ai.config.MarketDataProperties;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Owns the physical layout of the {@code candles} table. It is partitioned by LIST on timeframe, and
+ * each timeframe by RANGE on timestamp into UTC months ({@code candles_m1_y2025m01}). Retention then
+ * drops a timeframe's old months as whole tables, and series queries prune to the months they touch.
+ * <p>
+ * Hibernate creates {@code candles} as a plain heap on a fresh database; on startup this converts it
+ * in one transaction. Partitions are created ahead of time by a daily job and on demand by
+ * {@link CandleBulkWriter} before it writes a month that has none. Rows whose timeframe is not a
+ * valid partition name (legacy imports stored values such as {@code 1h}) live in the DEFAULT
+ * partition {@code candles_other}, which retention never drops.
+ * <p>
+ * With the {@link CandleArchive} enabled, retention only drops a month once every series in it has
+ * an up-to-date archive file for that month; without an archive, retention deletes the history.
+ */
+@Slf4j
+@Component
+@DependsOn("entityManagerFactory")
+public class CandlePartitionManager {
+
+    private static final Pattern TIMEFRAME = Pattern.compile("[A-Z0-9.]+");
+    private static final Pattern LIST_BOUND = Pattern.compile("FOR VALUES IN \\('([^']+)'\\)");
+    private static final Pattern MONTH_SUFFIX = Pattern.compile("_y(\\d{4})m(\\d{2})$");
+
+    private static final String OTHER_PARTITION = "candles_other";
+
+    private static final String LEAN_COLUMNS = "id, symbol_id, timeframe, timestamp, open, high, low, close, volume";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transaction;
+    // Partitions are created outside the writer's transaction so they survive its rollback
+    private final TransactionTemplate ddlTransaction;
+    private final MarketDataProperties properties;
+    private final CandleArchive candleArchive;
+
+    private volatile boolean partitioned;
+    // Names of every partition known to exist, and the timeframes that have a partition
+    private final Set<String> known = ConcurrentHashMap.newKeySet();
+    private final Set<String> timeframes = ConcurrentHashMap.newKeySet();
+
+    public CandlePartitionManager(JdbcTemplate jdbcTemplate,
+                                  PlatformTransactionManager transactionManager,
+                                  MarketDataProperties properties,
+                                  CandleArchive candleArchive) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.ddlTransaction = new TransactionTemplate(transactionManager);
+        this.ddlTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.properties = properties;
+        this.candleArchive = candleArchive;
+    }
+
+    @PostConstruct
+    void prepare() {
+        String kind = jdbcTemplate.queryForObject(
+                "SELECT (SELECT relkind::text FROM pg_class WHERE oid = to_regclass('candles'))", String.class);
+        if (kind == null) {
+            log.warn("candles table not found; partition management disabled");
+            return;
+        }
+        try {
+            if (!"p".equals(kind)) {
+                if (!properties.isCandlePartitioning()) {
+                    dropAuditColumns();
+                    return;
+                }
+                convert();
+            }
+            loadKnown();
+            partitioned = true;
+            ensureOtherPartition();
+            createAhead();
+        } catch (DataAccessException | IllegalArgumentException e) {
+            log.error("Could not partition candles, keeping the plain table: {}", e.getMessage());
+            dropAuditColumns();
+        }
+    }
+
+    public boolean isPartitioned() {
+        return partitioned;
+    }
+
+    // Makes sure every month from..to (epoch millis, inclusive) of the timeframe has a partition
+    public void ensure(String timeframe, long fromMillis, long toMillis) {
+        // Timeframes that cannot name a partition go to the DEFAULT partition
+        if (!partitioned || !TIMEFRAME.matcher(timeframe).matches()) {
+            return;
+        }
+        YearMonth last = month(toMillis);
+        for (YearMonth month = month(fromMillis); !month.isAfter(last); month = month.plusMonths(1)) {
+            if (!known.contains(leafTable(timeframe, month))) {
+                create(timeframe, month);
+            }
+        }
+    }
+
+    @Scheduled(cron = "0 15 0 * * *", zone = "UTC")
+    public void maintain() {
+        if (!partitioned) {
+            return;
+        }
+        createAhead();
+        if (!properties.getCandleRetention().isEmpty() && !candleArchive.isEnabled()) {
+            log.warn("Candle retention is set without a candle archive; expired months are deleted for good");
+        }
+        properties.getCandleRetention().forEach((timeframe, retention) ->
+                dropExpired(timeframe.toUpperCase(), retention));
+    }
+
+    private void createAhead() {
+        long now = System.currentTimeMillis();
+        long ahead = month(now).plusMonths(properties.getCandlePartitionsAhead())
+                .atDay(1).atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
+        for (String timeframe : timeframes) {
+            ensure(timeframe, now, ahead);
+        }
+    }
+
+    private synchronized void create(String timeframe, YearMonth month) {
+        String leaf = leafTable(timeframe, month);
+        if (known.contains(leaf)) {
+            return;
+        }
+        List<String> created;
+        try {
+            created = ddlTransaction.execute(status -> createPartitions("candles", timeframe, month));
+        } catch (DataAccessException e) {
+            // Another instance may have created it first
+            if (!exists(leaf)) {
+                throw e;
+            }
+            created = List.of(seriesTable(timeframe), leaf);
+        }
+        if (created != null) {
+            known.addAll(created);
+        }
+        timeframes.add(timeframe);
+        log.info("Created candle partition {}", leaf);
+    }
+
+    // Returns the partitions that exist for the month afterwards; runs in the caller's transaction
+    private List<String> createPartitions(String parent, String timeframe, YearMonth month) {
+        if (!TIMEFRAME.matcher(timeframe).matches()) {
+            throw new IllegalArgumentException("Invalid timeframe for a partition: " + timeframe);
+        }
+        String series = seriesTable(timeframe);
+        if (!known.contains(series) && !exists(series)) {
+            jdbcTemplate.execute("CREATE TABLE " + series + " (LIKE " + parent + " INCLUDING DEFAULTS)"
+                    + " PARTITION BY RANGE (timestamp)");
+            jdbcTemplate.execute("ALTER TABLE " + parent + " ATTACH PARTITION " + series
+                    + " FOR VALUES IN ('" + timeframe + "')");
+        }
+
+        // CREATE + ATTACH instead of PARTITION OF: attaching only needs SHARE UPDATE EXCLUSIVE on the
+        // parent, so concurrent inserts into other partitions are not blocked
+        String leaf = leafTable(timeframe, month);
+        if (!exists(leaf)) {
+            jdbcTemplate.execute("CREATE TABLE " + leaf + " (LIKE " + parent + " INCLUDING DEFAULTS)");
+            jdbcTemplate.execute("ALTER TABLE " + series + " ATTACH PARTITION " + leaf
+                    + " FOR VALUES FROM ('" + monthStart(month) + "') TO ('" + monthStart(month.plusMonths(1)) + "')");
+        }
+        return List.of(series, leaf);
+    }
+
+    // Copies the plain table into a partitioned one with the lean row and swaps them, all or nothing
+    private void convert() {
+        long rows = jdbcTemplate.queryForObject("SELECT count(*) FROM candles", Long.class);
+        log.info("Converting candles ({} rows) to a partitioned table", rows);
+        List<String> created = new ArrayList<>();
+
+        transaction.executeWithoutResult(status -> {
+            jdbcTemplate.execute("CREATE SEQUENCE IF NOT EXISTS candles_row_id_seq");
+            jdbcTemplate.execute("""
+                    CREATE TABLE candles_partitioned (
+                        id BIGINT NOT NULL DEFAULT nextval('candles_row_id_seq'),
+                        symbol_id BIGINT NOT NULL REFERENCES symbols (id),
+                        timeframe VARCHAR(10) NOT NULL,
+                        timestamp TIMESTAMP WITH TIME ZONE NOT NULL,
+                        open NUMERIC(28, 18) NOT NULL,
+                        high NUMERIC(28, 18) NOT NULL,
+                        low NUMERIC(28, 18) NOT NULL,
+                        close NUMERIC(28, 18) NOT NULL,
+                        volume NUMERIC(28, 18) NOT NULL,
+                        CONSTRAINT candles_partitioned_pkey PRIMARY KEY (symbol_id, timeframe, timestamp)
+                    ) PARTITION BY LIST (timeframe)""");
+
+            jdbcTemplate.execute("CREATE TABLE " + OTHER_PARTITION + " PARTITION OF candles_partitioned DEFAULT");
+            created.add(OTHER_PARTITION);
+
+            List<Map<String, Object>> months = jdbcTemplate.queryForList("""
+                    SELECT DISTINCT timeframe,
+                           CAST(EXTRACT(EPOCH FROM date_trunc('month', timestamp AT TIME ZONE 'UTC')) * 1000 AS BIGINT) AS month
+                    FROM candles""");
+            Set<String> unexpected = new TreeSet<>();
+            for (Map<String, Object> row : months) {
+                String timeframe = (String) row.get("timeframe");
+                if (timeframe == null || !TIMEFRAME.matcher(timeframe).matches()) {
+                    unexpected.add(String.valueOf(timeframe));
+                    continue;
+                }
+                created.addAll(createPartitions("candles_partitioned", timeframe,
+                        month(((Number) row.get("month")).longValue())));
+            }
+            if (!unexpected.isEmpty()) {
+                log.warn("Candles with timeframes {} cannot be partitioned by month; keeping them in {}",
+                        unexpected, OTHER_PARTITION);
+            }
+
+            jdbcTemplate.execute("INSERT INTO candles_partitioned (" + LEAN_COLUMNS + ") SELECT "
+                    + LEAN_COLUMNS + " FROM candles");
+            jdbcTemplate.execute("SELECT setval('candles_row_id_seq', "
+                    + "(SELECT COALESCE(MAX(id), 0) + 1 FROM candles_partitioned), false)");
+            jdbcTemplate.execute("DROP TABLE candles");
+            jdbcTemplate.execute("ALTER TABLE candles_partitioned RENAME TO candles");
+            // The entity's unique constraint name, so Hibernate's schema update finds it in place
+            jdbcTemplate.execute("ALTER TABLE candles RENAME CONSTRAINT candles_partitioned_pkey"
+                    + " TO uk_candle_symbol_timeframe_timestamp");
+            jdbcTemplate.execute("ALTER SEQUENCE candles_row_id_seq OWNED BY candles.id");
+        });
+        log.info("Converted candles to {} partitions", created.size());
+    }
+
+    // Tables converted before the DEFAULT partition existed get it here
+    private void ensureOtherPartition() {
+        if (known.contains(OTHER_PARTITION)) {
+            return;
+        }
+        try {
+            jdbcTemplate.execute("CREATE TABLE " + OTHER_PARTITION + " PARTITION OF candles DEFAULT");
+            known.add(OTHER_PARTITION);
+        } catch (DataAccessException e) {
+            log.warn("Could not create {}; candles with unexpected timeframes will be rejected: {}",
+                    OTHER_PARTITION, e.getMessage());
+        }
+    }
+
+    private void loadKnown() {
+        known.clear();
+        timeframes.clear();
+        jdbcTemplate.query("""
+                SELECT c.relname, t.level, pg_get_expr(c.relpartbound, c.oid) AS bound
+                FROM pg_partition_tree('candles') t
+                JOIN pg_class c ON c.oid = t.relid
+                WHERE t.level > 0""", rs -> {
+            known.add(rs.getString("relname"));
+            if (rs.getInt("level") == 1) {
+                Matcher bound = LIST_BOUND.matcher(rs.getString("bound"));
+                if (bound.find()) {
+                    timeframes.add(bound.group(1));
+                }
+            }
+        });
+    }
+
+    private void dropExpired(String timeframe, Duration retention) {
+        String series = seriesTable(timeframe);
+        if (!known.contains(series)) {
+            return;
+        }
+        YearMonth cutoff = month(Instant.now().minus(retention).toEpochMilli());
+        List<String> leaves = jdbcTemplate.queryForList("""
+                SELECT c.relname FROM pg_partition_tree(CAST(? AS regclass)) t
+                JOIN pg_class c ON c.oid = t.relid
+                WHERE t.isleaf AND t.level > 0""", String.class, series);
+
+        for (String leaf : leaves) {
+            Matcher suffix = MONTH_SUFFIX.matcher(leaf);
+            if (!suffix.find()) {
+                continue;
+            }
+            YearMonth month = YearMonth.of(Integer.parseInt(suffix.group(1)), Integer.parseInt(suffix.group(2)));
+            // Only months that ended before the cutoff; the month holding the cutoff is kept whole
+            if (!month.isBefore(cutoff)) {
+                continue;
+            }
+            if (candleArchive.isEnabled() && !archived(leaf, timeframe, month)) {
+                log.warn("Keeping expired candle partition {}: not every series in it is archived", leaf);
+                continue;
+            }
+            jdbcTemplate.execute("DROP TABLE " + leaf);
+            known.remove(leaf);
+            log.info("Dropped candle partition {} (retention {} for {})", leaf, retention, timeframe);
+        }
+    }
+
+    // True when every series with rows in the leaf has a non-stale archive file for the month
+    private boolean archived(String leaf, String timeframe, YearMonth month) {
+        List<String> codes = jdbcTemplate.queryForList(
+                "SELECT DISTINCT s.code FROM " + leaf + " c JOIN symbols s ON s.id = c.symbol_id", String.class);
+        for (String code : codes) {
+            if (!Boolean.FALSE.equals(candleArchive.months(code, timeframe).get(month))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // The plain-table fallback still drops the per-row audit columns the writer no longer fills
+    private void dropAuditColumns() {
+        jdbcTemplate.execute("""
+                ALTER TABLE candles
+                    DROP COLUMN IF EXISTS created_at,
+                    DROP COLUMN IF EXISTS updated_at,
+                    DROP COLUMN IF EXISTS created_by,
+                    DROP COLUMN IF EXISTS updated_by""");
+    }
+
+    private boolean exists(String table) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT to_regclass(?) IS NOT NULL", Boolean.class, table));
+    }
+
+    static String seriesTable(String timeframe) {
+        return "candles_" + timeframe.toLowerCase().replaceAll("[^a-z0-9]", "_");
+    }
+
+    static String leafTable(String timeframe, YearMonth month) {
+        return seriesTable(timeframe) + "_y%04dm%02d".formatted(month.getYear(), month.getMonthValue());
+    }
+
+    private static YearMonth month(long epochMillis) {
+        return YearMonth.from(Instant.ofEpochMilli(epochMillis).atZone(ZoneOffset.UTC));
+    }
+
+    private static String monthStart(YearMonth month) {
+        return month.atDay(1) + " 00:00:00+00";
+    }
+}
@@ -0,0 +1,305 @@
+package fpt.wongun.trading_ai.service.market;
+
+import fpt.wongun.trading_ai.config.BinanceProperties;
+import fpt.wongun.trading_ai.domain.entity.Candle;
+import fpt.wongun.trading_ai.domain.entity.Symbol;
+import fpt.wongun.trading_ai.domain.entity.SyncSubscription;
+import fpt.wongun.trading_ai.domain.enums.Timeframe;
+import fpt.wongun.trading_ai.repository.CandleRepository;
+import fpt.wongun.trading_ai.service.market.event.CandleClosed;
+import fpt.wongun.trading_ai.service.market.event.CandleEventBus;
+import fpt.wongun.trading_ai.service.market.event.CandleEventListener;
+import fpt.wongun.trading_ai.service.market.source.MarketDataSource;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Derives higher timeframes locally from closed M1 bars, so each symbol needs a single exchange feed.
+ * Bars are folded into per-series accumulators in memory; the resulting derived bars are upserted
+ * in batches by {@link #flush()} and announced on the {@link CandleEventBus}.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CandleRollupService implements CandleEventListener {
+
+    public static final String BASE_TIMEFRAME = Timeframe.M1.name();
+    private static final long BASE_STEP = Timeframe.M1.getMillis();
+
+    // Flush early when a catch-up burst closes many buckets between scheduled flushes
+    private static final int FLUSH_THRESHOLD = 500;
+
+    private final CandleRepository candleRepository;
+    private final CandleIngestService candleIngestService;
+    private final BinanceProperties properties;
+    private final CandleEventBus eventBus;
+    private final MarketDataSource marketDataSource;
+
+    private final Map<Long, SymbolRollup> rollups = new ConcurrentHashMap<>();
+    private final Map<PendingKey, PendingBar> pending = new ConcurrentHashMap<>();
+
+    public record SeriesFeed(Symbol symbol, String timeframe) {
+    }
+
+    /**
+     * Maps subscriptions to the series that actually need fetching from the exchange and registers
+     * the timeframes to derive locally. Derivable timeframes collapse into one M1 feed per symbol.
+     */
+    public List<SeriesFeed> planFeeds(List<SyncSubscription> subscriptions) {
+        Map<String, SeriesFeed> feeds = new LinkedHashMap<>();
+        Map<Long, Set<Timeframe>> targets = new HashMap<>();
+
+        for (SyncSubscription subscription : subscriptions) {
+            Symbol symbol = subscription.getSymbol();
+            String timeframe = subscription.getTimeframe();
+
+            if (isDerived(timeframe)) {
+                targets.computeIfAbsent(symbol.getId(), id -> EnumSet.noneOf(Timeframe.class))
+                        .add(Timeframe.fromCode(timeframe));
+                timeframe = BASE_TIMEFRAME;
+            }
+            feeds.putIfAbsent(symbol.getCode() + ":" + timeframe, new SeriesFeed(symbol, timeframe));
+        }
+
+        rollups.keySet().retainAll(targets.keySet());
+        targets.forEach((symbolId, timeframes) ->
+                rollups.computeIfAbsent(symbolId, id -> new SymbolRollup()).retarget(timeframes));
+
+        return List.copyOf(feeds.values());
+    }
+
+    public boolean isDerived(String timeframe) {
+        return properties.isRollupEnabled() && !BASE_TIMEFRAME.equalsIgnoreCase(timeframe);
+    }
+
+    // The bus delivers a series in open-time order; replays of already folded bars are ignored
+    @Override
+    public void onCandleClosed(CandleClosed event) {
+        if (BASE_TIMEFRAME.equals(event.timeframe())) {
+            onBaseBarClosed(event.symbol(), event.kline());
+        }
+    }
+
+    void onBaseBarClosed(Symbol symbol, BinanceKline kline) {
+        SymbolRollup rollup = rollups.get(symbol.getId());
+        if (rollup == null) {
+            return;
+        }
+        synchronized (rollup) {
+            rollup.fold(symbol, kline);
+        }
+        if (pending.size() >= FLUSH_THRESHOLD) {
+            flush();
+        }
+    }
+
+    @Scheduled(fixedDelay = 5000)
+    public synchronized void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        Map<PendingKey, PendingBar> drained = new HashMap<>();
+        for (PendingKey key : List.copyOf(pending.keySet())) {
+            PendingBar bar = pending.remove(key);
+            if (bar != null) {
+                drained.put(key, bar);
+            }
+        }
+
+        Map<SeriesKey, List<BinanceKline>> bySeries = new HashMap<>();
+        Map<Long, Symbol> symbols = new HashMap<>();
+        // Base bars close on the source's clock, which is virtual for replay and synthetic feeds
+        long now = marketDataSource.currentTimeMillis();
+        int partial = 0;
+        for (Map.Entry<PendingKey, PendingBar> pendingBar : drained.entrySet()) {
+            PendingKey key = pendingBar.getKey();
+            PendingBar bar = pendingBar.getValue();
+            // A bucket missing base bars would overwrite a good stored bar with a partial one; the gap
+            // scan finds the missing derived bar and backfills it from the exchange instead
+            if (!bar.isComplete(now)) {
+                partial++;
+                continue;
+            }
+            symbols.put(key.symbolId(), bar.symbol());
+            bySeries.computeIfAbsent(new SeriesKey(key.symbolId(), key.timeframe()), k -> new ArrayList<>())
+                    .add(bar.kline());
+        }
+        if (partial > 0) {
+            log.warn("Rollup flush skipped {} derived candles not fully covered by stored M1 bars", partial);
+        }
+
+        int written = 0;
+        for (Map.Entry<SeriesKey, List<BinanceKline>> entry : bySeries.entrySet()) {
+            SeriesKey series = entry.getKey();
+            Symbol symbol = symbols.get(series.symbolId());
+            List<BinanceKline> klines = entry.getValue();
+            klines.sort(Comparator.comparing(BinanceKline::getOpenTime));
+            try {
+                written += candleIngestService.applyAll(symbol, series.timeframe().name(), klines, now);
+                eventBus.publishAll(symbol, series.timeframe().name(), klines, now);
+            } catch (Exception e) {
+                log.error("Failed to persist rolled-up {} candles for symbol {}: {}",
+                        series.timeframe(), series.symbolId(), e.getMessage());
+            }
+        }
+
+        log.debug("Rollup flush wrote {} of {} derived candles", written, drained.size());
+    }
+
+    private record SeriesKey(Long symbolId, Timeframe timeframe) {
+    }
+
+    private record PendingKey(Long symbolId, Timeframe timeframe, long bucketStart) {
+    }
+
+    // coveredUntil is the open time of the last base bar, when every base bar from the bucket start up to it was folded
+    private record PendingBar(Symbol symbol, BinanceKline kline, long coveredUntil) {
+
+        boolean isComplete(long now) {
+            // A closed bucket needs all of its base bars, a forming one those up to the latest
+            return kline.getCloseTime() >= now
+                    ? coveredUntil != Long.MIN_VALUE
+                    : coveredUntil == kline.getCloseTime() + 1 - BASE_STEP;
+        }
+    }
+
+    private final class SymbolRollup {
+
+        private final Map<Timeframe, Bucket> buckets = new EnumMap<>(Timeframe.class);
+
+        synchronized void retarget(Set<Timeframe> timeframes) {
+            buckets.keySet().retainAll(timeframes);
+            for (Timeframe timeframe : timeframes) {
+                buckets.putIfAbsent(timeframe, new Bucket(timeframe));
+            }
+        }
+
+        void fold(Symbol symbol, BinanceKline kline) {
+            for (Bucket bucket : buckets.values()) {
+                if (bucket.add(symbol, kline)) {
+                    pending.put(new PendingKey(symbol.getId(), bucket.timeframe, bucket.start),
+                            new PendingBar(symbol, bucket.toKline(), bucket.coveredUntil()));
+                }
+            }
+        }
+    }
+
+    private final class Bucket {
+
+        private final Timeframe timeframe;
+        private final long step;
+
+        private long start = Long.MIN_VALUE;
+        private long lastOpenTime = Long.MIN_VALUE;
+        private BigDecimal open;
+        private BigDecimal high;
+        private BigDecimal low;
+        private BigDecimal close;
+        private BigDecimal volume;
+        private BigDecimal quoteVolume;
+        private int trades;
+        // Base bars folded into the current bucket
+        private int bars;
+        // Stored base bars carry no quote volume or trade count, so a seeded bucket cannot report them
+        private boolean seeded;
+
+        Bucket(Timeframe timeframe) {
+            this.timeframe = timeframe;
+            this.step = timeframe.getMillis();
+        }
+
+        // Returns true if the derived bar changed
+        boolean add(Symbol symbol, BinanceKline kline) {
+            long openTime = kline.getOpenTime();
+            if (openTime <= lastOpenTime) {
+                return false;
+            }
+
+            long bucketStart = Math.floorDiv(openTime, step) * step;
+            if (bucketStart != start) {
+                reset(bucketStart);
+                // Joined mid-bucket (restart, new subscription): recover the earlier base bars from the store
+                if (openTime > bucketStart) {
+                    seed(symbol, bucketStart, openTime);
+                }
+            }
+
+            merge(kline.getOpen(), kline.getHigh(), kline.getLow(), kline.getClose(), kline.getVolume(),
+                    kline.getQuoteVolume(), kline.getTrades());
+            lastOpenTime = openTime;
+            return true;
+        }
+
+        private void reset(long bucketStart) {
+            start = bucketStart;
+            open = null;
+            high = null;
+            low = null;
+            close = null;
+            volume = BigDecimal.ZERO;
+            quoteVolume = BigDecimal.ZERO;
+            trades = 0;
+            bars = 0;
+            seeded = false;
+        }
+
+        // Base bars are distinct and in order, so a full count means there are no holes
+        long coveredUntil() {
+            return bars == (lastOpenTime - start) / BASE_STEP + 1 ? lastOpenTime : Long.MIN_VALUE;
+        }
+
+        // Runs on the event lane, but only once per bucket when a series joins mid-bucket
+        private void seed(Symbol symbol, long from, long until) {
+            List<Candle> earlier = candleRepository.findBySymbolAndTimeframeAndTimestampBetweenOrderByTimestampAsc(
+                    symbol, BASE_TIMEFRAME, Instant.ofEpochMilli(from), Instant.ofEpochMilli(until - 1));
+            for (Candle candle : earlier) {
+                merge(candle.getOpen(), candle.getHigh(), candle.getLow(), candle.getClose(), candle.getVolume(),
+                        null, null);
+            }
+            seeded = !earlier.isEmpty();
+        }
+
+        private void merge(BigDecimal o, BigDecimal h, BigDecimal l, BigDecimal c, BigDecimal v,
+                           BigDecimal qv, Integer n) {
+            if (open == null) {
+                open = o;
+                high = h;
+                low = l;
+            } else {
+                high = high.max(h);
+                low = low.min(l);
+            }
+            close = c;
+            bars++;
+            volume = volume.add(v);
+            if (qv != null) {
+                quoteVolume = quoteVolume.add(qv);
+            }
+            if (n != null) {
+                trades += n;
+            }
+        }
+
+        BinanceKline toKline() {
+            // Unknown rather than a sum over only the live part of the bucket
+            return new BinanceKline(start, open, high, low, close, volume, start + step - 1,
+                    seeded ? null : quoteVolume, seeded ? null : trades);
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package fpt.wongun.trading_ai.service.market;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import fpt.wongun.trading_ai.exception.MarketDataException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * Reusable holder for one depth message: a diff event from the {@code @depth} stream or a REST
+ * {@code /api/v3/depth} snapshot. Price levels are parsed straight into primitive arrays (prices
+ * scaled like {@link KlineBatch}, quantities as doubles), so the arrays are reused from one message to the next.
+ */
+public class DepthFrame {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private String symbol;
+    private long firstUpdateId;
+    private long finalUpdateId;
+    private long eventTime;
+
+    final Levels bids = new Levels();
+    final Levels asks = new Levels();
+
+    public String symbol() {
+        return symbol;
+    }
+
+    // U of a diff event; equal to finalUpdateId for a snapshot
+    public long firstUpdateId() {
+        return firstUpdateId;
+    }
+
+    // u of a diff event, lastUpdateId of a snapshot
+    public long finalUpdateId() {
+        return finalUpdateId;
+    }
+
+    public long eventTime() {
+        return eventTime;
+    }
+
+    // Returns false for frames that are not depth data, e.g. SUBSCRIBE acknowledgements
+    public boolean parse(String payload) {
+        try (JsonParser parser = JSON_FACTORY.createParser(payload)) {
+            return read(parser);
+        } catch (IOException e) {
+            throw new MarketDataException("Failed to parse depth frame: " + e.getMessage(), e);
+        }
+    }
+
+    public boolean parse(InputStream in) {
+        try (JsonParser parser = JSON_FACTORY.createParser(in)) {
+            return read(parser);
+        } catch (IOException e) {
+            throw new MarketDataException("Failed to parse depth snapshot: " + e.getMessage(), e);
+        }
+    }
+
+    private boolean read(JsonParser parser) throws IOException {
+        symbol = null;
+        firstUpdateId = 0;
+        finalUpdateId = 0;
+        eventTime = 0;
+        bids.size = 0;
+        asks.size = 0;
+
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            return false;
+        }
+        boolean depth = false;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            switch (field) {
+                case "s" -> symbol = parser.getText();
+                case "E" -> eventTime = parser.getLongValue();
+                case "U" -> firstUpdateId = parser.getLongValue();
+                case "u" -> {
+                    finalUpdateId = parser.getLongValue();
+                    depth = true;
+                }
+                case "lastUpdateId" -> {
+                    firstUpdateId = parser.getLongValue();
+                    finalUpdateId = firstUpdateId;
+                    depth = true;
+                }
+                case "b", "bids" -> readLevels(parser, bids);
+                case "a", "asks" -> readLevels(parser, asks);
+                default -> {
+                    if (value.isStructStart()) {
+                        parser.skipChildren();
+                    }
+                }
+            }
+        }
+        return depth;
+    }
+
+    // [["0.0024","10"], ...]; a level whose price does not fit the scaled long is skipped
+    private static void readLevels(JsonParser parser, Levels levels) throws IOException {
+        while (parser.nextToken() == JsonToken.START_ARRAY) {
+            parser.nextToken();
+            long price = BinanceKlineParser.parseScaled(
+                    parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength());
+            parser.nextToken();
+            double quantity = parseQuantity(parser);
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                parser.skipChildren();
+            }
+            if (price != KlineBatch.SPILLED) {
+                levels.add(price, quantity);
+            }
+        }
+    }
+
+    private static double parseQuantity(JsonParser parser) throws IOException {
+        char[] chars = parser.getTextCharacters();
+        int offset = parser.getTextOffset();
+        int length = parser.getTextLength();
+        long scaled = BinanceKlineParser.parseScaled(chars, offset, length);
+        if (scaled != KlineBatch.SPILLED) {
+            return scaled / (double) OrderBook.PRICE_UNIT;
+        }
+        return Double.parseDouble(new String(chars, offset, length));
+    }
+
+    static final class Levels {
+
+        long[] prices = new long[64];
+        double[] quantities = new double[64];
+        int size;
+
+        private void add(long price, double quantity) {
+            if (size == prices.length) {
+                prices = Arrays.copyOf(prices, size * 2);
+                quantities = Arrays.copyOf(quantities, size * 2);
+            }
+            prices[size] = price;
+            quantities[size] = quantity;
+            size++;
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package fpt.wongun.trading_ai.service.market;
+
+import fpt.wongun.trading_ai.config.BinanceProperties;
+import fpt.wongun.trading_ai.domain.enums.SymbolType;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps a local L2 book per tracked crypto symbol from the Binance diff depth stream, following the
+ * exchange's procedure: buffer diffs, load a REST snapshot, drop diffs it already covers, then require
+ * each diff to start right after the previous one. A sequence gap or a reconnect triggers a resync.
+ */
+@Slf4j
+@Service
+@ConditionalOnExpression("${binance.depth-enabled:true} and '${market-data.source:binance}' == 'binance'")
+public class DepthStreamIngester {
+
+    // Diffs held per symbol while its snapshot is in flight; older ones are covered by the snapshot or force a resync
+    private static final int MAX_BUFFERED_FRAMES = 1000;
+    private static final Duration SNAPSHOT_RETRY_DELAY = Duration.ofSeconds(5);
+
+    private final BinanceKlineStreamClient streamClient;
+    private final BinanceClient binanceClient;
+    private final BinanceProperties properties;
+    private final SyncSubscriptionService subscriptionService;
+    private final OrderBookRegistry orderBooks;
+    private final Counter resyncs;
+    private final Counter sequenceGaps;
+
+    // Single worker owns all sync state; every diff is parsed into the one reusable frame
+    private final Scheduler ingestScheduler = Schedulers.newSingle("depth-ingest");
+    private final DepthFrame frame = new DepthFrame();
+
+    private volatile Map<String, SyncState> states = Map.of();
+    private volatile Disposable subscription;
+
+    public DepthStreamIngester(BinanceKlineStreamClient streamClient,
+                               BinanceClient binanceClient,
+                               BinanceProperties properties,
+                               SyncSubscriptionService subscriptionService,
+                               OrderBookRegistry orderBooks,
+                               MeterRegistry meterRegistry) {
+        this.streamClient = streamClient;
+        this.binanceClient = binanceClient;
+        this.properties = properties;
+        this.subscriptionService = subscriptionService;
+        this.orderBooks = orderBooks;
+        this.resyncs = Counter.builder("depth.resyncs")
+                .description("Order book snapshot reloads")
+                .register(meterRegistry);
+        this.sequenceGaps = Counter.builder("depth.sequence.gaps")
+                .description("Depth diffs that did not follow the previous update id")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        refreshSubscriptions();
+    }
+
+    @Scheduled(initialDelay = 60000, fixedDelay = 60000)
+    public synchronized void refreshSubscriptions() {
+        Set<String> symbols = new TreeSet<>();
+        subscriptionService.getActiveSubscriptions().stream()
+                .filter(s -> s.getSymbol().getType() == SymbolType.CRYPTO)
+                .forEach(s -> symbols.add(s.getSymbol().getCode()));
+
+        if (symbols.equals(states.keySet()) && subscription != null && !subscription.isDisposed()) {
+            return;
+        }
+
+        stop();
+        Map<String, SyncState> next = new HashMap<>();
+        symbols.forEach(symbol -> next.put(symbol, new SyncState(orderBooks.book(symbol))));
+        states = Map.copyOf(next);
+        orderBooks.retainAll(symbols);
+
+        if (symbols.isEmpty()) {
+            log.info("No tracked crypto symbols found. Depth stream idle.");
+            return;
+        }
+
+        List<String> streams = symbols.stream().map(BinanceKlineStreamClient::depthStreamName).toList();
+        log.info("Starting depth stream for {} symbols", streams.size());
+
+        // Every (re)connect may have missed diffs, so every book starts again from a snapshot
+        subscription = streamClient.frames(streams, () -> ingestScheduler.schedule(this::resyncAll))
+                .publishOn(ingestScheduler)
+                .subscribe(this::onFrame, e -> log.error("Depth stream terminated: {}", e.getMessage()));
+    }
+
+    @PreDestroy
+    public synchronized void shutdown() {
+        stop();
+        ingestScheduler.dispose();
+    }
+
+    private void stop() {
+        if (subscription != null) {
+            subscription.dispose();
+            subscription = null;
+        }
+    }
+
+    private void onFrame(String payload) {
+        try {
+            if (!frame.parse(payload)) {
+                return;
+            }
+        } catch (Exception e) {
+            log.warn("Skipping unparseable depth frame: {}", e.getMessage());
+            return;
+        }
+        SyncState state = states.get(frame.symbol());
+        if (state == null) {
+            return;
+        }
+        if (state.snapshotPending) {
+            if (state.buffered.size() == MAX_BUFFERED_FRAMES) {
+                state.buffered.removeFirst();
+            }
+            state.buffered.addLast(payload);
+            return;
+        }
+        applyDiff(state);
+    }
+
+    // Applies the diff in `frame` if it continues the book; returns false when a resync was started
+    private boolean applyDiff(SyncState state) {
+        OrderBook book = state.book;
+        long lastUpdateId = book.lastUpdateId();
+        if (frame.finalUpdateId() <= lastUpdateId) {
+            // Already contained in the snapshot
+            return true;
+        }
+        if (frame.firstUpdateId() > lastUpdateId + 1) {
+            sequenceGaps.increment();
+            log.warn("Depth sequence gap for {}: expected {}, got {}; resyncing",
+                    book.getSymbol(), lastUpdateId + 1, frame.firstUpdateId());
+            resync(state);
+            return false;
+        }
+        book.apply(frame);
+        return true;
+    }
+
+    private void resyncAll() {
+        states.values().forEach(this::resync);
+    }
+
+    private void resync(SyncState state) {
+        if (state != states.get(state.book.getSymbol())) {
+            return;
+        }
+        // Buffered diffs are kept: those the snapshot covers are dropped when it arrives
+        state.book.invalidate();
+        state.snapshotPending = true;
+        state.generation++;
+        resyncs.increment();
+
+        long generation = state.generation;
+        binanceClient.fetchDepthSnapshotAsync(state.book.getSymbol(), properties.getDepthSnapshotLimit())
+                .publishOn(ingestScheduler)
+                .subscribe(snapshot -> onSnapshot(state, generation, snapshot), e -> {
+                    log.warn("Depth snapshot for {} failed: {}; retrying", state.book.getSymbol(), e.getMessage());
+                    ingestScheduler.schedule(() -> {
+                        if (state.generation == generation) {
+                            resync(state);
+                        }
+                    }, SNAPSHOT_RETRY_DELAY.toMillis(), TimeUnit.MILLISECONDS);
+                });
+    }
+
+    private void onSnapshot(SyncState state, long generation, DepthFrame snapshot) {
+        // A newer resync superseded this snapshot
+        if (state.generation != generation) {
+            return;
+        }
+        state.book.load(snapshot);
+        state.snapshotPending = false;
+        log.info("Loaded depth snapshot for {} at update {} ({} buffered diffs)",
+                state.book.getSymbol(), snapshot.finalUpdateId(), state.buffered.size());
+
+        while (!state.buffered.isEmpty()) {
+            String payload = state.buffered.removeFirst();
+            if (frame.parse(payload) && !applyDiff(state)) {
+                return;
+            }
+        }
+    }
+
+    // Touched only on the ingest thread
+    private static final class SyncState {
+
+        private final OrderBook book;
+        private final ArrayDeque<String> buffered = new ArrayDeque<>();
+        private boolean snapshotPending = true;
+        private long generation;
+
+        private SyncState(OrderBook book) {
+            this.book = book;
+        }
+    }
+}
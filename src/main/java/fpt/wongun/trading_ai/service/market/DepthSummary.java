@@ -0,0 +1,19 @@
+package fpt.wongun.trading_ai.service.market;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+// Point-in-time view of an order book; bidDepth/askDepth are quantities within distanceBps of the mid
+public record DepthSummary(String symbol,
+                           BigDecimal bestBid,
+                           BigDecimal bestAsk,
+                           BigDecimal spread,
+                           BigDecimal spreadBps,
+                           int distanceBps,
+                           BigDecimal bidDepth,
+                           BigDecimal askDepth,
+                           int bidLevels,
+                           int askLevels,
+                           long lastUpdateId,
+                           Instant updatedAt) {
+}
@@ -0,0 +1,154 @@
+package fpt.wongun.trading_ai.service.market;
+
+import fpt.wongun.trading_ai.config.MarketDataProperties;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Holds the still-forming bar of every series, so the candles table only ever receives closed bars.
+ * Updates replace the bar in memory; with {@code market-data.forming-table-enabled} the latest state is
+ * also written behind to the unlogged forming_candles table once a second and reloaded on startup.
+ */
+@Slf4j
+@Service
+public class FormingBarStore {
+
+    private static final String UPSERT_SQL = """
+            INSERT INTO forming_candles (symbol_id, timeframe, open_time, close_time, open, high, low, close, volume, updated_at)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, now())
+            ON CONFLICT (symbol_id, timeframe) DO UPDATE SET
+                open_time = EXCLUDED.open_time,
+                close_time = EXCLUDED.close_time,
+                open = EXCLUDED.open,
+                high = EXCLUDED.high,
+                low = EXCLUDED.low,
+                close = EXCLUDED.close,
+                volume = EXCLUDED.volume,
+                updated_at = EXCLUDED.updated_at
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private volatile boolean persistent;
+
+    private final Map<SeriesKey, BinanceKline> bars = new ConcurrentHashMap<>();
+    // Series changed since the last write-behind flush
+    private final Set<SeriesKey> dirty = ConcurrentHashMap.newKeySet();
+
+    public FormingBarStore(JdbcTemplate jdbcTemplate, MarketDataProperties properties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.persistent = properties.isFormingTableEnabled();
+    }
+
+    @PostConstruct
+    void load() {
+        if (!persistent) {
+            return;
+        }
+        try {
+            // Unlogged: no WAL for a row rewritten every few seconds; Postgres truncates it after a crash
+            jdbcTemplate.execute("""
+                    CREATE UNLOGGED TABLE IF NOT EXISTS forming_candles (
+                        symbol_id BIGINT NOT NULL,
+                        timeframe VARCHAR(10) NOT NULL,
+                        open_time BIGINT NOT NULL,
+                        close_time BIGINT NOT NULL,
+                        open NUMERIC(28, 18) NOT NULL,
+                        high NUMERIC(28, 18) NOT NULL,
+                        low NUMERIC(28, 18) NOT NULL,
+                        close NUMERIC(28, 18) NOT NULL,
+                        volume NUMERIC(28, 18) NOT NULL,
+                        updated_at TIMESTAMP WITH TIME ZONE NOT NULL,
+                        PRIMARY KEY (symbol_id, timeframe)
+                    )""");
+            jdbcTemplate.query("SELECT * FROM forming_candles", rs -> {
+                bars.putIfAbsent(new SeriesKey(rs.getLong("symbol_id"), rs.getString("timeframe")),
+                        new BinanceKline(rs.getLong("open_time"), rs.getBigDecimal("open"), rs.getBigDecimal("high"),
+                                rs.getBigDecimal("low"), rs.getBigDecimal("close"), rs.getBigDecimal("volume"),
+                                rs.getLong("close_time"), null, null));
+            });
+            log.info("Loaded {} forming bars from forming_candles", bars.size());
+        } catch (Exception e) {
+            persistent = false;
+            log.error("forming_candles unavailable, keeping forming bars in memory only: {}", e.getMessage());
+        }
+    }
+
+    public Optional<BinanceKline> get(Long symbolId, String timeframe) {
+        return Optional.ofNullable(bars.get(new SeriesKey(symbolId, timeframe)));
+    }
+
+    // Replaces the forming bar; an update for an older bar than the one held is ignored
+    public void put(Long symbolId, String timeframe, BinanceKline kline) {
+        SeriesKey key = new SeriesKey(symbolId, timeframe);
+        BinanceKline stored = bars.merge(key, kline,
+                (current, next) -> next.getOpenTime() >= current.getOpenTime() ? next : current);
+        if (stored == kline) {
+            dirty.add(key);
+        }
+    }
+
+    // Drops the forming bar once the bar at (or after) its open time has been stored as closed
+    public void closed(Long symbolId, String timeframe, long openTime) {
+        SeriesKey key = new SeriesKey(symbolId, timeframe);
+        BinanceKline bar = bars.get(key);
+        if (bar != null && bar.getOpenTime() <= openTime && bars.remove(key, bar)) {
+            dirty.add(key);
+        }
+    }
+
+    @Scheduled(fixedDelay = 1000)
+    public void flush() {
+        // A bar a whole period past its close was abandoned (series unsubscribed, feed stopped)
+        long now = System.currentTimeMillis();
+        bars.forEach((key, bar) -> {
+            if (bar.getCloseTime() + (bar.getCloseTime() - bar.getOpenTime()) < now && bars.remove(key, bar)) {
+                dirty.add(key);
+            }
+        });
+
+        if (!persistent) {
+            dirty.clear();
+            return;
+        }
+        if (dirty.isEmpty()) {
+            return;
+        }
+
+        List<Object[]> upserts = new ArrayList<>();
+        List<Object[]> deletes = new ArrayList<>();
+        for (SeriesKey key : List.copyOf(dirty)) {
+            dirty.remove(key);
+            BinanceKline bar = bars.get(key);
+            if (bar == null) {
+                deletes.add(new Object[]{key.symbolId(), key.timeframe()});
+            } else {
+                upserts.add(new Object[]{key.symbolId(), key.timeframe(), bar.getOpenTime(), bar.getCloseTime(),
+                        bar.getOpen(), bar.getHigh(), bar.getLow(), bar.getClose(), bar.getVolume()});
+            }
+        }
+
+        try {
+            if (!upserts.isEmpty()) {
+                jdbcTemplate.batchUpdate(UPSERT_SQL, upserts);
+            }
+            if (!deletes.isEmpty()) {
+                jdbcTemplate.batchUpdate("DELETE FROM forming_candles WHERE symbol_id = ? AND timeframe = ?", deletes);
+            }
+        } catch (Exception e) {
+            log.warn("Failed to write forming bars: {}", e.getMessage());
+        }
+    }
+
+    private record SeriesKey(Long symbolId, String timeframe) {
+    }
+}
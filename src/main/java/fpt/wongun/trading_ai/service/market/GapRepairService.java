@@ -0,0 +1,82 @@
+package fpt.wongun.trading_ai.service.market;
+
+import fpt.wongun.trading_ai.config.BinanceProperties;
+import fpt.wongun.trading_ai.domain.entity.Symbol;
+import fpt.wongun.trading_ai.domain.entity.SyncSubscription;
+import fpt.wongun.trading_ai.domain.enums.BackfillStatus;
+import fpt.wongun.trading_ai.domain.enums.Timeframe;
+import fpt.wongun.trading_ai.repository.BackfillJobRepository;
+import fpt.wongun.trading_ai.repository.CandleRepository;
+import fpt.wongun.trading_ai.repository.CandleRepository.CandleGap;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.EnumSet;
+import java.util.List;
+
+/**
+ * Scans every subscribed series for missing bars and queues a targeted backfill job per hole.
+ * Holes in a series skew the EMAs fed to the AI, so they are repaired rather than tolerated.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class GapRepairService {
+
+    private static final int MAX_GAPS_PER_SERIES = 50;
+
+    // A completed job over the same range means the exchange itself has no bars there (maintenance)
+    private static final EnumSet<BackfillStatus> COVERING_STATUSES =
+            EnumSet.of(BackfillStatus.PENDING, BackfillStatus.RUNNING, BackfillStatus.COMPLETED);
+
+    private final CandleRepository candleRepository;
+    private final BackfillJobRepository backfillJobRepository;
+    private final SyncSubscriptionService subscriptionService;
+    private final BackfillService backfillService;
+    private final BinanceProperties properties;
+
+    @Scheduled(initialDelay = 120000, fixedDelay = 300000)
+    public void scanAndRepair() {
+        Instant since = Instant.now().minus(properties.getGapScanLookback());
+        int queued = 0;
+
+        for (SyncSubscription subscription : subscriptionService.getActiveSubscriptions()) {
+            try {
+                queued += repairSeries(subscription.getSymbol(), Timeframe.fromCode(subscription.getTimeframe()), since);
+            } catch (Exception e) {
+                log.error("Gap scan failed for {}/{}: {}", subscription.getSymbol().getCode(),
+                        subscription.getTimeframe(), e.getMessage());
+            }
+        }
+
+        if (queued > 0) {
+            log.info("Gap scan queued {} repair jobs", queued);
+        }
+    }
+
+    private int repairSeries(Symbol symbol, Timeframe timeframe, Instant since) {
+        long step = timeframe.getMillis();
+        List<CandleGap> gaps = candleRepository.findGaps(
+                symbol.getId(), timeframe.name(), since, step, MAX_GAPS_PER_SERIES);
+
+        int queued = 0;
+        for (CandleGap gap : gaps) {
+            // Missing bars open in [lastBefore + step, firstAfter)
+            Instant from = Instant.ofEpochMilli(gap.getLastBefore() + step);
+            Instant to = Instant.ofEpochMilli(gap.getFirstAfter());
+
+            if (backfillJobRepository.existsCovering(symbol, timeframe.name(), from, to, COVERING_STATUSES)) {
+                continue;
+            }
+
+            log.warn("Gap in {}/{}: {} missing bars from {} to {}", symbol.getCode(), timeframe,
+                    (gap.getFirstAfter() - gap.getLastBefore()) / step - 1, from, to);
+            backfillService.enqueue(symbol, timeframe, from, to);
+            queued++;
+        }
+        return queued;
+    }
+}
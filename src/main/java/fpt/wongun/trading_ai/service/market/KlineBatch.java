@@ -0,0 +1,242 @@
+package fpt.wongun.trading_ai.service.market;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Column-oriented, reusable holder for a page of klines. Prices and volume are kept as longs
+ * scaled by {@link #SCALE} (Binance quotes at most 8 decimals), so parsing a 1000-bar page does
+ * not allocate per field. Values that do not fit are spilled to a lazily allocated BigDecimal column.
+ */
+public class KlineBatch {
+
+    public static final int SCALE = 8;
+
+    public static final int OPEN = 0;
+    public static final int HIGH = 1;
+    public static final int LOW = 2;
+    public static final int CLOSE = 3;
+    public static final int VOLUME = 4;
+
+    private static final int DECIMAL_COLUMNS = 5;
+
+    // Marks a cell whose value lives in the spill column
+    static final long SPILLED = Long.MIN_VALUE;
+
+    private int size;
+    private long[] openTime;
+    private long[] closeTime;
+    private final long[][] decimals = new long[DECIMAL_COLUMNS][];
+    private final BigDecimal[][] spill = new BigDecimal[DECIMAL_COLUMNS][];
+
+    public KlineBatch() {
+        this(1000);
+    }
+
+    public KlineBatch(int initialCapacity) {
+        openTime = new long[initialCapacity];
+        closeTime = new long[initialCapacity];
+        for (int c = 0; c < DECIMAL_COLUMNS; c++) {
+            decimals[c] = new long[initialCapacity];
+        }
+    }
+
+    public void clear() {
+        size = 0;
+        for (BigDecimal[] column : spill) {
+            if (column != null) {
+                Arrays.fill(column, null);
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    // Appends an empty row and returns its index; cells are filled with the set* methods
+    public int addRow() {
+        if (size == openTime.length) {
+            grow();
+        }
+        return size++;
+    }
+
+    public void setOpenTime(int row, long value) {
+        openTime[row] = value;
+    }
+
+    public void setCloseTime(int row, long value) {
+        closeTime[row] = value;
+    }
+
+    public void setScaled(int column, int row, long unscaled) {
+        decimals[column][row] = unscaled;
+    }
+
+    public void setDecimal(int column, int row, BigDecimal value) {
+        if (spill[column] == null) {
+            spill[column] = new BigDecimal[openTime.length];
+        }
+        decimals[column][row] = SPILLED;
+        spill[column][row] = value;
+    }
+
+    // Parses a plain decimal string, keeping it scaled when it fits
+    public void setDecimal(int column, int row, String text) {
+        long unscaled = BinanceKlineParser.parseScaled(text.toCharArray(), 0, text.length());
+        if (unscaled == SPILLED) {
+            setDecimal(column, row, new BigDecimal(text));
+        } else {
+            setScaled(column, row, unscaled);
+        }
+    }
+
+    // Appends a copy of another batch's row and returns its index
+    public int copyRow(KlineBatch source, int sourceRow) {
+        int row = addRow();
+        openTime[row] = source.openTime[sourceRow];
+        closeTime[row] = source.closeTime[sourceRow];
+        for (int c = 0; c < DECIMAL_COLUMNS; c++) {
+            long unscaled = source.decimals[c][sourceRow];
+            if (unscaled == SPILLED) {
+                setDecimal(c, row, source.spill[c][sourceRow]);
+            } else {
+                decimals[c][row] = unscaled;
+            }
+        }
+        return row;
+    }
+
+    // Appends a kline, keeping its values scaled when they fit
+    public int addKline(BinanceKline kline) {
+        int row = addRow();
+        openTime[row] = kline.getOpenTime();
+        closeTime[row] = kline.getCloseTime();
+        setValue(OPEN, row, kline.getOpen());
+        setValue(HIGH, row, kline.getHigh());
+        setValue(LOW, row, kline.getLow());
+        setValue(CLOSE, row, kline.getClose());
+        setValue(VOLUME, row, kline.getVolume());
+        return row;
+    }
+
+    // Compacts the batch in place, dropping the given rows and keeping the order of the rest
+    public void removeRows(BitSet rows) {
+        int kept = 0;
+        for (int row = 0; row < size; row++) {
+            if (rows.get(row)) {
+                continue;
+            }
+            if (kept != row) {
+                openTime[kept] = openTime[row];
+                closeTime[kept] = closeTime[row];
+                for (int c = 0; c < DECIMAL_COLUMNS; c++) {
+                    decimals[c][kept] = decimals[c][row];
+                    if (spill[c] != null) {
+                        spill[c][kept] = spill[c][row];
+                    }
+                }
+            }
+            kept++;
+        }
+        for (BigDecimal[] column : spill) {
+            if (column != null) {
+                Arrays.fill(column, kept, size, null);
+            }
+        }
+        size = kept;
+    }
+
+    // This batch if already in open-time order, otherwise a sorted copy keeping the first bar recorded for an open time
+    public KlineBatch sorted() {
+        boolean ordered = true;
+        for (int i = 1; i < size && ordered; i++) {
+            ordered = openTime[i - 1] < openTime[i];
+        }
+        if (ordered) {
+            return this;
+        }
+
+        Integer[] order = new Integer[size];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Long.compare(openTime[a], openTime[b]));
+
+        KlineBatch copy = new KlineBatch(order.length);
+        for (int i : order) {
+            if (!copy.isEmpty() && copy.lastOpenTime() == openTime[i]) {
+                continue;
+            }
+            copy.copyRow(this, i);
+        }
+        return copy;
+    }
+
+    public long openTime(int row) {
+        return openTime[row];
+    }
+
+    public long closeTime(int row) {
+        return closeTime[row];
+    }
+
+    public long lastOpenTime() {
+        return openTime[size - 1];
+    }
+
+    // Unscaled value at SCALE, or SPILLED if the value only exists as a BigDecimal
+    public long scaled(int column, int row) {
+        return decimals[column][row];
+    }
+
+    public BigDecimal decimal(int column, int row) {
+        long unscaled = decimals[column][row];
+        return unscaled == SPILLED ? spill[column][row] : BigDecimal.valueOf(unscaled, SCALE);
+    }
+
+    public BinanceKline toKline(int row) {
+        BinanceKline kline = new BinanceKline();
+        kline.setOpenTime(openTime[row]);
+        kline.setCloseTime(closeTime[row]);
+        kline.setOpen(decimal(OPEN, row));
+        kline.setHigh(decimal(HIGH, row));
+        kline.setLow(decimal(LOW, row));
+        kline.setClose(decimal(CLOSE, row));
+        kline.setVolume(decimal(VOLUME, row));
+        return kline;
+    }
+
+    private void setValue(int column, int row, BigDecimal value) {
+        if (value.stripTrailingZeros().scale() <= SCALE) {
+            try {
+                long unscaled = value.movePointRight(SCALE).longValueExact();
+                if (unscaled != SPILLED) {
+                    decimals[column][row] = unscaled;
+                    return;
+                }
+            } catch (ArithmeticException e) {
+                // Too large for a long at SCALE
+            }
+        }
+        setDecimal(column, row, value);
+    }
+
+    private void grow() {
+        int capacity = Math.max(16, openTime.length * 2);
+        openTime = Arrays.copyOf(openTime, capacity);
+        closeTime = Arrays.copyOf(closeTime, capacity);
+        for (int c = 0; c < DECIMAL_COLUMNS; c++) {
+            decimals[c] = Arrays.copyOf(decimals[c], capacity);
+            if (spill[c] != null) {
+                spill[c] = Arrays.copyOf(spill[c], capacity);
+            }
+        }
+    }
+}
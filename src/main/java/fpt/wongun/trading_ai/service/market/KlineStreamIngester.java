@@ -0,0 +1,173 @@
+package fpt.wongun.trading_ai.service.market;
+
+import fpt.wongun.trading_ai.config.BinanceProperties;
+import fpt.wongun.trading_ai.domain.entity.Symbol;
+import fpt.wongun.trading_ai.domain.entity.SyncSubscription;
+import fpt.wongun.trading_ai.domain.enums.SymbolType;
+import fpt.wongun.trading_ai.repository.CandleRepository;
+import fpt.wongun.trading_ai.service.market.event.CandleEventBus;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Streams klines for every tracked (symbol, timeframe) over the Binance WebSocket API and
+ * applies each update to the candle store as it arrives. Replaces fixed-rate REST polling.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@ConditionalOnExpression("${binance.stream-enabled:true} and '${market-data.source:binance}' == 'binance'")
+public class KlineStreamIngester {
+
+    private final BinanceKlineStreamClient streamClient;
+    private final BinanceClient binanceClient;
+    private final BinanceProperties properties;
+    private final SyncSubscriptionService subscriptionService;
+    private final CandleRepository candleRepository;
+    private final CandleIngestService candleIngestService;
+    private final CandleRollupService rollupService;
+    private final CandleEventBus eventBus;
+
+    // Single worker keeps updates for a series in arrival order and serializes backfill with live updates
+    private final Scheduler ingestScheduler = Schedulers.newSingle("kline-ingest");
+    private final KlineBatch backfillBatch = new KlineBatch();
+
+    private volatile Map<String, Symbol> trackedSymbols = Map.of();
+    private volatile Map<String, Set<String>> trackedSeries = Map.of();
+    private volatile Disposable subscription;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        refreshSubscriptions();
+    }
+
+    // Picks up subscription changes; reconnects only when the stream set actually changed
+    @Scheduled(initialDelay = 60000, fixedDelay = 60000)
+    public synchronized void refreshSubscriptions() {
+        Map<String, Symbol> symbols = new HashMap<>();
+        Map<String, Set<String>> series = new HashMap<>();
+
+        List<SyncSubscription> crypto = subscriptionService.getActiveSubscriptions().stream()
+                .filter(s -> s.getSymbol().getType() == SymbolType.CRYPTO)
+                .toList();
+
+        for (CandleRollupService.SeriesFeed feed : rollupService.planFeeds(crypto)) {
+            Symbol symbol = feed.symbol();
+            symbols.put(symbol.getCode(), symbol);
+            series.computeIfAbsent(symbol.getCode(), code -> new TreeSet<>()).add(feed.timeframe());
+        }
+
+        if (series.equals(trackedSeries) && subscription != null && !subscription.isDisposed()) {
+            return;
+        }
+
+        stop();
+        trackedSymbols = Map.copyOf(symbols);
+        trackedSeries = Map.copyOf(series);
+
+        if (series.isEmpty()) {
+            log.info("No tracked crypto series found. Kline stream idle.");
+            return;
+        }
+
+        List<String> streams = series.entrySet().stream()
+                .flatMap(e -> e.getValue().stream()
+                        .map(tf -> BinanceKlineStreamClient.streamName(
+                                e.getKey(), BinanceClient.mapTimeframeToInterval(tf))))
+                .toList();
+
+        log.info("Starting kline stream for {} series", streams.size());
+
+        subscription = streamClient.stream(streams, () -> ingestScheduler.schedule(this::backfillGaps))
+                .publishOn(ingestScheduler)
+                .subscribe(this::onEvent, e -> log.error("Kline stream terminated: {}", e.getMessage()));
+    }
+
+    @PreDestroy
+    public synchronized void shutdown() {
+        stop();
+        ingestScheduler.dispose();
+    }
+
+    private void stop() {
+        if (subscription != null) {
+            subscription.dispose();
+            subscription = null;
+        }
+    }
+
+    private void onEvent(BinanceKlineEvent event) {
+        Symbol symbol = trackedSymbols.get(event.getSymbol());
+        if (symbol == null) {
+            return;
+        }
+        String timeframe = BinanceClient.mapIntervalToTimeframe(event.getInterval());
+
+        try {
+            candleIngestService.apply(symbol, timeframe, event.getKline(), event.isClosed());
+            eventBus.publish(symbol, timeframe, event.getKline(), event.isClosed());
+        } catch (Exception e) {
+            log.error("Failed to apply kline for {}/{}: {}", event.getSymbol(), timeframe, e.getMessage());
+        }
+    }
+
+    // Runs after every (re)connect: refetches everything from the last stored bar onwards over REST
+    private void backfillGaps() {
+        trackedSeries.forEach((code, timeframes) -> {
+            Symbol symbol = trackedSymbols.get(code);
+            for (String timeframe : timeframes) {
+                try {
+                    backfill(symbol, timeframe);
+                } catch (Exception e) {
+                    log.error("Gap backfill failed for {}/{}: {}", code, timeframe, e.getMessage());
+                }
+            }
+        });
+    }
+
+    private void backfill(Symbol symbol, String timeframe) {
+        Long startTime = candleRepository.findTop1BySymbolAndTimeframeOrderByTimestampDesc(symbol, timeframe)
+                .map(c -> c.getTimestamp().toEpochMilli())
+                .orElse(null);
+        if (startTime == null) {
+            return;
+        }
+        Instant from = Instant.ofEpochMilli(startTime);
+
+        String interval = BinanceClient.mapTimeframeToInterval(timeframe);
+        int limit = properties.getBackfillLimit();
+        int total = 0;
+
+        while (true) {
+            KlineBatch klines = binanceClient.fetchKlines(symbol.getCode(), interval, startTime, limit, backfillBatch);
+            // Page bounds are read before ingest, which drops rejected rows from the batch
+            int fetched = klines.size();
+            long nextStart = fetched > 0 ? klines.lastOpenTime() + 1 : startTime;
+            long now = System.currentTimeMillis();
+            total += candleIngestService.applyAll(symbol, timeframe, klines, now);
+            eventBus.publishAll(symbol, timeframe, klines, now);
+            if (fetched < limit) {
+                break;
+            }
+            startTime = nextStart;
+        }
+
+        log.info("Backfilled {} candles for {}/{} since {}", total, symbol.getCode(), timeframe, from);
+    }
+}
@@ -0,0 +1,149 @@
+package fpt.wongun.trading_ai.service.market;
+
+import fpt.wongun.trading_ai.config.MarketDataProperties;
+import fpt.wongun.trading_ai.domain.enums.CandleDefect;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.EnumMap;
+import java.util.Map;
+
+import static fpt.wongun.trading_ai.service.market.KlineBatch.CLOSE;
+import static fpt.wongun.trading_ai.service.market.KlineBatch.HIGH;
+import static fpt.wongun.trading_ai.service.market.KlineBatch.LOW;
+import static fpt.wongun.trading_ai.service.market.KlineBatch.OPEN;
+import static fpt.wongun.trading_ai.service.market.KlineBatch.SPILLED;
+import static fpt.wongun.trading_ai.service.market.KlineBatch.VOLUME;
+
+/**
+ * Checks klines before they are persisted. It checks that:
+ * <ul>
+ *   <li>values are positive and OHLC is consistent;</li>
+ *   <li>open and close times match the timeframe;</li>
+ *   <li>open times strictly increase;</li>
+ *   <li>the close does not jump too far from the previous accepted close.</li>
+ * </ul>
+ * A {@link KlineBatch} is checked in one pass over its scaled longs. Only spilled cells fall back to BigDecimal.
+ */
+@Component
+public class KlineValidator {
+
+    private final double maxJump;
+    private final Counter checked;
+    private final Counter gaps;
+    private final Map<CandleDefect, Counter> rejected = new EnumMap<>(CandleDefect.class);
+
+    public KlineValidator(MarketDataProperties properties, MeterRegistry meterRegistry) {
+        this.maxJump = properties.getMaxBarJump();
+        this.checked = Counter.builder("candle.validation.checked")
+                .description("Klines checked before persistence")
+                .register(meterRegistry);
+        this.gaps = Counter.builder("candle.validation.gaps")
+                .description("Missing bars between consecutive klines of a page")
+                .register(meterRegistry);
+        for (CandleDefect defect : CandleDefect.values()) {
+            rejected.put(defect, Counter.builder("candle.validation.rejected")
+                    .description("Klines quarantined by the ingest validator")
+                    .tag("defect", defect.name())
+                    .register(meterRegistry));
+        }
+    }
+
+    // Returns null when every row passes, otherwise the defect of each rejected row (null for accepted rows).
+    // stepMillis is 0 for bars that are not on a fixed clock (see BarSpec).
+    public CandleDefect[] validate(KlineBatch batch, long stepMillis) {
+        CandleDefect[] defects = null;
+        long lastOpen = Long.MIN_VALUE;
+        // Scaled close of the last accepted row; 0 when there is no usable reference
+        long lastClose = 0;
+
+        for (int row = 0; row < batch.size(); row++) {
+            CandleDefect defect = check(batch, row, stepMillis, lastOpen, lastClose);
+            if (defect == null) {
+                long openTime = batch.openTime(row);
+                if (stepMillis > 0 && lastOpen != Long.MIN_VALUE && openTime - lastOpen > stepMillis) {
+                    gaps.increment((openTime - lastOpen) / stepMillis - 1);
+                }
+                lastOpen = openTime;
+                long close = batch.scaled(CLOSE, row);
+                lastClose = close == SPILLED ? 0 : close;
+            } else {
+                if (defects == null) {
+                    defects = new CandleDefect[batch.size()];
+                }
+                defects[row] = defect;
+                rejected.get(defect).increment();
+            }
+        }
+        checked.increment(batch.size());
+        return defects;
+    }
+
+    // Single bar (stream events); there is no previous bar to check ordering or jumps against
+    public CandleDefect validate(BinanceKline kline, long stepMillis) {
+        KlineBatch single = new KlineBatch(1);
+        single.addKline(kline);
+        CandleDefect[] defects = validate(single, stepMillis);
+        return defects == null ? null : defects[0];
+    }
+
+    private CandleDefect check(KlineBatch batch, int row, long step, long lastOpen, long lastClose) {
+        long openTime = batch.openTime(row);
+        if (openTime == lastOpen) {
+            return CandleDefect.DUPLICATE_TIMESTAMP;
+        }
+        if (openTime < lastOpen) {
+            return CandleDefect.OUT_OF_ORDER;
+        }
+        long closeTime = batch.closeTime(row);
+        if (step > 0) {
+            if (Math.floorMod(openTime, step) != 0) {
+                return CandleDefect.MISALIGNED;
+            }
+            if (closeTime <= openTime || closeTime >= openTime + step) {
+                return CandleDefect.BAD_CLOSE_TIME;
+            }
+        } else if (closeTime < openTime) {
+            // Tick, volume and range bars only need to end no earlier than they start
+            return CandleDefect.BAD_CLOSE_TIME;
+        }
+
+        long open = batch.scaled(OPEN, row);
+        long high = batch.scaled(HIGH, row);
+        long low = batch.scaled(LOW, row);
+        long close = batch.scaled(CLOSE, row);
+        long volume = batch.scaled(VOLUME, row);
+        if (open == SPILLED || high == SPILLED || low == SPILLED || close == SPILLED || volume == SPILLED) {
+            return checkDecimals(batch, row);
+        }
+
+        if (open <= 0 || high <= 0 || low <= 0 || close <= 0 || volume < 0) {
+            return CandleDefect.NON_POSITIVE_VALUE;
+        }
+        if (high < low || open > high || open < low || close > high || close < low) {
+            return CandleDefect.INCONSISTENT_OHLC;
+        }
+        if (lastClose > 0 && Math.abs(close - lastClose) > maxJump * lastClose) {
+            return CandleDefect.PRICE_JUMP;
+        }
+        return null;
+    }
+
+    private CandleDefect checkDecimals(KlineBatch batch, int row) {
+        BigDecimal open = batch.decimal(OPEN, row);
+        BigDecimal high = batch.decimal(HIGH, row);
+        BigDecimal low = batch.decimal(LOW, row);
+        BigDecimal close = batch.decimal(CLOSE, row);
+        if (open.signum() <= 0 || high.signum() <= 0 || low.signum() <= 0 || close.signum() <= 0
+                || batch.decimal(VOLUME, row).signum() < 0) {
+            return CandleDefect.NON_POSITIVE_VALUE;
+        }
+        if (high.compareTo(low) < 0 || open.compareTo(high) > 0 || open.compareTo(low) < 0
+                || close.compareTo(high) > 0 || close.compareTo(low) < 0) {
+            return CandleDefect.INCONSISTENT_OHLC;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,189 @@
+package fpt.wongun.trading_ai.service.market;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Instant;
+import java.util.Arrays;
+
+/**
+ * Local L2 book for one symbol. Each side is a pair of parallel primitive arrays kept sorted
+ * best-first (bids descending, asks ascending); a diff level is located by binary search and
+ * replaced, inserted or removed in place, so applying updates does not allocate. One ingest thread
+ * writes, API and analysis threads read summaries; both go through the book's monitor.
+ */
+public class OrderBook {
+
+    // Prices are longs scaled by KlineBatch.SCALE
+    static final long PRICE_UNIT = 100_000_000L;
+
+    private final String symbol;
+    private final Side bids;
+    private final Side asks;
+
+    private long lastUpdateId;
+    private long updatedAt;
+    // False until a snapshot is loaded and again while a resync is pending
+    private boolean synced;
+
+    public OrderBook(String symbol, int maxLevels) {
+        this.symbol = symbol;
+        this.bids = new Side(true, maxLevels);
+        this.asks = new Side(false, maxLevels);
+    }
+
+    public String getSymbol() {
+        return symbol;
+    }
+
+    public synchronized long lastUpdateId() {
+        return lastUpdateId;
+    }
+
+    public synchronized boolean isSynced() {
+        return synced;
+    }
+
+    public synchronized void invalidate() {
+        synced = false;
+    }
+
+    // Replaces the whole book with a REST snapshot
+    public synchronized void load(DepthFrame snapshot) {
+        bids.size = 0;
+        asks.size = 0;
+        applyLevels(snapshot);
+        lastUpdateId = snapshot.finalUpdateId();
+        updatedAt = System.currentTimeMillis();
+        synced = true;
+    }
+
+    // Applies a diff event whose sequence the caller has already checked against lastUpdateId
+    public synchronized void apply(DepthFrame diff) {
+        applyLevels(diff);
+        lastUpdateId = diff.finalUpdateId();
+        updatedAt = diff.eventTime() > 0 ? diff.eventTime() : System.currentTimeMillis();
+    }
+
+    private void applyLevels(DepthFrame frame) {
+        DepthFrame.Levels b = frame.bids;
+        for (int i = 0; i < b.size; i++) {
+            bids.set(b.prices[i], b.quantities[i]);
+        }
+        DepthFrame.Levels a = frame.asks;
+        for (int i = 0; i < a.size; i++) {
+            asks.set(a.prices[i], a.quantities[i]);
+        }
+    }
+
+    /**
+     * Best bid/ask, spread, and the quantity resting on each side within {@code distanceBps}
+     * basis points of the mid price. Returns null while the book is not synced or a side is empty.
+     */
+    public synchronized DepthSummary summary(int distanceBps) {
+        if (!synced || bids.size == 0 || asks.size == 0) {
+            return null;
+        }
+        long bestBid = bids.prices[0];
+        long bestAsk = asks.prices[0];
+        long mid = (bestBid + bestAsk) / 2;
+        long offset = mid > Long.MAX_VALUE / 10_000 ? mid / 10_000 * distanceBps : mid * distanceBps / 10_000;
+
+        double bidDepth = 0;
+        for (int i = 0; i < bids.size && bids.prices[i] >= mid - offset; i++) {
+            bidDepth += bids.quantities[i];
+        }
+        double askDepth = 0;
+        for (int i = 0; i < asks.size && asks.prices[i] <= mid + offset; i++) {
+            askDepth += asks.quantities[i];
+        }
+
+        BigDecimal spread = BigDecimal.valueOf(bestAsk - bestBid, KlineBatch.SCALE);
+        return new DepthSummary(
+                symbol,
+                BigDecimal.valueOf(bestBid, KlineBatch.SCALE),
+                BigDecimal.valueOf(bestAsk, KlineBatch.SCALE),
+                spread,
+                spread.multiply(BigDecimal.valueOf(10_000))
+                        .divide(BigDecimal.valueOf(mid, KlineBatch.SCALE), 4, RoundingMode.HALF_UP),
+                distanceBps,
+                BigDecimal.valueOf(bidDepth),
+                BigDecimal.valueOf(askDepth),
+                bids.size,
+                asks.size,
+                lastUpdateId,
+                Instant.ofEpochMilli(updatedAt));
+    }
+
+    private static final class Side {
+
+        private final boolean descending;
+        private final int maxLevels;
+        private long[] prices;
+        private double[] quantities;
+        private int size;
+
+        private Side(boolean descending, int maxLevels) {
+            this.descending = descending;
+            this.maxLevels = maxLevels;
+            int capacity = Math.min(maxLevels, 1024);
+            this.prices = new long[capacity];
+            this.quantities = new double[capacity];
+        }
+
+        // Quantity 0 removes the level
+        private void set(long price, double quantity) {
+            int index = find(price);
+            if (index >= 0) {
+                if (quantity == 0) {
+                    System.arraycopy(prices, index + 1, prices, index, size - index - 1);
+                    System.arraycopy(quantities, index + 1, quantities, index, size - index - 1);
+                    size--;
+                } else {
+                    quantities[index] = quantity;
+                }
+                return;
+            }
+            if (quantity == 0) {
+                return;
+            }
+
+            int insert = -index - 1;
+            if (size == maxLevels) {
+                // Full: the level furthest from the touch makes room, unless the new one is further still
+                if (insert == size) {
+                    return;
+                }
+                size--;
+            } else if (size == prices.length) {
+                int capacity = Math.min(maxLevels, prices.length * 2);
+                prices = Arrays.copyOf(prices, capacity);
+                quantities = Arrays.copyOf(quantities, capacity);
+            }
+            System.arraycopy(prices, insert, prices, insert + 1, size - insert);
+            System.arraycopy(quantities, insert, quantities, insert + 1, size - insert);
+            prices[insert] = price;
+            quantities[insert] = quantity;
+            size++;
+        }
+
+        // Index of the level, or -(insertion point) - 1 as in Arrays.binarySearch
+        private int find(long price) {
+            int low = 0;
+            int high = size - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                long candidate = prices[mid];
+                if (candidate == price) {
+                    return mid;
+                }
+                boolean before = descending ? candidate > price : candidate < price;
+                if (before) {
+                    low = mid + 1;
+                } else {
+                    high = mid - 1;
+                }
+            }
+            return -(low + 1);
+        }
+    }
+}
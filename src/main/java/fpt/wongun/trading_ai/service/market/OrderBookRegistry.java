@@ -0,0 +1,36 @@
+package fpt.wongun.trading_ai.service.market;
+
+import fpt.wongun.trading_ai.config.BinanceProperties;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Local order books by symbol code; empty unless the depth stream ingester is running
+@Component
+@RequiredArgsConstructor
+public class OrderBookRegistry {
+
+    private final BinanceProperties properties;
+    private final Map<String, OrderBook> books = new ConcurrentHashMap<>();
+
+    public OrderBook book(String symbol) {
+        return books.computeIfAbsent(symbol, code -> new OrderBook(code, properties.getDepthMaxLevels()));
+    }
+
+    public void retainAll(Set<String> symbols) {
+        books.keySet().retainAll(symbols);
+    }
+
+    public Optional<DepthSummary> summary(String symbol) {
+        return summary(symbol, properties.getDepthDistanceBps());
+    }
+
+    public Optional<DepthSummary> summary(String symbol, int distanceBps) {
+        OrderBook book = books.get(symbol);
+        return book == null ? Optional.empty() : Optional.ofNullable(book.summary(distanceBps));
+    }
+}
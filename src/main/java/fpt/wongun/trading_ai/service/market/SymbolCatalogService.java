@@ -0,0 +1,99 @@
+package fpt.wongun.trading_ai.service.market;
+
+import fpt.wongun.trading_ai.domain.entity.Symbol;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory copy of the Binance exchange info, keyed by symbol. Loaded at startup and refreshed
+ * hourly; lookups never touch the network. Each load also copies tick size, lot size and min
+ * notional onto the matching {@link Symbol} rows.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SymbolCatalogService {
+
+    private static final String UPDATE_PRECISION_SQL = """
+            UPDATE symbols SET tick_size = ?, lot_size = ?, min_notional = ?, updated_at = now()
+            WHERE code = ? AND (tick_size, lot_size, min_notional) IS DISTINCT FROM (?, ?, ?)
+            """;
+
+    private final BinanceClient binanceClient;
+    private final JdbcTemplate jdbcTemplate;
+
+    // Replaced wholesale on refresh, so readers always see one consistent snapshot
+    private volatile Map<String, BinanceSymbolInfo> catalog = Map.of();
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(1)
+    public void load() {
+        refresh();
+    }
+
+    @Scheduled(initialDelay = 3600000, fixedDelay = 3600000)
+    public void refresh() {
+        try {
+            List<BinanceSymbolInfo> symbols = binanceClient.fetchExchangeInfo();
+            catalog = symbols.stream()
+                    .collect(Collectors.toUnmodifiableMap(BinanceSymbolInfo::symbol, Function.identity(),
+                            (first, second) -> first));
+            int updated = backfillSymbolPrecision();
+            log.info("Loaded exchange info for {} symbols; updated precision on {} tracked symbols",
+                    catalog.size(), updated);
+        } catch (Exception e) {
+            // Keep serving the previous snapshot; the next refresh tries again
+            log.warn("Failed to refresh exchange info (keeping {} cached symbols): {}", catalog.size(), e.getMessage());
+        }
+    }
+
+    public boolean isLoaded() {
+        return !catalog.isEmpty();
+    }
+
+    public boolean isValidSymbol(String code) {
+        BinanceSymbolInfo info = catalog.get(code);
+        return info != null && info.isTrading();
+    }
+
+    public Optional<BinanceSymbolInfo> find(String code) {
+        return Optional.ofNullable(catalog.get(code));
+    }
+
+    // Copies exchange precision onto every stored symbol in one JDBC batch; unchanged rows are not rewritten
+    @Transactional
+    public int backfillSymbolPrecision() {
+        Map<String, BinanceSymbolInfo> snapshot = catalog;
+        List<Object[]> rows = new ArrayList<>();
+        for (String code : jdbcTemplate.queryForList("SELECT code FROM symbols", String.class)) {
+            BinanceSymbolInfo info = snapshot.get(code);
+            if (info != null) {
+                rows.add(new Object[]{info.tickSize(), info.stepSize(), info.minNotional(),
+                        code, info.tickSize(), info.stepSize(), info.minNotional()});
+            }
+        }
+        if (rows.isEmpty()) {
+            return 0;
+        }
+
+        int updated = 0;
+        for (int count : jdbcTemplate.batchUpdate(UPDATE_PRECISION_SQL, rows)) {
+            updated += Math.max(count, 0);
+        }
+        return updated;
+    }
+}
@@ -0,0 +1,113 @@
+package fpt.wongun.trading_ai.service.market;
+
+import fpt.wongun.trading_ai.domain.entity.Symbol;
+import fpt.wongun.trading_ai.domain.entity.SyncSubscription;
+import fpt.wongun.trading_ai.domain.enums.SymbolType;
+import fpt.wongun.trading_ai.dto.SyncSubscriptionDto;
+import fpt.wongun.trading_ai.exception.SymbolNotFoundException;
+import fpt.wongun.trading_ai.repository.CandleRepository;
+import fpt.wongun.trading_ai.repository.SymbolRepository;
+import fpt.wongun.trading_ai.repository.SyncSubscriptionRepository;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Registry of the (symbol, timeframe) series kept in sync with the exchange.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SyncSubscriptionService {
+
+    private final SyncSubscriptionRepository subscriptionRepository;
+    private final SymbolRepository symbolRepository;
+    private final CandleRepository candleRepository;
+    private final SymbolCatalogService symbolCatalogService;
+
+    @Transactional(readOnly = true)
+    public List<SyncSubscription> getActiveSubscriptions() {
+        return subscriptionRepository.findAllActive();
+    }
+
+    @Transactional(readOnly = true)
+    public List<SyncSubscriptionDto> listSubscriptions() {
+        return subscriptionRepository.findAllWithSymbol().stream()
+                .map(this::mapToDto)
+                .toList();
+    }
+
+    // Idempotent: re-enables an existing subscription instead of failing on the unique key
+    @Transactional
+    public SyncSubscriptionDto subscribe(String symbolCode, String timeframe) {
+        Symbol symbol = symbolRepository.findByCode(symbolCode)
+                .orElseThrow(() -> new SymbolNotFoundException(symbolCode));
+
+        if (symbol.getType() == SymbolType.CRYPTO && symbolCatalogService.isLoaded()
+                && !symbolCatalogService.isValidSymbol(symbolCode)) {
+            throw new IllegalArgumentException("Symbol is not trading on Binance: " + symbolCode);
+        }
+
+        SyncSubscription subscription = subscriptionRepository.findBySymbolAndTimeframe(symbol, timeframe)
+                .orElseGet(() -> SyncSubscription.builder()
+                        .symbol(symbol)
+                        .timeframe(timeframe)
+                        .build());
+        subscription.setEnabled(true);
+
+        log.info("Subscribed {}/{} for market data sync", symbolCode, timeframe);
+        return mapToDto(subscriptionRepository.save(subscription));
+    }
+
+    @Transactional
+    public void unsubscribe(Long id) {
+        SyncSubscription subscription = subscriptionRepository.findById(id)
+                .orElseThrow(() -> new EntityNotFoundException("Sync subscription not found with id: " + id));
+        subscription.setEnabled(false);
+        log.info("Disabled sync subscription {}", id);
+    }
+
+    // First start on an existing database: track every crypto series that already has candles
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(0)
+    @Transactional
+    public void seedFromExistingCandles() {
+        if (subscriptionRepository.count() > 0) {
+            return;
+        }
+
+        int seeded = 0;
+        for (Symbol symbol : symbolRepository.findAll()) {
+            if (symbol.getType() != SymbolType.CRYPTO) {
+                continue;
+            }
+            for (String timeframe : candleRepository.findDistinctTimeframesBySymbol(symbol)) {
+                subscriptionRepository.save(SyncSubscription.builder()
+                        .symbol(symbol)
+                        .timeframe(timeframe)
+                        .build());
+                seeded++;
+            }
+        }
+
+        if (seeded > 0) {
+            log.info("Seeded {} sync subscriptions from existing candle series", seeded);
+        }
+    }
+
+    private SyncSubscriptionDto mapToDto(SyncSubscription subscription) {
+        return SyncSubscriptionDto.builder()
+                .id(subscription.getId())
+                .symbolCode(subscription.getSymbol().getCode())
+                .timeframe(subscription.getTimeframe())
+                .enabled(subscription.getEnabled())
+                .build();
+    }
+}
@@ -0,0 +1,202 @@
+package fpt.wongun.trading_ai.service.market;
+
+import fpt.wongun.trading_ai.domain.entity.Symbol;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableMap;
+
+/**
+ * Reads closed candles from the {@link CandleArchive} and the candles table as one series. A range
+ * is split into {@link Span}s: months with an archive file are decoded from it, everything else is
+ * read from Postgres in as few queries as possible. A stale archived month is merged with the rows
+ * the database holds for it, database rows winning, since retention may already have dropped the
+ * rest of that month from Postgres.
+ */
+@Service
+@RequiredArgsConstructor
+public class TieredCandleReader {
+
+    private static final String RANGE_SQL = """
+            SELECT CAST(EXTRACT(EPOCH FROM timestamp) * 1000 AS BIGINT) AS open_time,
+                   open::text, high::text, low::text, close::text, volume::text
+            FROM candles
+            WHERE symbol_id = ? AND timeframe = ? AND timestamp >= ? AND timestamp < ?
+            ORDER BY timestamp
+            """;
+
+    private static final String LATEST_SQL = """
+            SELECT CAST(EXTRACT(EPOCH FROM timestamp) * 1000 AS BIGINT) AS open_time,
+                   open::text, high::text, low::text, close::text, volume::text
+            FROM candles
+            WHERE symbol_id = ? AND timeframe = ?
+            ORDER BY timestamp DESC
+            LIMIT ?
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final CandleArchive candleArchive;
+
+    // Part of a range served by one tier; an archived span never crosses a month boundary
+    public record Span(long from, long to, boolean archived) {
+    }
+
+    // Spans covering [from, to) in order
+    public List<Span> plan(String symbolCode, String timeframe, long from, long to) {
+        List<Span> spans = new ArrayList<>();
+        NavigableMap<YearMonth, Boolean> archived = candleArchive.months(symbolCode, timeframe);
+        if (archived.isEmpty() || from >= to) {
+            if (from < to) {
+                spans.add(new Span(from, to, false));
+            }
+            return spans;
+        }
+
+        long cursor = from;
+        long databaseFrom = -1;
+        while (cursor < to) {
+            YearMonth month = CandleArchive.month(cursor);
+            if (month.isAfter(archived.lastKey())) {
+                break;
+            }
+            if (month.isBefore(archived.firstKey())) {
+                databaseFrom = cursor;
+                cursor = Math.min(to, CandleArchive.start(archived.firstKey()));
+                continue;
+            }
+            long end = Math.min(to, CandleArchive.start(month.plusMonths(1)));
+            if (archived.containsKey(month)) {
+                if (databaseFrom >= 0) {
+                    spans.add(new Span(databaseFrom, cursor, false));
+                    databaseFrom = -1;
+                }
+                spans.add(new Span(cursor, end, true));
+            } else if (databaseFrom < 0) {
+                databaseFrom = cursor;
+            }
+            cursor = end;
+        }
+        if (cursor < to && databaseFrom < 0) {
+            databaseFrom = cursor;
+        }
+        if (databaseFrom >= 0) {
+            spans.add(new Span(databaseFrom, to, false));
+        }
+        return spans;
+    }
+
+    // Closed bars opening in [from, to), in open-time order
+    public KlineBatch read(Symbol symbol, String timeframe, Instant from, Instant to) {
+        KlineBatch batch = new KlineBatch(256);
+        for (Span span : plan(symbol.getCode(), timeframe, from.toEpochMilli(), to.toEpochMilli())) {
+            read(symbol, timeframe, span, batch);
+        }
+        return batch;
+    }
+
+    // Appends the span's bars to out
+    public void read(Symbol symbol, String timeframe, Span span, KlineBatch out) {
+        if (!span.archived()) {
+            readDatabase(symbol.getId(), timeframe, span.from(), span.to(), out);
+            return;
+        }
+        YearMonth month = CandleArchive.month(span.from());
+        if (!Boolean.TRUE.equals(candleArchive.months(symbol.getCode(), timeframe).get(month))) {
+            candleArchive.read(symbol.getCode(), timeframe, month, span.from(), span.to(), out);
+            return;
+        }
+        KlineBatch archivedRows = new KlineBatch(256);
+        KlineBatch databaseRows = new KlineBatch(256);
+        candleArchive.read(symbol.getCode(), timeframe, month, span.from(), span.to(), archivedRows);
+        readDatabase(symbol.getId(), timeframe, span.from(), span.to(), databaseRows);
+        merge(archivedRows, databaseRows, out);
+    }
+
+    // The last count closed bars in open-time order, reaching into the archive when the database has fewer
+    public KlineBatch latest(Symbol symbol, String timeframe, int count) {
+        KlineBatch newest = new KlineBatch(count);
+        long step = Math.max(BarSpec.parse(timeframe).stepMillis(), 1);
+        jdbcTemplate.query(LATEST_SQL, rs -> {
+            addRow(newest, rs.getLong(1), step, rs.getString(2), rs.getString(3), rs.getString(4),
+                    rs.getString(5), rs.getString(6));
+        }, symbol.getId(), timeframe, count);
+        KlineBatch database = newest.sorted();
+        if (database.size() >= count) {
+            return database;
+        }
+
+        long before = database.isEmpty() ? Long.MAX_VALUE : database.openTime(0);
+        NavigableMap<YearMonth, Boolean> archived = candleArchive.months(symbol.getCode(), timeframe);
+        if (!database.isEmpty()) {
+            archived = archived.headMap(CandleArchive.month(before), true);
+        }
+        List<KlineBatch> older = new ArrayList<>();
+        int missing = count - database.size();
+        for (YearMonth month : archived.descendingKeySet()) {
+            if (missing <= 0) {
+                break;
+            }
+            KlineBatch rows = new KlineBatch(256);
+            candleArchive.read(symbol.getCode(), timeframe, month, CandleArchive.start(month), before, rows);
+            older.addFirst(rows);
+            missing -= rows.size();
+        }
+
+        KlineBatch result = new KlineBatch(count);
+        for (KlineBatch rows : older) {
+            for (int row = Math.max(0, -missing); row < rows.size(); row++) {
+                result.copyRow(rows, row);
+            }
+            missing = 0;
+        }
+        for (int row = 0; row < database.size(); row++) {
+            result.copyRow(database, row);
+        }
+        return result;
+    }
+
+    // Appends bars opening in [from, to) from the candles table
+    void readDatabase(long symbolId, String timeframe, long from, long to, KlineBatch out) {
+        long step = Math.max(BarSpec.parse(timeframe).stepMillis(), 1);
+        jdbcTemplate.query(RANGE_SQL, rs -> {
+            addRow(out, rs.getLong(1), step, rs.getString(2), rs.getString(3), rs.getString(4),
+                    rs.getString(5), rs.getString(6));
+        }, symbolId, timeframe, Instant.ofEpochMilli(from).atOffset(ZoneOffset.UTC),
+                Instant.ofEpochMilli(to).atOffset(ZoneOffset.UTC));
+    }
+
+    private static void addRow(KlineBatch batch, long openTime, long step, String open, String high, String low,
+                               String close, String volume) {
+        int row = batch.addRow();
+        batch.setOpenTime(row, openTime);
+        batch.setCloseTime(row, openTime + step - 1);
+        batch.setDecimal(KlineBatch.OPEN, row, open);
+        batch.setDecimal(KlineBatch.HIGH, row, high);
+        batch.setDecimal(KlineBatch.LOW, row, low);
+        batch.setDecimal(KlineBatch.CLOSE, row, close);
+        batch.setDecimal(KlineBatch.VOLUME, row, volume);
+    }
+
+    // Both inputs in open-time order; a bar present in both is taken from the database
+    private static void merge(KlineBatch archived, KlineBatch database, KlineBatch out) {
+        int a = 0;
+        int d = 0;
+        while (a < archived.size() || d < database.size()) {
+            if (d == database.size()
+                    || (a < archived.size() && archived.openTime(a) < database.openTime(d))) {
+                out.copyRow(archived, a++);
+            } else {
+                if (a < archived.size() && archived.openTime(a) == database.openTime(d)) {
+                    a++;
+                }
+                out.copyRow(database, d++);
+            }
+        }
+    }
+}
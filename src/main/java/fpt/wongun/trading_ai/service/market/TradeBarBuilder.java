@@ -0,0 +1,132 @@
+package fpt.wongun.trading_ai.service.market;
+
+import java.math.BigDecimal;
+
+/**
+ * Folds trades into bars of one {@link BarSpec}. Each trade updates the current bar's primitive fields in
+ * constant time; finished bars are appended to a reusable {@link KlineBatch} that the owner drains.
+ * Not thread-safe: one ingest thread feeds it.
+ */
+class TradeBarBuilder {
+
+    private final BarSpec spec;
+    private final KlineBatch completed = new KlineBatch(64);
+
+    private boolean open;
+    private long openTime;
+    private long closeTime;
+    private long openPrice;
+    private long high;
+    private long low;
+    private long close;
+    private long volume;
+    private long trades;
+    private long lastOpenTime = Long.MIN_VALUE;
+    // Trades arrived since the forming bar was last taken
+    private boolean updated;
+
+    TradeBarBuilder(BarSpec spec) {
+        this.spec = spec;
+    }
+
+    BarSpec spec() {
+        return spec;
+    }
+
+    // price and quantity are scaled like KlineBatch; count is the number of trades the aggregate trade represents
+    void onTrade(long time, long price, long quantity, long count) {
+        // The overflow guard closes the bar early rather than let an absurd volume wrap around
+        if (open && (volume > Long.MAX_VALUE - quantity || closesBefore(time, price))) {
+            finish();
+        }
+        if (!open) {
+            start(time, price);
+        }
+        high = Math.max(high, price);
+        low = Math.min(low, price);
+        close = price;
+        volume += quantity;
+        trades += count;
+        updated = true;
+        if (spec.kind() != BarSpec.Kind.TIME) {
+            closeTime = Math.max(closeTime, time);
+        }
+
+        if ((spec.kind() == BarSpec.Kind.TICK && trades >= spec.size())
+                || (spec.kind() == BarSpec.Kind.VOLUME && volume >= spec.size())) {
+            finish();
+        }
+    }
+
+    // Closes a time bar whose period has ended even though no later trade arrived
+    void expire(long now) {
+        if (open && spec.kind() == BarSpec.Kind.TIME && now > closeTime) {
+            finish();
+        }
+    }
+
+    // Drops the bar in progress, e.g. after a stream gap left it missing trades
+    void reset() {
+        open = false;
+    }
+
+    KlineBatch completed() {
+        return completed;
+    }
+
+    // The bar in progress if it changed since the last call, otherwise null
+    BinanceKline takeForming() {
+        if (!open || !updated) {
+            return null;
+        }
+        updated = false;
+        BinanceKline kline = new BinanceKline();
+        kline.setOpenTime(openTime);
+        kline.setCloseTime(closeTime);
+        kline.setOpen(BigDecimal.valueOf(openPrice, KlineBatch.SCALE));
+        kline.setHigh(BigDecimal.valueOf(high, KlineBatch.SCALE));
+        kline.setLow(BigDecimal.valueOf(low, KlineBatch.SCALE));
+        kline.setClose(BigDecimal.valueOf(close, KlineBatch.SCALE));
+        kline.setVolume(BigDecimal.valueOf(volume, KlineBatch.SCALE));
+        return kline;
+    }
+
+    private boolean closesBefore(long time, long price) {
+        return switch (spec.kind()) {
+            case TIME -> time > closeTime;
+            case RANGE -> price - low > spec.size() || high - price > spec.size();
+            case TICK, VOLUME -> false;
+        };
+    }
+
+    private void start(long time, long price) {
+        open = true;
+        if (spec.kind() == BarSpec.Kind.TIME) {
+            openTime = Math.floorDiv(time, spec.size()) * spec.size();
+            closeTime = openTime + spec.size() - 1;
+        } else {
+            // Candles are keyed by open time, so two bars starting in the same millisecond are pushed apart
+            openTime = Math.max(time, lastOpenTime + 1);
+            closeTime = openTime;
+        }
+        openPrice = price;
+        high = price;
+        low = price;
+        close = price;
+        volume = 0;
+        trades = 0;
+    }
+
+    private void finish() {
+        int row = completed.addRow();
+        completed.setOpenTime(row, openTime);
+        completed.setCloseTime(row, closeTime);
+        completed.setScaled(KlineBatch.OPEN, row, openPrice);
+        completed.setScaled(KlineBatch.HIGH, row, high);
+        completed.setScaled(KlineBatch.LOW, row, low);
+        completed.setScaled(KlineBatch.CLOSE, row, close);
+        completed.setScaled(KlineBatch.VOLUME, row, volume);
+        lastOpenTime = openTime;
+        open = false;
+    }
+}
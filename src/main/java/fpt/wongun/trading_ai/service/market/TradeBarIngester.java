@@ -0,0 +1,211 @@
+package fpt.wongun.trading_ai.service.market;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import fpt.wongun.trading_ai.config.BinanceProperties;
+import fpt.wongun.trading_ai.domain.entity.Symbol;
+import fpt.wongun.trading_ai.domain.enums.Timeframe;
+import fpt.wongun.trading_ai.repository.SymbolRepository;
+import fpt.wongun.trading_ai.service.market.event.CandleEventBus;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Builds the series listed in {@code binance.trade-bars} from the Binance aggregated trade stream:
+ * time bars on any period (M2, H2) plus tick, volume and range bars. Each trade is folded into its
+ * symbol's builders in constant time. Once a second, finished bars are stored as closed candles under
+ * the bar code as timeframe, and the bars in progress go to the forming bar store.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@ConditionalOnExpression("'${binance.trade-bars:}' != '' and '${market-data.source:binance}' == 'binance'")
+public class TradeBarIngester {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+    private static final long FLUSH_INTERVAL_MILLIS = 1000;
+
+    private final BinanceKlineStreamClient streamClient;
+    private final BinanceProperties properties;
+    private final SymbolRepository symbolRepository;
+    private final CandleIngestService candleIngestService;
+    private final FormingBarStore formingBarStore;
+    private final CandleEventBus eventBus;
+
+    // Single worker owns every builder: trades, flushes and resets never interleave
+    private final Scheduler ingestScheduler = Schedulers.newSingle("trade-ingest");
+
+    private volatile Map<String, List<SeriesBuilder>> builders = Map.of();
+    private Disposable subscription;
+    private Disposable flushTask;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void start() {
+        Map<String, List<SeriesBuilder>> bySymbol = new HashMap<>();
+        for (String entry : properties.getTradeBars()) {
+            SeriesBuilder series = resolve(entry.trim());
+            if (series != null) {
+                bySymbol.computeIfAbsent(series.symbol().getCode(), code -> new ArrayList<>()).add(series);
+            }
+        }
+        if (bySymbol.isEmpty()) {
+            log.info("No valid trade bar series configured. Trade stream idle.");
+            return;
+        }
+        builders = Map.copyOf(bySymbol);
+
+        List<String> streams = builders.keySet().stream()
+                .map(code -> code.toLowerCase() + "@aggTrade")
+                .toList();
+        log.info("Starting aggTrade stream for {} symbols, building {} series", streams.size(),
+                properties.getTradeBars().size());
+
+        // Trades missed while disconnected would leave the bars in progress incomplete
+        subscription = streamClient.frames(streams, () -> ingestScheduler.schedule(this::resetBars))
+                .publishOn(ingestScheduler)
+                .subscribe(this::onFrame, e -> log.error("Trade stream terminated: {}", e.getMessage()));
+        flushTask = ingestScheduler.schedulePeriodically(this::flush,
+                FLUSH_INTERVAL_MILLIS, FLUSH_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public synchronized void shutdown() {
+        if (subscription != null) {
+            subscription.dispose();
+        }
+        if (flushTask != null) {
+            flushTask.dispose();
+        }
+        ingestScheduler.dispose();
+    }
+
+    private SeriesBuilder resolve(String entry) {
+        int separator = entry.indexOf(':');
+        if (separator <= 0) {
+            log.warn("Ignoring trade bar series '{}': expected SYMBOL:CODE", entry);
+            return null;
+        }
+        String code = entry.substring(0, separator).toUpperCase();
+        String barCode = entry.substring(separator + 1).toUpperCase();
+
+        // Exchange timeframes already arrive as klines; building them here would write the same series twice
+        if (Arrays.stream(Timeframe.values()).anyMatch(tf -> tf.name().equals(barCode))) {
+            log.warn("Ignoring trade bar series '{}': {} is an exchange timeframe, subscribe to it instead", entry, barCode);
+            return null;
+        }
+        BarSpec spec;
+        try {
+            spec = BarSpec.parse(barCode);
+        } catch (IllegalArgumentException e) {
+            log.warn("Ignoring trade bar series '{}': {}", entry, e.getMessage());
+            return null;
+        }
+        return symbolRepository.findByCode(code)
+                .map(symbol -> new SeriesBuilder(symbol, new TradeBarBuilder(spec)))
+                .orElseGet(() -> {
+                    log.warn("Ignoring trade bar series '{}': unknown symbol {}", entry, code);
+                    return null;
+                });
+    }
+
+    // {"e":"aggTrade","s":"BTCUSDT","p":"93576.01","q":"0.012","f":100,"l":105,"T":1735689600123,...}
+    private void onFrame(String payload) {
+        String symbol = null;
+        long price = KlineBatch.SPILLED;
+        long quantity = KlineBatch.SPILLED;
+        long firstTradeId = 0;
+        long lastTradeId = 0;
+        long tradeTime = 0;
+
+        try (JsonParser parser = JSON_FACTORY.createParser(payload)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                switch (field) {
+                    case "s" -> symbol = parser.getText();
+                    case "p" -> price = BinanceKlineParser.parseScaled(
+                            parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength());
+                    case "q" -> quantity = BinanceKlineParser.parseScaled(
+                            parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength());
+                    case "f" -> firstTradeId = parser.getLongValue();
+                    case "l" -> lastTradeId = parser.getLongValue();
+                    case "T" -> tradeTime = parser.getLongValue();
+                    default -> {
+                        if (value.isStructStart()) {
+                            parser.skipChildren();
+                        }
+                    }
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Skipping unparseable trade frame: {}", e.getMessage());
+            return;
+        }
+
+        List<SeriesBuilder> series = symbol == null ? null : builders.get(symbol);
+        if (series == null || price == KlineBatch.SPILLED || quantity == KlineBatch.SPILLED || tradeTime == 0) {
+            return;
+        }
+        long trades = Math.max(1, lastTradeId - firstTradeId + 1);
+        for (SeriesBuilder builder : series) {
+            builder.builder().onTrade(tradeTime, price, quantity, trades);
+        }
+    }
+
+    private void flush() {
+        long now = System.currentTimeMillis();
+        builders.values().forEach(series -> series.forEach(builder -> flush(builder, now)));
+    }
+
+    private void flush(SeriesBuilder series, long now) {
+        Symbol symbol = series.symbol();
+        TradeBarBuilder builder = series.builder();
+        String timeframe = builder.spec().code();
+        builder.expire(now);
+
+        KlineBatch completed = builder.completed();
+        try {
+            if (!completed.isEmpty()) {
+                // Every finished bar is closed, whatever its close time
+                candleIngestService.applyAll(symbol, timeframe, completed, Long.MAX_VALUE);
+                eventBus.publishAll(symbol, timeframe, completed, Long.MAX_VALUE);
+            }
+            BinanceKline forming = builder.takeForming();
+            if (forming != null) {
+                formingBarStore.put(symbol.getId(), timeframe, forming);
+                eventBus.publish(symbol, timeframe, forming, false);
+            }
+        } catch (Exception e) {
+            log.error("Failed to store {} bars for {}: {}", timeframe, symbol.getCode(), e.getMessage());
+        } finally {
+            completed.clear();
+        }
+    }
+
+    private void resetBars() {
+        builders.values().forEach(series -> series.forEach(builder -> builder.builder().reset()));
+    }
+
+    private record SeriesBuilder(Symbol symbol, TradeBarBuilder builder) {
+    }
+}
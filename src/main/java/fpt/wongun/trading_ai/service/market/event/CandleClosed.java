@@ -0,0 +1,8 @@
+package fpt.wongun.trading_ai.service.market.event;
+
+import fpt.wongun.trading_ai.domain.entity.Symbol;
+import fpt.wongun.trading_ai.service.market.BinanceKline;
+
+// Final values of a bar; published at most once per (symbol, timeframe, open time)
+public record CandleClosed(Symbol symbol, String timeframe, BinanceKline kline) implements CandleEvent {
+}
@@ -0,0 +1,14 @@
+package fpt.wongun.trading_ai.service.market.event;
+
+import fpt.wongun.trading_ai.domain.entity.Symbol;
+import fpt.wongun.trading_ai.service.market.BinanceKline;
+
+// A bar that just landed in the candle store
+public sealed interface CandleEvent permits CandleClosed, CandleUpdated {
+
+    Symbol symbol();
+
+    String timeframe();
+
+    BinanceKline kline();
+}
@@ -0,0 +1,304 @@
+package fpt.wongun.trading_ai.service.market.event;
+
+import fpt.wongun.trading_ai.config.MarketDataProperties;
+import fpt.wongun.trading_ai.domain.entity.Symbol;
+import fpt.wongun.trading_ai.service.market.BinanceKline;
+import fpt.wongun.trading_ai.service.market.KlineBatch;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-process bus for candle events from the ingest path. Each (symbol, timeframe) hashes to one of a
+ * fixed number of lanes, each a bounded queue drained by its own thread, so a series is always delivered
+ * in order while different series proceed in parallel.
+ * <p>
+ * Backpressure: a closed bar is never dropped; the publisher blocks until its lane has space, logging
+ * each time it has waited {@code market-data.event-publish-timeout}. A listener publishing from a lane
+ * thread cannot wait, so its closed bar is queued past the lane's capacity instead, still in order and
+ * still delivered by the lane's own thread. Forming-bar updates are dropped when the lane is full, the
+ * next update supersedes them anyway.
+ */
+@Slf4j
+@Component
+public class CandleEventBus {
+
+    // No open time is this small, so it never collides with a real previous watermark
+    private static final long ALREADY_ANNOUNCED = Long.MIN_VALUE + 1;
+
+    private final ObjectProvider<CandleEventListener> listenerProvider;
+    private final Lane[] lanes;
+    private final long publishTimeoutNanos;
+
+    // Newest closed open time per series, so re-fetched bars are not announced twice
+    private final Map<SeriesKey, AtomicLong> lastClosed = new ConcurrentHashMap<>();
+
+    private volatile List<CandleEventListener> listeners;
+
+    private final Counter closedPublished;
+    private final Counter updatedPublished;
+    private final Counter dropped;
+
+    public CandleEventBus(ObjectProvider<CandleEventListener> listenerProvider,
+                          MarketDataProperties properties,
+                          MeterRegistry meterRegistry) {
+        this.listenerProvider = listenerProvider;
+        this.publishTimeoutNanos = properties.getEventPublishTimeout().toNanos();
+        this.lanes = new Lane[properties.getEventLanes()];
+        for (int i = 0; i < lanes.length; i++) {
+            lanes[i] = new Lane(i, properties.getEventQueueCapacity());
+        }
+
+        this.closedPublished = Counter.builder("candle.events.published").tag("type", "closed")
+                .register(meterRegistry);
+        this.updatedPublished = Counter.builder("candle.events.published").tag("type", "updated")
+                .register(meterRegistry);
+        this.dropped = Counter.builder("candle.events.dropped")
+                .description("Events discarded because their lane queue stayed full")
+                .register(meterRegistry);
+        Gauge.builder("candle.events.queued", this, CandleEventBus::queued)
+                .description("Events waiting across all lanes")
+                .register(meterRegistry);
+    }
+
+    public void publish(Symbol symbol, String timeframe, BinanceKline kline, boolean closed) {
+        SeriesKey key = new SeriesKey(symbol.getId(), timeframe);
+        AtomicLong last = lastClosed.computeIfAbsent(key, k -> new AtomicLong(Long.MIN_VALUE));
+        long openTime = kline.getOpenTime();
+
+        if (closed) {
+            long previous = advance(last, openTime);
+            if (previous == ALREADY_ANNOUNCED) {
+                return;
+            }
+            if (!enqueueClosed(key, new CandleClosed(symbol, timeframe, kline))) {
+                // Interrupted before the bar was queued: let a later publish announce it again
+                last.compareAndSet(openTime, previous);
+            }
+        } else if (openTime > last.get()) {
+            enqueueUpdate(key, new CandleUpdated(symbol, timeframe, kline));
+        }
+    }
+
+    // Rows closing before closedBefore are announced as closed; of the rest only the newest can still be forming
+    public void publishAll(Symbol symbol, String timeframe, KlineBatch batch, long closedBefore) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        AtomicLong last = lastClosed.computeIfAbsent(new SeriesKey(symbol.getId(), timeframe),
+                k -> new AtomicLong(Long.MIN_VALUE));
+        int newest = batch.size() - 1;
+        for (int i = 0; i <= newest; i++) {
+            boolean closed = batch.closeTime(i) < closedBefore;
+            // Skip already-announced bars before materializing them
+            if (batch.openTime(i) <= last.get() || (!closed && i != newest)) {
+                continue;
+            }
+            publish(symbol, timeframe, batch.toKline(i), closed);
+        }
+    }
+
+    public void publishAll(Symbol symbol, String timeframe, List<BinanceKline> klines, long closedBefore) {
+        for (BinanceKline kline : klines) {
+            publish(symbol, timeframe, kline, kline.getCloseTime() < closedBefore);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (Lane lane : lanes) {
+            lane.thread.interrupt();
+        }
+    }
+
+    private int queued() {
+        int total = 0;
+        for (Lane lane : lanes) {
+            total += lane.size();
+        }
+        return total;
+    }
+
+    // Moves the watermark to openTime and returns the previous one, or ALREADY_ANNOUNCED if it was not newer
+    private static long advance(AtomicLong last, long openTime) {
+        long current;
+        do {
+            current = last.get();
+            if (openTime <= current) {
+                return ALREADY_ANNOUNCED;
+            }
+        } while (!last.compareAndSet(current, openTime));
+        return current;
+    }
+
+    // Returns false only if the publishing thread was interrupted while waiting for space
+    private boolean enqueueClosed(SeriesKey key, CandleEvent event) {
+        Lane lane = lane(key);
+        if (isLaneThread()) {
+            // A listener publishing from a lane thread must not wait on a lane (possibly its own) to drain
+            lane.overflow(event);
+            closedPublished.increment();
+            return true;
+        }
+        try {
+            while (!lane.offer(event, publishTimeoutNanos)) {
+                log.warn("Candle event lane {} full; still waiting to queue closed bar {}/{} at {}", lane.index,
+                        event.symbol().getCode(), event.timeframe(), event.kline().getOpenTime());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            dropped.increment();
+            return false;
+        }
+        closedPublished.increment();
+        return true;
+    }
+
+    private void enqueueUpdate(SeriesKey key, CandleEvent event) {
+        boolean queued;
+        try {
+            queued = lane(key).offer(event, 0);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            queued = false;
+        }
+        if (queued) {
+            updatedPublished.increment();
+        } else {
+            dropped.increment();
+        }
+    }
+
+    private boolean isLaneThread() {
+        Thread current = Thread.currentThread();
+        for (Lane lane : lanes) {
+            if (lane.thread == current) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Lane lane(SeriesKey key) {
+        return lanes[Math.floorMod(key.hashCode(), lanes.length)];
+    }
+
+    private List<CandleEventListener> listeners() {
+        List<CandleEventListener> resolved = listeners;
+        if (resolved == null) {
+            resolved = listenerProvider.orderedStream().toList();
+            listeners = resolved;
+        }
+        return resolved;
+    }
+
+    private void dispatch(CandleEvent event) {
+        for (CandleEventListener listener : listeners()) {
+            try {
+                switch (event) {
+                    case CandleClosed closed -> listener.onCandleClosed(closed);
+                    case CandleUpdated updated -> listener.onCandleUpdated(updated);
+                }
+            } catch (Exception e) {
+                log.error("Candle listener {} failed for {}/{}: {}", listener.getClass().getSimpleName(),
+                        event.symbol().getCode(), event.timeframe(), e.getMessage());
+            }
+        }
+    }
+
+    private record SeriesKey(Long symbolId, String timeframe) {
+    }
+
+    // One FIFO per lane: bounded for outside publishers, but lane threads may append past capacity, so
+    // every event of a series keeps its place in line and is delivered by this lane's thread
+    private final class Lane implements Runnable {
+
+        private final int index;
+        private final int capacity;
+        private final Deque<CandleEvent> events = new ArrayDeque<>();
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition notEmpty = lock.newCondition();
+        private final Condition notFull = lock.newCondition();
+        private final Thread thread;
+
+        Lane(int index, int capacity) {
+            this.index = index;
+            this.capacity = capacity;
+            this.thread = Thread.ofPlatform().name("candle-events-" + index).daemon().start(this);
+        }
+
+        // Waits up to timeoutNanos for space; false if the lane stayed full
+        boolean offer(CandleEvent event, long timeoutNanos) throws InterruptedException {
+            lock.lockInterruptibly();
+            try {
+                while (events.size() >= capacity) {
+                    if (timeoutNanos <= 0) {
+                        return false;
+                    }
+                    timeoutNanos = notFull.awaitNanos(timeoutNanos);
+                }
+                events.addLast(event);
+                notEmpty.signal();
+                return true;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void overflow(CandleEvent event) {
+            lock.lock();
+            try {
+                events.addLast(event);
+                notEmpty.signal();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        int size() {
+            lock.lock();
+            try {
+                return events.size();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private CandleEvent take() throws InterruptedException {
+            lock.lockInterruptibly();
+            try {
+                while (events.isEmpty()) {
+                    notEmpty.await();
+                }
+                notFull.signal();
+                return events.pollFirst();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public void run() {
+            while (!Thread.currentThread().isInterrupted()) {
+                try {
+                    dispatch(take());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package fpt.wongun.trading_ai.service.market.event;
+
+/**
+ * Consumer of candle events; every bean implementing this is registered with {@link CandleEventBus}.
+ * Calls for one (symbol, timeframe) arrive in order on a single lane thread, so implementations
+ * must return quickly and must not block on the bus themselves.
+ */
+public interface CandleEventListener {
+
+    default void onCandleClosed(CandleClosed event) {
+    }
+
+    default void onCandleUpdated(CandleUpdated event) {
+    }
+}
@@ -0,0 +1,8 @@
+package fpt.wongun.trading_ai.service.market.event;
+
+import fpt.wongun.trading_ai.domain.entity.Symbol;
+import fpt.wongun.trading_ai.service.market.BinanceKline;
+
+// New values of the bar that is still forming; may be dropped under load since the next update supersedes it
+public record CandleUpdated(Symbol symbol, String timeframe, BinanceKline kline) implements CandleEvent {
+}
@@ -0,0 +1,43 @@
+package fpt.wongun.trading_ai.service.market.source;
+
+import fpt.wongun.trading_ai.domain.enums.Timeframe;
+import fpt.wongun.trading_ai.service.market.BinanceClient;
+import fpt.wongun.trading_ai.service.market.KlineBatch;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.Map;
+
+@Component
+@ConditionalOnProperty(prefix = "market-data", name = "source", havingValue = "binance", matchIfMissing = true)
+@RequiredArgsConstructor
+public class BinanceMarketDataSource implements MarketDataSource {
+
+    private final BinanceClient binanceClient;
+
+    @Override
+    public String getName() {
+        return "binance";
+    }
+
+    @Override
+    public KlineBatch fetchKlines(String symbol, Timeframe timeframe, Long startTime, Long endTime, int limit,
+                                  KlineBatch batch) {
+        return binanceClient.fetchKlines(symbol, timeframe.getBinanceInterval(), startTime, endTime, limit, batch);
+    }
+
+    @Override
+    public Mono<KlineBatch> fetchKlinesAsync(String symbol, Timeframe timeframe, Long startTime, Long endTime,
+                                             int limit, KlineBatch batch) {
+        return binanceClient.fetchKlinesAsync(symbol, timeframe.getBinanceInterval(), startTime, endTime, limit, batch);
+    }
+
+    @Override
+    public Mono<Map<String, BigDecimal>> fetchLastPrices(Collection<String> symbols) {
+        return binanceClient.fetchLastPricesAsync(symbols);
+    }
+}
@@ -0,0 +1,57 @@
+package fpt.wongun.trading_ai.service.market.source;
+
+import fpt.wongun.trading_ai.domain.enums.Timeframe;
+import fpt.wongun.trading_ai.service.market.BinanceKline;
+import fpt.wongun.trading_ai.service.market.KlineBatch;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Source of historical and recent klines. The active implementation is selected with
+ * {@code market-data.source}: the Binance REST API, a file replay or a synthetic generator.
+ */
+public interface MarketDataSource {
+
+    String getName();
+
+    // Market time of the source: bars closing before it are final. Replay and synthetic feeds run a virtual clock
+    default long currentTimeMillis() {
+        return System.currentTimeMillis();
+    }
+
+    /**
+     * Clears {@code batch} and fills it with up to {@code limit} bars in open-time order. Bars open at or after
+     * {@code startTime} and at or before {@code endTime}; with no start time the latest bars are returned.
+     */
+    KlineBatch fetchKlines(String symbol, Timeframe timeframe, Long startTime, Long endTime, int limit, KlineBatch batch);
+
+    // Sources that do I/O override this; the in-memory ones simply compute the page on subscription
+    default Mono<KlineBatch> fetchKlinesAsync(String symbol, Timeframe timeframe, Long startTime, Long endTime,
+                                              int limit, KlineBatch batch) {
+        return Mono.fromCallable(() -> fetchKlines(symbol, timeframe, startTime, endTime, limit, batch));
+    }
+
+    // Last price per symbol; the default reads the close of each symbol's latest M1 bar
+    default Mono<Map<String, BigDecimal>> fetchLastPrices(Collection<String> symbols) {
+        return Flux.fromIterable(symbols)
+                .flatMap(symbol -> fetchKlinesAsync(symbol, Timeframe.M1, null, null, 1, new KlineBatch(1))
+                        .filter(batch -> !batch.isEmpty())
+                        .map(batch -> Map.entry(symbol, batch.decimal(KlineBatch.CLOSE, 0))))
+                .collectMap(Map.Entry::getKey, Map.Entry::getValue);
+    }
+
+    default List<BinanceKline> fetchKlines(String symbol, Timeframe timeframe, int limit) {
+        KlineBatch batch = fetchKlines(symbol, timeframe, null, null, limit, new KlineBatch(limit));
+        List<BinanceKline> klines = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            klines.add(batch.toKline(i));
+        }
+        return klines;
+    }
+}
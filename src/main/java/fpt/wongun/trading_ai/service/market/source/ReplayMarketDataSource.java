@@ -0,0 +1,192 @@
+package fpt.wongun.trading_ai.service.market.source;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import fpt.wongun.trading_ai.config.MarketDataProperties;
+import fpt.wongun.trading_ai.domain.enums.Timeframe;
+import fpt.wongun.trading_ai.exception.MarketDataException;
+import fpt.wongun.trading_ai.service.market.KlineBatch;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Replays recorded bars from a CSV or NDJSON file. A bar becomes visible once the virtual clock,
+ * which starts at the earliest bar and runs at {@code market-data.speed}, passes its close time, so
+ * callers never see a bar's final values while it is still open in replay time.
+ * <p>
+ * CSV needs a header naming the columns {@code symbol,timeframe,openTime,open,high,low,close,volume};
+ * NDJSON lines are objects with the same fields. Open times are epoch millis or ISO-8601 instants.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "market-data", name = "source", havingValue = "replay")
+public class ReplayMarketDataSource implements MarketDataSource {
+
+    private static final String[] DECIMAL_FIELDS = {"open", "high", "low", "close", "volume"};
+    private static final int[] DECIMAL_COLUMNS =
+            {KlineBatch.OPEN, KlineBatch.HIGH, KlineBatch.LOW, KlineBatch.CLOSE, KlineBatch.VOLUME};
+
+    private final Map<String, KlineBatch> series;
+    private final VirtualClock clock;
+
+    public ReplayMarketDataSource(MarketDataProperties properties, ObjectMapper objectMapper) {
+        if (properties.getReplayFile() == null || properties.getReplayFile().isBlank()) {
+            throw new MarketDataException("market-data.replay-file is required for the replay source");
+        }
+        Path file = Path.of(properties.getReplayFile());
+        try {
+            this.series = load(file, objectMapper);
+        } catch (IOException e) {
+            throw new MarketDataException("Failed to load replay file " + file + ": " + e.getMessage(), e);
+        }
+
+        long origin = series.values().stream()
+                .filter(batch -> !batch.isEmpty())
+                .mapToLong(batch -> batch.openTime(0))
+                .min()
+                .orElse(System.currentTimeMillis());
+        this.clock = new VirtualClock(origin, properties.getSpeed());
+
+        log.info("Loaded {} replay series from {}, starting at {} ({}x)",
+                series.size(), file, Instant.ofEpochMilli(origin), properties.getSpeed());
+    }
+
+    @Override
+    public String getName() {
+        return "replay";
+    }
+
+    @Override
+    public long currentTimeMillis() {
+        return clock.millis();
+    }
+
+    @Override
+    public KlineBatch fetchKlines(String symbol, Timeframe timeframe, Long startTime, Long endTime, int limit,
+                                  KlineBatch batch) {
+        batch.clear();
+        KlineBatch bars = series.get(key(symbol, timeframe));
+        if (bars == null) {
+            return batch;
+        }
+
+        // Bars opening at or before this have closed
+        long closedUntil = clock.millis() - timeframe.getMillis();
+        long visibleUntil = endTime != null ? Math.min(endTime, closedUntil) : closedUntil;
+        int end = upperBound(bars, visibleUntil);
+        int from = startTime != null ? upperBound(bars, startTime - 1) : Math.max(0, end - limit);
+        int to = Math.min(end, from + limit);
+
+        for (int i = from; i < to; i++) {
+            batch.copyRow(bars, i);
+        }
+        return batch;
+    }
+
+    // Index of the first bar opening after the given time
+    private static int upperBound(KlineBatch bars, long time) {
+        int lo = 0;
+        int hi = bars.size();
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (bars.openTime(mid) <= time) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    private static String key(String symbol, Timeframe timeframe) {
+        return symbol.toUpperCase() + ":" + timeframe.name();
+    }
+
+    private static Map<String, KlineBatch> load(Path file, ObjectMapper objectMapper) throws IOException {
+        Map<String, KlineBatch> loaded = new HashMap<>();
+        boolean ndjson = file.getFileName().toString().endsWith(".ndjson")
+                || file.getFileName().toString().endsWith(".jsonl");
+
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            Map<String, Integer> header = ndjson ? null : readHeader(reader.readLine());
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                if (ndjson) {
+                    addJsonRow(loaded, objectMapper.readTree(line));
+                } else {
+                    addCsvRow(loaded, header, line.split(",", -1));
+                }
+            }
+        }
+
+        loaded.replaceAll((key, batch) -> batch.sorted());
+        return loaded;
+    }
+
+    private static Map<String, Integer> readHeader(String line) {
+        if (line == null) {
+            return Map.of();
+        }
+        Map<String, Integer> header = new HashMap<>();
+        String[] names = line.split(",");
+        for (int i = 0; i < names.length; i++) {
+            header.put(names[i].trim(), i);
+        }
+        return header;
+    }
+
+    private static void addCsvRow(Map<String, KlineBatch> loaded, Map<String, Integer> header, String[] cells) {
+        String[] decimals = new String[DECIMAL_FIELDS.length];
+        for (int c = 0; c < DECIMAL_FIELDS.length; c++) {
+            decimals[c] = cells[column(header, DECIMAL_FIELDS[c])].trim();
+        }
+        addRow(loaded, cells[column(header, "symbol")].trim(), cells[column(header, "timeframe")].trim(),
+                cells[column(header, "openTime")].trim(), decimals);
+    }
+
+    private static void addJsonRow(Map<String, KlineBatch> loaded, JsonNode node) {
+        String[] decimals = new String[DECIMAL_FIELDS.length];
+        for (int c = 0; c < DECIMAL_FIELDS.length; c++) {
+            decimals[c] = node.path(DECIMAL_FIELDS[c]).asText();
+        }
+        addRow(loaded, node.path("symbol").asText(), node.path("timeframe").asText(),
+                node.path("openTime").asText(), decimals);
+    }
+
+    private static int column(Map<String, Integer> header, String name) {
+        Integer index = header.get(name);
+        if (index == null) {
+            throw new MarketDataException("Replay CSV header is missing column: " + name);
+        }
+        return index;
+    }
+
+    private static void addRow(Map<String, KlineBatch> loaded, String symbol, String timeframeCode,
+                               String openTimeText, String[] decimals) {
+        Timeframe timeframe = Timeframe.fromCode(timeframeCode);
+        long openTime = openTimeText.chars().allMatch(Character::isDigit)
+                ? Long.parseLong(openTimeText)
+                : Instant.parse(openTimeText).toEpochMilli();
+
+        KlineBatch batch = loaded.computeIfAbsent(key(symbol, timeframe), k -> new KlineBatch());
+        int row = batch.addRow();
+        batch.setOpenTime(row, openTime);
+        batch.setCloseTime(row, openTime + timeframe.getMillis() - 1);
+        for (int c = 0; c < decimals.length; c++) {
+            batch.setDecimal(DECIMAL_COLUMNS[c], row, decimals[c]);
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package fpt.wongun.trading_ai.service.market.source;
+
+import fpt.wongun.trading_ai.config.MarketDataProperties;
+import fpt.wongun.trading_ai.domain.enums.Timeframe;
+import fpt.wongun.trading_ai.service.market.KlineBatch;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Generates a seeded random walk per (symbol, timeframe). Each bar's shocks depend only on the seed,
+ * the series and the bar index, so refetching a range always returns the same bars. Only bars the
+ * virtual clock has closed are returned.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "market-data", name = "source", havingValue = "synthetic")
+public class SyntheticMarketDataSource implements MarketDataSource {
+
+    private static final double PRICE_SCALE = 1e8;
+
+    private final MarketDataProperties properties;
+    private final long originMillis;
+    private final VirtualClock clock;
+
+    // Recent closes per series, keyed by symbol and timeframe
+    private final Map<String, Walk> walks = new ConcurrentHashMap<>();
+
+    public SyntheticMarketDataSource(MarketDataProperties properties) {
+        this.properties = properties;
+        long now = System.currentTimeMillis();
+        this.originMillis = now - properties.getSyntheticHistoryBars() * Timeframe.M1.getMillis();
+        this.clock = new VirtualClock(now, properties.getSpeed());
+
+        log.info("Synthetic market data seeded with {} at {}x", properties.getSyntheticSeed(), properties.getSpeed());
+    }
+
+    @Override
+    public String getName() {
+        return "synthetic";
+    }
+
+    @Override
+    public long currentTimeMillis() {
+        return clock.millis();
+    }
+
+    @Override
+    public KlineBatch fetchKlines(String symbol, Timeframe timeframe, Long startTime, Long endTime, int limit,
+                                  KlineBatch batch) {
+        batch.clear();
+
+        long step = timeframe.getMillis();
+        long seriesOrigin = Math.floorDiv(originMillis, step) * step;
+        // The bar holding the clock is still forming
+        long last = Math.floorDiv(clock.millis() - seriesOrigin, step) - 1;
+        if (endTime != null) {
+            last = Math.min(last, Math.floorDiv(endTime - seriesOrigin, step));
+        }
+        long first = startTime != null
+                ? Math.max(0, Math.floorDiv(startTime - seriesOrigin + step - 1, step))
+                : Math.max(0, last - limit + 1);
+        last = Math.min(last, first + limit - 1);
+        if (last < first) {
+            return batch;
+        }
+
+        String key = symbol.toUpperCase() + ":" + timeframe.name();
+        Walk walk = walks.computeIfAbsent(key, k -> new Walk(properties.getSyntheticStartPrice()));
+        long seriesSeed = properties.getSyntheticSeed() * 31 + key.hashCode();
+        // Per-bar volatility grows with the square root of the bar length
+        double sigma = properties.getSyntheticVolatility() * Math.sqrt((double) step / Timeframe.M1.getMillis());
+
+        synchronized (walk) {
+            double previousClose = walk.closeAt(first - 1, seriesSeed, sigma);
+
+            for (long k = first; k <= last; k++) {
+                SplittableRandom random = new SplittableRandom(seriesSeed + k);
+                double open = previousClose;
+                double close = nextClose(random, open, sigma);
+                double high = Math.max(open, close) * (1 + Math.abs(random.nextGaussian()) * sigma / 2);
+                double low = Math.min(open, close) * (1 - Math.abs(random.nextGaussian()) * sigma / 2);
+                double volume = 1 + random.nextDouble() * 100;
+
+                int row = batch.addRow();
+                long openTime = seriesOrigin + k * step;
+                batch.setOpenTime(row, openTime);
+                batch.setCloseTime(row, openTime + step - 1);
+                batch.setScaled(KlineBatch.OPEN, row, Math.round(open * PRICE_SCALE));
+                batch.setScaled(KlineBatch.HIGH, row, Math.round(high * PRICE_SCALE));
+                batch.setScaled(KlineBatch.LOW, row, Math.round(low * PRICE_SCALE));
+                batch.setScaled(KlineBatch.CLOSE, row, Math.round(close * PRICE_SCALE));
+                batch.setScaled(KlineBatch.VOLUME, row, Math.round(volume * PRICE_SCALE));
+
+                walk.record(k, close);
+                previousClose = close;
+            }
+        }
+        return batch;
+    }
+
+    // Must be the first draw from the bar's generator so catch-up walking reproduces the same closes
+    private static double nextClose(SplittableRandom random, double open, double sigma) {
+        return open * Math.exp(random.nextGaussian() * sigma);
+    }
+
+    // Recent closes of one series in a ring, so polling from the last stored bar never rewalks from bar zero
+    private static final class Walk {
+
+        private static final int TAIL = 4096;
+
+        private final double startPrice;
+        private final double[] closes = new double[TAIL];
+        private long index = -1;
+
+        Walk(double startPrice) {
+            this.startPrice = startPrice;
+        }
+
+        double closeAt(long n, long seriesSeed, double sigma) {
+            if (n < 0) {
+                return startPrice;
+            }
+            if (n <= index - TAIL) {
+                index = -1;
+            }
+            while (index < n) {
+                double previous = index < 0 ? startPrice : closes[(int) (index % TAIL)];
+                record(index + 1, nextClose(new SplittableRandom(seriesSeed + index + 1), previous, sigma));
+            }
+            return closes[(int) (n % TAIL)];
+        }
+
+        void record(long n, double close) {
+            closes[(int) (n % TAIL)] = close;
+            index = Math.max(index, n);
+        }
+    }
+}
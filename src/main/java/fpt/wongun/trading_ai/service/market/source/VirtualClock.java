@@ -0,0 +1,19 @@
+package fpt.wongun.trading_ai.service.market.source;
+
+// Market time that starts at a chosen instant and advances at a multiple of wall-clock time
+class VirtualClock {
+
+    private final long originMillis;
+    private final long startNanos;
+    private final double speed;
+
+    VirtualClock(long originMillis, double speed) {
+        this.originMillis = originMillis;
+        this.startNanos = System.nanoTime();
+        this.speed = speed;
+    }
+
+    long millis() {
+        return originMillis + (long) ((System.nanoTime() - startNanos) / 1_000_000.0 * speed);
+    }
+}
@@ -0,0 +1,29 @@
+-- V5: Create sync_subscriptions registry of tracked (symbol, timeframe) series
+
+CREATE TABLE IF NOT EXISTS sync_subscriptions (
+    id BIGSERIAL PRIMARY KEY,
+    symbol_id BIGINT NOT NULL REFERENCES symbols(id) ON DELETE CASCADE,
+    timeframe VARCHAR(10) NOT NULL,
+    enabled BOOLEAN NOT NULL DEFAULT TRUE,
+
+    -- BaseEntity auditing fields
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    created_by VARCHAR(100),
+    updated_by VARCHAR(100),
+
+    CONSTRAINT uk_sync_subscription_symbol_timeframe UNIQUE (symbol_id, timeframe)
+);
+
+CREATE INDEX IF NOT EXISTS idx_sync_subscription_enabled ON sync_subscriptions(enabled);
+
+-- Track every crypto series that already has candles
+INSERT INTO sync_subscriptions (symbol_id, timeframe)
+SELECT DISTINCT c.symbol_id, c.timeframe
+FROM candles c
+JOIN symbols s ON s.id = c.symbol_id
+WHERE s.type = 'CRYPTO'
+ON CONFLICT (symbol_id, timeframe) DO NOTHING;
+
+COMMENT ON TABLE sync_subscriptions IS 'Symbol/timeframe series kept in sync with the exchange';
+COMMENT ON COLUMN sync_subscriptions.enabled IS 'Disabled subscriptions are kept for history but not synced';
@@ -0,0 +1,29 @@
+-- V6: Create backfill_jobs table for resumable historical candle backfill
+
+CREATE TABLE IF NOT EXISTS backfill_jobs (
+    id BIGSERIAL PRIMARY KEY,
+    symbol_id BIGINT NOT NULL REFERENCES symbols(id) ON DELETE CASCADE,
+    timeframe VARCHAR(10) NOT NULL,
+
+    -- Requested range and contiguous progress checkpoint
+    start_time TIMESTAMP WITH TIME ZONE NOT NULL,
+    end_time TIMESTAMP WITH TIME ZONE NOT NULL,
+    completed_until TIMESTAMP WITH TIME ZONE NOT NULL,
+
+    status VARCHAR(20) NOT NULL CHECK (status IN ('PENDING', 'RUNNING', 'COMPLETED', 'FAILED', 'CANCELLED')),
+    total_chunks INTEGER NOT NULL DEFAULT 0,
+    completed_chunks INTEGER NOT NULL DEFAULT 0,
+    candles_written BIGINT NOT NULL DEFAULT 0,
+    last_error VARCHAR(500),
+
+    -- BaseEntity auditing fields
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    created_by VARCHAR(100),
+    updated_by VARCHAR(100)
+);
+
+CREATE INDEX IF NOT EXISTS idx_backfill_job_status ON backfill_jobs(status);
+
+COMMENT ON TABLE backfill_jobs IS 'Historical candle backfill jobs, resumable from completed_until';
+COMMENT ON COLUMN backfill_jobs.completed_until IS 'Everything in [start_time, completed_until) has been written';
@@ -0,0 +1,22 @@
+-- V7: Forming bar store, separate from the append-only candles table
+-- Created at startup by FormingBarStore when market-data.forming-table-enabled=true
+
+CREATE UNLOGGED TABLE IF NOT EXISTS forming_candles (
+    symbol_id BIGINT NOT NULL,
+    timeframe VARCHAR(10) NOT NULL,
+
+    -- Epoch milliseconds, as received from the exchange
+    open_time BIGINT NOT NULL,
+    close_time BIGINT NOT NULL,
+
+    open NUMERIC(28, 18) NOT NULL,
+    high NUMERIC(28, 18) NOT NULL,
+    low NUMERIC(28, 18) NOT NULL,
+    close NUMERIC(28, 18) NOT NULL,
+    volume NUMERIC(28, 18) NOT NULL,
+    updated_at TIMESTAMP WITH TIME ZONE NOT NULL,
+
+    PRIMARY KEY (symbol_id, timeframe)
+);
+
+COMMENT ON TABLE forming_candles IS 'One still-forming bar per series; unlogged, so it is truncated after a crash';
@@ -0,0 +1,29 @@
+-- V8: Create quarantined_candles table for klines rejected by the ingest validator
+
+CREATE TABLE IF NOT EXISTS quarantined_candles (
+    id BIGSERIAL PRIMARY KEY,
+    symbol_id BIGINT NOT NULL REFERENCES symbols(id) ON DELETE CASCADE,
+    timeframe VARCHAR(10) NOT NULL,
+    timestamp TIMESTAMP WITH TIME ZONE NOT NULL,
+    close_time TIMESTAMP WITH TIME ZONE NOT NULL,
+
+    -- Values as received; may violate the candles constraints
+    open NUMERIC(28, 18),
+    high NUMERIC(28, 18),
+    low NUMERIC(28, 18),
+    close NUMERIC(28, 18),
+    volume NUMERIC(28, 18),
+
+    defect VARCHAR(30) NOT NULL CHECK (defect IN ('NON_POSITIVE_VALUE', 'INCONSISTENT_OHLC', 'BAD_CLOSE_TIME',
+                                                  'MISALIGNED', 'DUPLICATE_TIMESTAMP', 'OUT_OF_ORDER', 'PRICE_JUMP')),
+
+    -- BaseEntity auditing fields
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    created_by VARCHAR(100),
+    updated_by VARCHAR(100)
+);
+
+CREATE INDEX IF NOT EXISTS idx_quarantined_candle_symbol_tf ON quarantined_candles(symbol_id, timeframe, timestamp);
+
+COMMENT ON TABLE quarantined_candles IS 'Klines rejected before reaching candles, with the first defect found';
@@ -0,0 +1,33 @@
+-- V9: Partition candles by timeframe and UTC month, without per-row audit columns
+-- Applied at startup by CandlePartitionManager, which converts an existing plain table in one
+-- transaction and creates month partitions ahead of time and on demand. Shown here for M1 / 2025-01.
+
+CREATE SEQUENCE IF NOT EXISTS candles_row_id_seq;
+
+CREATE TABLE candles (
+    id BIGINT NOT NULL DEFAULT nextval('candles_row_id_seq'),
+    symbol_id BIGINT NOT NULL REFERENCES symbols(id),
+    timeframe VARCHAR(10) NOT NULL,
+    timestamp TIMESTAMP WITH TIME ZONE NOT NULL,
+    open NUMERIC(28, 18) NOT NULL,
+    high NUMERIC(28, 18) NOT NULL,
+    low NUMERIC(28, 18) NOT NULL,
+    close NUMERIC(28, 18) NOT NULL,
+    volume NUMERIC(28, 18) NOT NULL,
+
+    -- The natural key doubles as the lookup index for every series query
+    CONSTRAINT uk_candle_symbol_timeframe_timestamp PRIMARY KEY (symbol_id, timeframe, timestamp)
+) PARTITION BY LIST (timeframe);
+
+ALTER SEQUENCE candles_row_id_seq OWNED BY candles.id;
+
+-- One sub-tree per timeframe, so retention can differ per timeframe
+CREATE TABLE candles_m1 (LIKE candles INCLUDING DEFAULTS) PARTITION BY RANGE (timestamp);
+ALTER TABLE candles ATTACH PARTITION candles_m1 FOR VALUES IN ('M1');
+
+-- One leaf per UTC month; retention drops whole leaves (DROP TABLE candles_m1_y2025m01)
+CREATE TABLE candles_m1_y2025m01 (LIKE candles INCLUDING DEFAULTS);
+ALTER TABLE candles_m1 ATTACH PARTITION candles_m1_y2025m01
+    FOR VALUES FROM ('2025-01-01 00:00:00+00') TO ('2025-02-01 00:00:00+00');
+
+COMMENT ON TABLE candles IS 'OHLCV bars, LIST partitioned by timeframe and RANGE partitioned by month';
@@ -0,0 +1,121 @@
+package fpt.wongun.trading_ai.service.market;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import fpt.wongun.trading_ai.config.BinanceProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the stream client against a local WebSocket stand-in that replays recorded Binance
+ * frames and then drops the connection, to exercise parsing, resubscribe and reconnect.
+ */
+class BinanceKlineStreamClientTest {
+
+    private final List<String> subscribeRequests = new CopyOnWriteArrayList<>();
+    private final AtomicInteger connections = new AtomicInteger();
+    private DisposableServer server;
+    private List<String> frames;
+
+    @BeforeEach
+    void startStandIn() throws IOException {
+        try (InputStream in = getClass().getResourceAsStream("/binance/kline-frames.jsonl")) {
+            frames = new String(in.readAllBytes(), StandardCharsets.UTF_8).lines().toList();
+        }
+
+        server = HttpServer.create()
+                .port(0)
+                .route(routes -> routes.ws("/ws", (inbound, outbound) -> {
+                    connections.incrementAndGet();
+                    return outbound.sendString(inbound.receive()
+                            .asString()
+                            .doOnNext(subscribeRequests::add)
+                            .concatMap(request -> Flux.fromIterable(frames))
+                            .take(frames.size()));
+                }))
+                .bindNow();
+    }
+
+    @AfterEach
+    void stopStandIn() {
+        server.disposeNow();
+    }
+
+    @Test
+    void replaysFramesAndResubscribesAfterServerClose() {
+        BinanceProperties properties = new BinanceProperties();
+        properties.setStreamUrl("ws://localhost:" + server.port() + "/ws");
+        properties.setReconnectMinBackoff(Duration.ofMillis(10));
+        properties.setReconnectMaxBackoff(Duration.ofMillis(50));
+
+        BinanceKlineStreamClient client = new BinanceKlineStreamClient(properties, new ObjectMapper());
+        AtomicInteger connects = new AtomicInteger();
+
+        // 3 kline frames per connection; taking 6 forces one reconnect
+        List<BinanceKlineEvent> events = client
+                .stream(List.of("btcusdt@kline_1m", "ethusdt@kline_5m"), connects::incrementAndGet)
+                .take(6)
+                .collectList()
+                .block(Duration.ofSeconds(10));
+
+        assertThat(events).hasSize(6);
+        assertThat(connects.get()).isPositive();
+        assertThat(subscribeRequests).hasSizeGreaterThanOrEqualTo(2)
+                .allSatisfy(req -> assertThat(req)
+                        .contains("\"SUBSCRIBE\"")
+                        .contains("btcusdt@kline_1m")
+                        .contains("ethusdt@kline_5m"));
+
+        BinanceKlineEvent closed = events.get(1);
+        assertThat(closed.getSymbol()).isEqualTo("BTCUSDT");
+        assertThat(closed.getInterval()).isEqualTo("1m");
+        assertThat(closed.isClosed()).isTrue();
+        assertThat(closed.getKline().getOpenTime()).isEqualTo(1735689600000L);
+        assertThat(closed.getKline().getHigh()).isEqualByComparingTo(new BigDecimal("93615.5"));
+        assertThat(closed.getKline().getVolume()).isEqualByComparingTo(new BigDecimal("21.9012"));
+
+        assertThat(events.get(2).getSymbol()).isEqualTo("ETHUSDT");
+        assertThat(events.get(2).isClosed()).isFalse();
+    }
+
+    @Test
+    void spreadsStreamsOverConnectionsOfAtMostTheCap() {
+        BinanceProperties properties = new BinanceProperties();
+        properties.setStreamUrl("ws://localhost:" + server.port() + "/ws");
+        // Long enough that no connection comes back within the test
+        properties.setReconnectMinBackoff(Duration.ofSeconds(30));
+        properties.setReconnectMaxBackoff(Duration.ofSeconds(30));
+
+        List<String> streams = IntStream.rangeClosed(0, BinanceKlineStreamClient.MAX_STREAMS_PER_CONNECTION)
+                .mapToObj(i -> BinanceKlineStreamClient.streamName("S" + i + "USDT", "1m"))
+                .toList();
+        String first = "\"" + streams.get(0) + "\"";
+        String last = "\"" + streams.get(streams.size() - 1) + "\"";
+
+        // Each connection replays 3 frames after its first SUBSCRIBE
+        new BinanceKlineStreamClient(properties, new ObjectMapper())
+                .stream(streams, () -> { })
+                .take(6)
+                .blockLast(Duration.ofSeconds(10));
+
+        assertThat(connections.get()).isEqualTo(2);
+        assertThat(subscribeRequests).anySatisfy(req -> assertThat(req).contains(first));
+        assertThat(subscribeRequests).anySatisfy(req -> assertThat(req).contains(last));
+        assertThat(subscribeRequests).noneSatisfy(req -> assertThat(req).contains(first).contains(last));
+    }
+}
@@ -0,0 +1,216 @@
+package fpt.wongun.trading_ai.service.market;
+
+import fpt.wongun.trading_ai.service.market.CandleBulkWriter.BinaryCopyEncoder;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Encodes rows through the {@link BinaryCopyEncoder.Sink} seam and decodes the COPY BINARY stream the
+ * way Postgres reads it, so the numeric and timestamptz wire formats are checked without a database.
+ */
+class BinaryCopyEncoderTest {
+
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    private int writes;
+
+    @Test
+    void writesHeaderAndTrailer() throws Exception {
+        encoder().finish();
+
+        DataInputStream in = input();
+        assertThat(in.readNBytes(11)).isEqualTo("PGCOPY\n\377\r\n\0".getBytes(StandardCharsets.ISO_8859_1));
+        assertThat(in.readInt()).as("flags").isZero();
+        assertThat(in.readInt()).as("header extension").isZero();
+        assertThat(in.readShort()).as("trailer").isEqualTo((short) -1);
+        assertThat(in.available()).isZero();
+    }
+
+    @Test
+    void encodesZeroWithoutDigits() throws Exception {
+        BinaryCopyEncoder encoder = encoder();
+        encoder.startRow(1);
+        encoder.numeric(0L, KlineBatch.SCALE);
+        encoder.finish();
+
+        DataInputStream in = rows();
+        assertThat(in.readShort()).isEqualTo((short) 1);
+        assertThat(in.readInt()).as("length").isEqualTo(8);
+        assertThat(in.readShort()).as("ndigits").isZero();
+        assertThat(in.readShort()).as("weight").isZero();
+        assertThat(in.readShort()).as("sign").isZero();
+        assertThat(in.readShort()).as("dscale").isEqualTo((short) 8);
+    }
+
+    @Test
+    void encodesFractionsBelowOneTenThousandthWithNegativeWeight() throws Exception {
+        BinaryCopyEncoder encoder = encoder();
+        encoder.startRow(1);
+        encoder.numeric(1234L, KlineBatch.SCALE); // 0.00001234
+        encoder.finish();
+
+        DataInputStream in = rows();
+        in.readShort();
+        assertThat(in.readInt()).isEqualTo(10);
+        assertThat(in.readShort()).as("ndigits").isEqualTo((short) 1);
+        assertThat(in.readShort()).as("weight").isEqualTo((short) -2);
+        assertThat(in.readShort()).as("sign").isZero();
+        assertThat(in.readShort()).as("dscale").isEqualTo((short) 8);
+        assertThat(in.readShort()).isEqualTo((short) 1234);
+    }
+
+    @Test
+    void encodesScaledLongs() throws Exception {
+        long[] values = {
+                1L,                     // 0.00000001
+                1234L,                  // 0.00001234
+                1_234_567_891_234L,     // 12345.67891234
+                -1_234_567_891_234L,
+                100_000_000L,           // 1
+                6_500_000_000_000L,     // 65000
+                Long.MAX_VALUE,         // 92233720368.54775807
+                -Long.MAX_VALUE,
+        };
+        BinaryCopyEncoder encoder = encoder();
+        for (long value : values) {
+            encoder.startRow(1);
+            encoder.numeric(value, KlineBatch.SCALE);
+        }
+        encoder.finish();
+
+        List<BigDecimal> decoded = decodeNumerics(values.length);
+        for (int i = 0; i < values.length; i++) {
+            assertThat(decoded.get(i)).isEqualTo(BigDecimal.valueOf(values[i], KlineBatch.SCALE));
+        }
+    }
+
+    @Test
+    void encodesSpilledDecimalsAtTheirOwnScale() throws Exception {
+        BigDecimal[] values = {
+                new BigDecimal("123456789012345678901234.123456789"),
+                new BigDecimal("-123456789012345678901234.123456789"),
+                new BigDecimal("0.000000000000000001"),
+                new BigDecimal("1.5"),
+                new BigDecimal("120000000000"),
+                new BigDecimal("1.2E+11"),
+        };
+        BinaryCopyEncoder encoder = encoder();
+        for (BigDecimal value : values) {
+            encoder.startRow(1);
+            encoder.numeric(value);
+        }
+        encoder.finish();
+
+        List<BigDecimal> decoded = decodeNumerics(values.length);
+        for (int i = 0; i < values.length; i++) {
+            // Postgres displays at least the value's own decimals, never a negative scale
+            assertThat(decoded.get(i)).isEqualTo(values[i].setScale(Math.max(values[i].scale(), 0)));
+        }
+    }
+
+    @Test
+    void encodesTimestampsAsMicrosecondsSince2000() throws Exception {
+        long[] millis = {
+                Instant.parse("2000-01-01T00:00:00Z").toEpochMilli(),
+                0L,
+                Instant.parse("2025-01-01T00:01:00.123Z").toEpochMilli(),
+        };
+        BinaryCopyEncoder encoder = encoder();
+        for (long value : millis) {
+            encoder.startRow(1);
+            encoder.timestamp(value);
+        }
+        encoder.finish();
+
+        DataInputStream in = rows();
+        long[] micros = new long[millis.length];
+        for (int i = 0; i < millis.length; i++) {
+            assertThat(in.readShort()).isEqualTo((short) 1);
+            assertThat(in.readInt()).isEqualTo(8);
+            micros[i] = in.readLong();
+        }
+        assertThat(micros).containsExactly(0L, -946_684_800_000_000L, 789_004_860_123_000L);
+    }
+
+    @Test
+    void flushesFullBuffersToTheSinkInOrder() throws Exception {
+        int rows = 10_000;
+        BinaryCopyEncoder encoder = encoder();
+        for (int i = 0; i < rows; i++) {
+            encoder.startRow(2);
+            encoder.timestamp(i);
+            encoder.numeric(i * 100_000_000L, KlineBatch.SCALE);
+        }
+        encoder.finish();
+
+        assertThat(writes).isGreaterThan(1);
+        DataInputStream in = rows();
+        for (int i = 0; i < rows; i++) {
+            assertThat(in.readShort()).isEqualTo((short) 2);
+            in.readInt();
+            assertThat(in.readLong() / 1000 + 946_684_800_000L).isEqualTo(i);
+            assertThat(readNumeric(in)).isEqualTo(BigDecimal.valueOf(i * 100_000_000L, KlineBatch.SCALE));
+        }
+        assertThat(in.readShort()).isEqualTo((short) -1);
+    }
+
+    private BinaryCopyEncoder encoder() throws SQLException {
+        return new BinaryCopyEncoder((data, offset, length) -> {
+            out.write(data, offset, length);
+            writes++;
+        });
+    }
+
+    private DataInputStream input() {
+        return new DataInputStream(new ByteArrayInputStream(out.toByteArray()));
+    }
+
+    // Positioned at the first row
+    private DataInputStream rows() throws IOException {
+        DataInputStream in = input();
+        in.skipNBytes(11 + 4 + 4);
+        return in;
+    }
+
+    private List<BigDecimal> decodeNumerics(int count) throws IOException {
+        DataInputStream in = rows();
+        List<BigDecimal> values = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            assertThat(in.readShort()).isEqualTo((short) 1);
+            values.add(readNumeric(in));
+        }
+        assertThat(in.readShort()).isEqualTo((short) -1);
+        return values;
+    }
+
+    // numeric_recv: ndigits base-10000 digits, the first at 10000^weight, shown with dscale decimals
+    private static BigDecimal readNumeric(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        int ndigits = in.readShort();
+        int weight = in.readShort();
+        int sign = in.readShort() & 0xFFFF;
+        int dscale = in.readShort();
+        assertThat(length).isEqualTo(8 + 2 * ndigits);
+        BigDecimal value = BigDecimal.ZERO;
+        for (int i = 0; i < ndigits; i++) {
+            int digit = in.readShort();
+            assertThat(digit).isBetween(0, 9999);
+            value = value.add(new BigDecimal(BigInteger.valueOf(digit), -4 * (weight - i)));
+        }
+        assertThat(sign).isIn(0, 0x4000);
+        value = value.setScale(dscale);
+        return sign == 0x4000 ? value.negate() : value;
+    }
+}
@@ -0,0 +1,160 @@
+package fpt.wongun.trading_ai.service.market;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Writes M1 series to archive files in a temp directory and reads them back. The generated series
+ * spans several blocks, skips bars now and then, and mixes prices and volumes of different precision,
+ * including values that do not fit KlineBatch's scaled longs.
+ */
+class CandleArchiveFileTest {
+
+    private static final long STEP = 60_000L;
+    private static final long START = 1_735_689_600_000L; // 2025-01-01T00:00:00Z
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void roundTripsMultiBlockSeriesWithGaps() throws IOException {
+        KlineBatch batch = series(10_000, 7);
+        Path path = dir.resolve("m1.cca");
+        CandleArchiveFile.write(path, STEP, batch, batch.size());
+
+        KlineBatch read = new KlineBatch();
+        int rows = CandleArchiveFile.open(path).read(Long.MIN_VALUE, Long.MAX_VALUE, read);
+
+        assertThat(rows).isEqualTo(batch.size());
+        assertSameRows(read, 0, batch, 0, batch.size());
+    }
+
+    @Test
+    void readsPartialRangesAcrossBlockBoundaries() throws IOException {
+        KlineBatch batch = series(10_000, 11);
+        Path path = dir.resolve("m1.cca");
+        CandleArchiveFile.write(path, STEP, batch, batch.size());
+        CandleArchiveFile file = CandleArchiveFile.open(path);
+
+        // Rows 4000..4199 straddle the first block boundary at 4096
+        KlineBatch read = new KlineBatch();
+        int rows = file.read(batch.openTime(4000), batch.openTime(4200), read);
+        assertThat(rows).isEqualTo(200);
+        assertSameRows(read, 0, batch, 4000, 200);
+
+        // A range starting between two bars of a gap begins at the next stored bar
+        KlineBatch tail = new KlineBatch();
+        file.read(batch.openTime(9_998) - 1, Long.MAX_VALUE, tail);
+        assertThat(tail.size()).isEqualTo(2);
+        assertSameRows(tail, 0, batch, 9_998, 2);
+
+        assertThat(file.read(Long.MIN_VALUE, batch.openTime(0), new KlineBatch())).isZero();
+        assertThat(file.read(batch.lastOpenTime() + 1, Long.MAX_VALUE, new KlineBatch())).isZero();
+    }
+
+    @Test
+    void storesTypicalBarsCompactly() throws IOException {
+        // A month of M1 bars; this noisy walk deflates to a little over 8 bytes per bar
+        KlineBatch batch = series(44_640, 3);
+        Path path = dir.resolve("m1.cca");
+        CandleArchiveFile.write(path, STEP, batch, batch.size());
+
+        double bytesPerBar = (double) Files.size(path) / batch.size();
+        assertThat(bytesPerBar).as("bytes per bar").isLessThan(9);
+    }
+
+    @Test
+    void roundTripsValuesBeyondTheScaledRange() throws IOException {
+        KlineBatch batch = new KlineBatch();
+        // Volume above Long.MAX_VALUE / 1e8, price with ten decimals, a volume needing more than a long
+        String[][] values = {
+                {"0.0000000012", "0.0000000015", "0.0000000011", "0.0000000014", "120000000000"},
+                {"0.0000000014", "0.0000000019", "0.0000000013", "0.0000000018", "98000000000.5"},
+                {"0.0000000018", "0.0000000018", "0.0000000016", "0.0000000017", "123456789012.123456789012"},
+                {"0.0000000017", "0.0000000017", "0.0000000017", "0.0000000017", "0"},
+        };
+        for (int i = 0; i < values.length; i++) {
+            int row = batch.addRow();
+            batch.setOpenTime(row, START + i * STEP);
+            batch.setCloseTime(row, START + (i + 1) * STEP - 1);
+            for (int c = KlineBatch.OPEN; c <= KlineBatch.VOLUME; c++) {
+                batch.setDecimal(c, row, new BigDecimal(values[i][c]));
+            }
+        }
+        Path path = dir.resolve("wide.cca");
+        CandleArchiveFile.write(path, STEP, batch, batch.size());
+
+        KlineBatch read = new KlineBatch();
+        CandleArchiveFile.open(path).read(Long.MIN_VALUE, Long.MAX_VALUE, read);
+
+        assertSameRows(read, 0, batch, 0, batch.size());
+    }
+
+    @Test
+    void keepsLargeRoundVolumesNarrow() throws IOException {
+        KlineBatch batch = new KlineBatch();
+        for (int i = 0; i < 100; i++) {
+            int row = batch.addRow();
+            batch.setOpenTime(row, START + i * STEP);
+            batch.setCloseTime(row, START + (i + 1) * STEP - 1);
+            for (int c = KlineBatch.OPEN; c < KlineBatch.VOLUME; c++) {
+                batch.setDecimal(c, row, "1.5");
+            }
+            // 1.2e11 + i * 1e10 spills KlineBatch but is a small integer at scale -10
+            batch.setDecimal(KlineBatch.VOLUME, row, BigDecimal.valueOf(12 + i, -10));
+        }
+        Path path = dir.resolve("round.cca");
+        CandleArchiveFile.write(path, STEP, batch, batch.size());
+
+        KlineBatch read = new KlineBatch();
+        CandleArchiveFile.open(path).read(Long.MIN_VALUE, Long.MAX_VALUE, read);
+
+        assertSameRows(read, 0, batch, 0, batch.size());
+        assertThat(Files.size(path)).isLessThan(200);
+    }
+
+    // Random walk at two price decimals and five volume decimals; roughly one bar in fifty is missing
+    private static KlineBatch series(int bars, long seed) {
+        Random random = new Random(seed);
+        KlineBatch batch = new KlineBatch(bars);
+        long openTime = START;
+        long close = 6_500_000L; // 65000.00
+        for (int i = 0; i < bars; i++) {
+            long open = close;
+            close = Math.max(100, open + random.nextInt(2001) - 1000);
+            long high = Math.max(open, close) + random.nextInt(300);
+            long low = Math.min(open, close) - random.nextInt(300);
+            int row = batch.addRow();
+            batch.setOpenTime(row, openTime);
+            batch.setCloseTime(row, openTime + STEP - 1);
+            batch.setScaled(KlineBatch.OPEN, row, open * 1_000_000);
+            batch.setScaled(KlineBatch.HIGH, row, high * 1_000_000);
+            batch.setScaled(KlineBatch.LOW, row, low * 1_000_000);
+            batch.setScaled(KlineBatch.CLOSE, row, close * 1_000_000);
+            batch.setScaled(KlineBatch.VOLUME, row, random.nextInt(5_000_000) * 1_000L);
+            openTime += random.nextInt(50) == 0 ? STEP * (2 + random.nextInt(5)) : STEP;
+        }
+        return batch;
+    }
+
+    private static void assertSameRows(KlineBatch actual, int actualFrom, KlineBatch expected, int expectedFrom, int count) {
+        for (int i = 0; i < count; i++) {
+            int a = actualFrom + i;
+            int e = expectedFrom + i;
+            assertThat(actual.openTime(a)).as("open time of row %d", e).isEqualTo(expected.openTime(e));
+            assertThat(actual.closeTime(a)).as("close time of row %d", e).isEqualTo(expected.closeTime(e));
+            for (int c = KlineBatch.OPEN; c <= KlineBatch.VOLUME; c++) {
+                assertThat(actual.decimal(c, a)).as("column %d of row %d", c, e)
+                        .isEqualByComparingTo(expected.decimal(c, e));
+            }
+        }
+    }
+}
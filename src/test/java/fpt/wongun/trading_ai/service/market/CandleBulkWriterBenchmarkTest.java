@@ -0,0 +1,109 @@
+package fpt.wongun.trading_ai.service.market;
+
+import fpt.wongun.trading_ai.config.MarketDataProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Measures {@link CandleBulkWriter} against a real Postgres, e.g.
+ * {@code CANDLE_BENCH_DB_URL=jdbc:postgresql://localhost:5432/trading_ai DB_USERNAME=... DB_PASSWORD=... mvn test -Dtest=CandleBulkWriterBenchmarkTest}.
+ * Writes go to a temp {@code candles} table that shadows the real one for this connection only.
+ */
+@EnabledIfEnvironmentVariable(named = "CANDLE_BENCH_DB_URL", matches = ".+")
+class CandleBulkWriterBenchmarkTest {
+
+    private static final int PAGE = 1000;
+    private static final int PAGES = 1000;
+    private static final int WARMUP_PAGES = 20;
+    private static final long STEP = 60_000;
+    private static final double REQUIRED_ROWS_PER_SECOND = 100_000;
+
+    private SingleConnectionDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transactionTemplate;
+    private CandleBulkWriter writer;
+
+    @BeforeEach
+    void connect() {
+        dataSource = new SingleConnectionDataSource(System.getenv("CANDLE_BENCH_DB_URL"),
+                System.getenv("DB_USERNAME"), System.getenv("DB_PASSWORD"), true);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        // Never prepared, so it leaves the plain temp table alone
+        MarketDataProperties properties = new MarketDataProperties();
+        writer = new CandleBulkWriter(jdbcTemplate,
+                new CandlePartitionManager(jdbcTemplate, transactionManager, properties, new CandleArchive(properties)));
+
+        jdbcTemplate.execute("""
+                CREATE TEMP TABLE candles (
+                    id BIGSERIAL PRIMARY KEY,
+                    symbol_id BIGINT NOT NULL,
+                    timeframe VARCHAR(10) NOT NULL,
+                    timestamp TIMESTAMP WITH TIME ZONE NOT NULL,
+                    open NUMERIC(28, 18) NOT NULL,
+                    high NUMERIC(28, 18) NOT NULL,
+                    low NUMERIC(28, 18) NOT NULL,
+                    close NUMERIC(28, 18) NOT NULL,
+                    volume NUMERIC(28, 18) NOT NULL,
+                    UNIQUE (symbol_id, timeframe, timestamp)
+                )
+                """);
+    }
+
+    @AfterEach
+    void disconnect() {
+        dataSource.destroy();
+    }
+
+    @Test
+    void writesAtLeastOneHundredThousandCandlesPerSecond() {
+        KlineBatch page = new KlineBatch(PAGE);
+        for (int i = 0; i < WARMUP_PAGES; i++) {
+            writePage(page, 2L, i);
+        }
+
+        long started = System.nanoTime();
+        long written = 0;
+        for (int i = 0; i < PAGES; i++) {
+            written += writePage(page, 1L, i);
+        }
+        double seconds = (System.nanoTime() - started) / 1e9;
+        double rate = written / seconds;
+
+        assertThat(written).isEqualTo((long) PAGE * PAGES);
+        assertThat(rate).as("%,d candles in %.2fs = %,.0f candles/s", written, seconds, rate)
+                .isGreaterThanOrEqualTo(REQUIRED_ROWS_PER_SECOND);
+
+        // Re-sending identical bars hits the conflict branch and leaves the rows untouched
+        assertThat(writePage(page, 1L, 0)).isZero();
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM candles WHERE symbol_id = 1", Long.class))
+                .isEqualTo((long) PAGE * PAGES);
+    }
+
+    private int writePage(KlineBatch page, long symbolId, int pageIndex) {
+        page.clear();
+        long start = 1_700_000_000_000L + (long) pageIndex * PAGE * STEP;
+        for (int i = 0; i < PAGE; i++) {
+            int row = page.addRow();
+            long price = 9_000_000_000_000L + (pageIndex * PAGE + i) % 10_000 * 1_000_000L;
+            page.setOpenTime(row, start + i * STEP);
+            page.setCloseTime(row, start + (i + 1) * STEP - 1);
+            page.setScaled(KlineBatch.OPEN, row, price);
+            page.setScaled(KlineBatch.HIGH, row, price + 50_000_000_000L);
+            page.setScaled(KlineBatch.LOW, row, price - 50_000_000_000L);
+            page.setScaled(KlineBatch.CLOSE, row, price + 10_000_000_000L);
+            page.setScaled(KlineBatch.VOLUME, row, 123_456_789L);
+        }
+        Integer written = transactionTemplate.execute(status -> writer.write(symbolId, "M1", page, PAGE));
+        return written == null ? 0 : written;
+    }
+}
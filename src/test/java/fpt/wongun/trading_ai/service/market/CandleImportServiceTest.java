@@ -0,0 +1,208 @@
+package fpt.wongun.trading_ai.service.market;
+
+import fpt.wongun.trading_ai.domain.entity.Symbol;
+import fpt.wongun.trading_ai.repository.SymbolRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Streams uploads of two interleaved series, several chunks long, with bad rows mixed in. The ingest
+ * service is a stand-in that records every chunk and, like the validator, drops rows with a negative
+ * volume, so rows rejected at parse time and at flush time are both counted.
+ */
+class CandleImportServiceTest {
+
+    private static final long START = 1_735_689_600_000L; // 2025-01-01T00:00:00Z
+    private static final long MINUTE = 60_000L;
+    private static final long HOUR = 3_600_000L;
+    private static final int ROWS_PER_SERIES = 6_000;
+
+    private final Map<String, List<Long>> stored = new HashMap<>();
+    private final List<Integer> chunkSizes = new ArrayList<>();
+    private CandleImportService service;
+
+    @BeforeEach
+    void setUp() {
+        SymbolRepository symbols = mock(SymbolRepository.class);
+        when(symbols.findByCode(anyString())).thenReturn(Optional.empty());
+        when(symbols.findByCode("BTCUSDT")).thenReturn(Optional.of(symbol(1L, "BTCUSDT")));
+        when(symbols.findByCode("ETHUSDT")).thenReturn(Optional.of(symbol(2L, "ETHUSDT")));
+
+        CandleIngestService ingest = mock(CandleIngestService.class);
+        when(ingest.applyAll(any(Symbol.class), anyString(), any(KlineBatch.class), anyLong())).thenAnswer(call -> {
+            Symbol symbol = call.getArgument(0);
+            KlineBatch batch = call.getArgument(2);
+            BitSet invalid = new BitSet();
+            for (int row = 0; row < batch.size(); row++) {
+                if (batch.scaled(KlineBatch.VOLUME, row) < 0) {
+                    invalid.set(row);
+                }
+            }
+            batch.removeRows(invalid);
+            chunkSizes.add(batch.size());
+            List<Long> openTimes = stored.computeIfAbsent(symbol.getCode() + ":" + call.getArgument(1), k -> new ArrayList<>());
+            for (int row = 0; row < batch.size(); row++) {
+                openTimes.add(batch.openTime(row));
+            }
+            return batch.size();
+        });
+        service = new CandleImportService(symbols, ingest);
+    }
+
+    @Test
+    void importsCsvAcrossChunkAndSeriesBoundaries() throws IOException {
+        StringBuilder csv = new StringBuilder("symbol,timeframe,openTime,open,high,low,close,volume\n");
+        Upload upload = new Upload(csv, CandleFileFormat.CSV);
+
+        CandleImportReport report = service.importStream(upload.stream(), CandleFileFormat.CSV);
+
+        assertReport(report, upload);
+        assertThat(report.errors()).first().asString().startsWith("line " + upload.firstBadLine + ": ");
+    }
+
+    @Test
+    void importsNdjsonAcrossChunkAndSeriesBoundaries() throws IOException {
+        Upload upload = new Upload(new StringBuilder(), CandleFileFormat.NDJSON);
+
+        CandleImportReport report = service.importStream(upload.stream(), CandleFileFormat.NDJSON);
+
+        assertReport(report, upload);
+    }
+
+    @Test
+    void rejectsQuotedCsvFields() throws IOException {
+        String csv = """
+                symbol,timeframe,openTime,open,high,low,close,volume
+                BTCUSDT,M1,1735689600000,"65,000",65100,64900,65050,12
+                BTCUSDT,M1,1735689660000,65050,65100,64900,65000,12
+                """;
+
+        CandleImportReport report = service.importStream(
+                new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), CandleFileFormat.CSV);
+
+        assertThat(report.rowsRead()).isEqualTo(2);
+        assertThat(report.accepted()).isEqualTo(1);
+        assertThat(report.errors()).containsExactly("line 2: quoted CSV fields are not supported");
+        assertThat(stored.get("BTCUSDT:M1")).containsExactly(1_735_689_660_000L);
+    }
+
+    @Test
+    void rejectsQuotedCsvHeader() {
+        String csv = "\"symbol\",timeframe,openTime,open,high,low,close,volume\n";
+
+        assertThatThrownBy(() -> service.importStream(
+                new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), CandleFileFormat.CSV))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private void assertReport(CandleImportReport report, Upload upload) {
+        assertThat(report.rowsRead()).isEqualTo(upload.rows);
+        assertThat(report.rejected()).isEqualTo(upload.badRows + upload.invalidRows);
+        assertThat(report.accepted()).isEqualTo(upload.rows - upload.badRows - upload.invalidRows);
+        assertThat(report.written()).isEqualTo(report.accepted());
+        assertThat(report.errors()).hasSize(20);
+
+        // Every series was flushed in several bounded chunks, each in open-time order
+        assertThat(chunkSizes.size()).isGreaterThan(4);
+        assertThat(chunkSizes).allSatisfy(size -> assertThat(size).isLessThanOrEqualTo(CandleImportService.CHUNK_ROWS));
+        assertThat(stored.get("BTCUSDT:M1")).hasSize(ROWS_PER_SERIES - upload.invalidRows / 2).isSorted();
+        assertThat(stored.get("ETHUSDT:H1")).hasSize(ROWS_PER_SERIES - upload.invalidRows / 2).isSorted();
+        assertThat(stored).hasSize(2);
+    }
+
+    private static Symbol symbol(long id, String code) {
+        Symbol symbol = new Symbol();
+        symbol.setId(id);
+        symbol.setCode(code);
+        return symbol;
+    }
+
+    // Two series interleaved row by row; every 250th line is a bad row and every 1000th row of each series
+    // carries a negative volume the stand-in validator drops
+    private static final class Upload {
+
+        private final StringBuilder text;
+        private final CandleFileFormat format;
+        private int rows;
+        private int badRows;
+        private int invalidRows;
+        private long firstBadLine = -1;
+        private long line;
+
+        Upload(StringBuilder text, CandleFileFormat format) {
+            this.text = text;
+            this.format = format;
+            this.line = format == CandleFileFormat.CSV ? 1 : 0;
+            String[] bad = format == CandleFileFormat.CSV
+                    ? new String[]{
+                            "DOGEUSDT,M1,1735689600000,1,1,1,1,1",
+                            "BTCUSDT,M1,yesterday,1,1,1,1,1",
+                            "BTCUSDT,M1,1735689600000,1,1,one,1,1",
+                            "BTCUSDT,M1,1735689600000",
+                            "\"BTCUSDT\",M1,1735689600000,1,1,1,1,1"}
+                    : new String[]{
+                            "{\"symbol\":\"DOGEUSDT\",\"timeframe\":\"M1\",\"openTime\":1735689600000,\"open\":\"1\",\"high\":\"1\",\"low\":\"1\",\"close\":\"1\",\"volume\":\"1\"}",
+                            "{\"symbol\":\"BTCUSDT\",\"timeframe\":\"M1\",\"openTime\":\"yesterday\",\"open\":\"1\",\"high\":\"1\",\"low\":\"1\",\"close\":\"1\",\"volume\":\"1\"}",
+                            "{\"symbol\":\"BTCUSDT\",\"timeframe\":\"M1\"",
+                            "{\"symbol\":\"BTCUSDT\",\"timeframe\":\"M1\",\"openTime\":1735689600000}",
+                            "[1,2,3]"};
+            for (int i = 0; i < ROWS_PER_SERIES; i++) {
+                row("BTCUSDT", "M1", START + i * MINUTE, i);
+                row("ETHUSDT", "H1", START + i * HOUR, i);
+                if (i % 125 == 0) {
+                    line(bad[badRows % bad.length]);
+                    if (firstBadLine < 0) {
+                        firstBadLine = line;
+                    }
+                    badRows++;
+                    rows++;
+                }
+                if (i % 500 == 0) {
+                    text.append('\n'); // blank lines are skipped, not counted
+                    line++;
+                }
+            }
+        }
+
+        private void row(String symbol, String timeframe, long openTime, int i) {
+            String volume = i % 1000 == 999 ? "-1" : "12.345";
+            if (volume.startsWith("-")) {
+                invalidRows++;
+            }
+            String price = "650" + (i % 100) + ".5";
+            line(format == CandleFileFormat.CSV
+                    ? String.join(",", symbol, timeframe, String.valueOf(openTime), price, price, price, price, volume)
+                    : "{\"symbol\":\"" + symbol + "\",\"timeframe\":\"" + timeframe + "\",\"openTime\":" + openTime
+                            + ",\"open\":\"" + price + "\",\"high\":\"" + price + "\",\"low\":\"" + price
+                            + "\",\"close\":\"" + price + "\",\"volume\":\"" + volume + "\",\"trades\":{\"n\":1}}");
+            rows++;
+        }
+
+        private void line(String value) {
+            text.append(value).append('\n');
+            line++;
+        }
+
+        ByteArrayInputStream stream() {
+            return new ByteArrayInputStream(text.toString().getBytes(StandardCharsets.UTF_8));
+        }
+    }
+}
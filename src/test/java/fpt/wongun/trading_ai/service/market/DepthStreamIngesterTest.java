@@ -0,0 +1,122 @@
+package fpt.wongun.trading_ai.service.market;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import fpt.wongun.trading_ai.config.BinanceProperties;
+import fpt.wongun.trading_ai.domain.entity.Symbol;
+import fpt.wongun.trading_ai.domain.entity.SyncSubscription;
+import fpt.wongun.trading_ai.domain.enums.SymbolType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Runs the depth ingester against a local stand-in that replays recorded diff frames over WebSocket
+ * and serves REST snapshots in order. The frames include diffs the first snapshot already covers,
+ * a diff straddling it, another symbol's diff, and a sequence gap that must force a second snapshot.
+ */
+class DepthStreamIngesterTest {
+
+    private final AtomicInteger snapshotRequests = new AtomicInteger();
+    private DisposableServer server;
+    private DepthStreamIngester ingester;
+
+    @BeforeEach
+    void startStandIn() throws IOException {
+        List<String> frames = readLines("/binance/depth-frames.jsonl");
+        List<String> snapshots = readLines("/binance/depth-snapshots.jsonl");
+
+        server = HttpServer.create()
+                .port(0)
+                .route(routes -> routes
+                        .ws("/ws", (inbound, outbound) -> outbound.sendString(inbound.receive()
+                                .asString()
+                                .take(1)
+                                .concatMap(request -> Flux.fromIterable(frames))
+                                .concatWith(Flux.never())))
+                        .get("/api/v3/depth", (request, response) -> {
+                            int index = Math.min(snapshotRequests.getAndIncrement(), snapshots.size() - 1);
+                            return response.header("Content-Type", "application/json")
+                                    .sendString(Flux.just(snapshots.get(index)));
+                        }))
+                .bindNow();
+    }
+
+    @AfterEach
+    void stopStandIn() {
+        if (ingester != null) {
+            ingester.shutdown();
+        }
+        server.disposeNow();
+    }
+
+    @Test
+    void buildsBookFromSnapshotAndDiffsAndResyncsOnGap() throws InterruptedException {
+        BinanceProperties properties = new BinanceProperties();
+        properties.setStreamUrl("ws://localhost:" + server.port() + "/ws");
+        properties.setDepthSnapshotLimit(100);
+
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        BinanceClient binanceClient = new BinanceClient(
+                WebClient.create("http://localhost:" + server.port()),
+                new BinanceRateLimiter(properties, meterRegistry));
+
+        Symbol btc = Symbol.builder().id(1L).code("BTCUSDT").type(SymbolType.CRYPTO).build();
+        SyncSubscriptionService subscriptions = mock(SyncSubscriptionService.class);
+        when(subscriptions.getActiveSubscriptions()).thenReturn(List.of(
+                SyncSubscription.builder().symbol(btc).timeframe("M1").build()));
+
+        OrderBookRegistry orderBooks = new OrderBookRegistry(properties);
+        ingester = new DepthStreamIngester(new BinanceKlineStreamClient(properties, new ObjectMapper()),
+                binanceClient, properties, subscriptions, orderBooks, meterRegistry);
+        ingester.start();
+
+        Optional<DepthSummary> summary = Optional.empty();
+        for (int i = 0; i < 100 && summary.map(s -> s.lastUpdateId() != 115).orElse(true); i++) {
+            Thread.sleep(100);
+            summary = orderBooks.summary("BTCUSDT", 50);
+        }
+
+        assertThat(summary).isPresent();
+        DepthSummary book = summary.get();
+        assertThat(book.lastUpdateId()).isEqualTo(115);
+        assertThat(snapshotRequests.get()).isEqualTo(2);
+        assertThat(meterRegistry.counter("depth.sequence.gaps").count()).isEqualTo(1.0);
+
+        assertThat(book.bestBid()).isEqualByComparingTo(new BigDecimal("100.00"));
+        assertThat(book.bestAsk()).isEqualByComparingTo(new BigDecimal("100.10"));
+        assertThat(book.spread()).isEqualByComparingTo(new BigDecimal("0.10"));
+        assertThat(book.bidLevels()).isEqualTo(4);
+        assertThat(book.askLevels()).isEqualTo(3);
+
+        // Within 50 bps of the 100.05 mid: bids down to 99.80, asks up to 100.50
+        assertThat(book.bidDepth().doubleValue()).isCloseTo(5.7, within(1e-9));
+        assertThat(book.askDepth().doubleValue()).isCloseTo(2.7, within(1e-9));
+
+        assertThat(orderBooks.summary("ETHUSDT")).isEmpty();
+    }
+
+    private List<String> readLines(String resource) throws IOException {
+        try (InputStream in = getClass().getResourceAsStream(resource)) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8).lines().toList();
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package fpt.wongun.trading_ai.service.market;
+
+import fpt.wongun.trading_ai.config.MarketDataProperties;
+import fpt.wongun.trading_ai.service.market.TieredCandleReader.Span;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.YearMonth;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Plans ranges against an archive holding January, February and April 2025 of BTCUSDT/H1; March
+ * is only in the database.
+ */
+class TieredCandleReaderTest {
+
+    private static final long HOUR = 3_600_000L;
+    private static final YearMonth JAN = YearMonth.of(2025, 1);
+    private static final YearMonth FEB = YearMonth.of(2025, 2);
+    private static final YearMonth MAR = YearMonth.of(2025, 3);
+    private static final YearMonth APR = YearMonth.of(2025, 4);
+    private static final YearMonth MAY = YearMonth.of(2025, 5);
+
+    @TempDir
+    Path dir;
+
+    private CandleArchive archive;
+    private TieredCandleReader reader;
+
+    @BeforeEach
+    void archive() throws IOException {
+        MarketDataProperties properties = new MarketDataProperties();
+        properties.setCandleArchiveDir(dir.toString());
+        archive = new CandleArchive(properties);
+        for (YearMonth month : new YearMonth[]{JAN, FEB, APR}) {
+            KlineBatch batch = new KlineBatch();
+            int row = batch.addRow();
+            batch.setOpenTime(row, start(month));
+            batch.setCloseTime(row, start(month) + HOUR - 1);
+            for (int c = KlineBatch.OPEN; c <= KlineBatch.VOLUME; c++) {
+                batch.setDecimal(c, row, "1");
+            }
+            archive.write("BTCUSDT", "H1", month, HOUR, batch, 1);
+        }
+        // Plans never touch the database
+        reader = new TieredCandleReader(null, archive);
+    }
+
+    @Test
+    void rangeBeforeTheArchiveIsReadFromTheDatabase() {
+        long from = start(JAN) - 10 * HOUR;
+        assertThat(reader.plan("BTCUSDT", "H1", from, start(JAN)))
+                .containsExactly(new Span(from, start(JAN), false));
+    }
+
+    @Test
+    void rangeAfterTheArchiveIsReadFromTheDatabase() {
+        long from = start(MAY) + HOUR;
+        assertThat(reader.plan("BTCUSDT", "H1", from, from + 5 * HOUR))
+                .containsExactly(new Span(from, from + 5 * HOUR, false));
+    }
+
+    @Test
+    void rangeInsideOneArchivedMonthIsOneArchivedSpan() {
+        long from = start(FEB) + 3 * HOUR;
+        assertThat(reader.plan("BTCUSDT", "H1", from, from + HOUR))
+                .containsExactly(new Span(from, from + HOUR, true));
+    }
+
+    @Test
+    void monthBetweenArchivedMonthsIsReadFromTheDatabase() {
+        long from = start(FEB) + HOUR;
+        long to = start(APR) + HOUR;
+        assertThat(reader.plan("BTCUSDT", "H1", from, to)).containsExactly(
+                new Span(from, start(MAR), true),
+                new Span(start(MAR), start(APR), false),
+                new Span(start(APR), to, true));
+    }
+
+    @Test
+    void rangeCoveringEverythingSplitsAtEveryTierChange() {
+        long from = start(JAN) - HOUR;
+        long to = start(MAY) + HOUR;
+        assertThat(reader.plan("BTCUSDT", "H1", from, to)).containsExactly(
+                new Span(from, start(JAN), false),
+                new Span(start(JAN), start(FEB), true),
+                new Span(start(FEB), start(MAR), true),
+                new Span(start(MAR), start(APR), false),
+                new Span(start(APR), start(MAY), true),
+                new Span(start(MAY), to, false));
+    }
+
+    @Test
+    void seriesWithoutArchiveIsOneDatabaseSpan() {
+        long from = start(JAN);
+        assertThat(reader.plan("ETHUSDT", "H1", from, start(MAY)))
+                .containsExactly(new Span(from, start(MAY), false));
+        assertThat(reader.plan("BTCUSDT", "H1", from, from)).isEmpty();
+    }
+
+    @Test
+    void deletedSeriesIsReadFromTheDatabaseAgain() {
+        assertThat(archive.timeframes("BTCUSDT")).containsExactly("H1");
+        archive.deleteSeries("BTCUSDT", "H1");
+
+        assertThat(archive.months("BTCUSDT", "H1")).isEmpty();
+        assertThat(reader.plan("BTCUSDT", "H1", start(JAN), start(MAY)))
+                .containsExactly(new Span(start(JAN), start(MAY), false));
+    }
+
+    private static long start(YearMonth month) {
+        return CandleArchive.start(month);
+    }
+}
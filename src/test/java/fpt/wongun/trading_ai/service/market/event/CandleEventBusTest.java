@@ -0,0 +1,86 @@
+package fpt.wongun.trading_ai.service.market.event;
+
+import fpt.wongun.trading_ai.config.MarketDataProperties;
+import fpt.wongun.trading_ai.domain.entity.Symbol;
+import fpt.wongun.trading_ai.service.market.BinanceKline;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * One lane with room for two events, and a listener that turns every M1 bar into a burst of derived
+ * H1 bars published from the lane thread, as the rollup does. The burst overflows the lane and must
+ * still arrive complete, in order and on the lane thread.
+ */
+class CandleEventBusTest {
+
+    private static final int BARS = 20;
+    private static final int BURST = 5;
+    private static final long HOUR = 3_600_000L;
+
+    private CandleEventBus bus;
+
+    @AfterEach
+    void stop() {
+        bus.shutdown();
+    }
+
+    @Test
+    void keepsOrderWhenLaneThreadPublishesPastCapacity() throws InterruptedException {
+        Symbol symbol = new Symbol();
+        symbol.setId(1L);
+        symbol.setCode("BTCUSDT");
+        List<Long> derived = new CopyOnWriteArrayList<>();
+        List<String> threads = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(BARS * BURST);
+
+        CandleEventListener listener = new CandleEventListener() {
+            @Override
+            public void onCandleClosed(CandleClosed event) {
+                if ("M1".equals(event.timeframe())) {
+                    long base = event.kline().getOpenTime() / 60_000L * BURST;
+                    for (int i = 0; i < BURST; i++) {
+                        bus.publish(event.symbol(), "H1", bar((base + i) * HOUR, HOUR), true);
+                    }
+                } else {
+                    derived.add(event.kline().getOpenTime() / HOUR);
+                    threads.add(Thread.currentThread().getName());
+                    done.countDown();
+                }
+            }
+        };
+        @SuppressWarnings("unchecked")
+        ObjectProvider<CandleEventListener> listeners = mock(ObjectProvider.class);
+        when(listeners.orderedStream()).thenAnswer(call -> Stream.of(listener));
+        MarketDataProperties properties = new MarketDataProperties();
+        properties.setEventLanes(1);
+        properties.setEventQueueCapacity(2);
+        bus = new CandleEventBus(listeners, properties, new SimpleMeterRegistry());
+
+        for (int i = 0; i < BARS; i++) {
+            bus.publish(symbol, "M1", bar(i * 60_000L, 60_000L), true);
+        }
+
+        assertThat(done.await(10, TimeUnit.SECONDS)).isTrue();
+        assertThat(derived).hasSize(BARS * BURST).isSorted().doesNotHaveDuplicates();
+        assertThat(threads).containsOnly("candle-events-0");
+    }
+
+    private static BinanceKline bar(long openTime, long step) {
+        BinanceKline kline = new BinanceKline();
+        kline.setOpenTime(openTime);
+        kline.setCloseTime(openTime + step - 1);
+        return kline;
+    }
+}